@@ -0,0 +1,40 @@
+package com.myorg.usbparser.benchmarks;
+
+import com.myorg.usbparser.model.Section;
+import com.myorg.usbparser.service.implementation.PdfBoxSectionExtractor;
+import com.myorg.usbparser.service.implementation.PdfBoxTocExtractor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end extraction from the PDF file, normalised per page of the fixture:
+ * throughput is pages/ms and average time is ms/page.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@OperationsPerInvocation(SyntheticSpecPdf.PAGES)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExtractionBenchmark {
+
+    @Benchmark
+    public List<Section> tocExtractor(SpecFixture fixture) throws IOException {
+        return new PdfBoxTocExtractor(SpecFixture.DOC_TITLE).parse(fixture.pdf);
+    }
+
+    @Benchmark
+    public List<Section> sectionExtractor(SpecFixture fixture) throws IOException {
+        return new PdfBoxSectionExtractor(SpecFixture.DOC_TITLE).parse(fixture.pdf);
+    }
+}
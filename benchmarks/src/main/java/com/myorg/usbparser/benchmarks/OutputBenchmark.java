@@ -0,0 +1,49 @@
+package com.myorg.usbparser.benchmarks;
+
+import com.myorg.usbparser.model.Section;
+import com.myorg.usbparser.model.ValidationResult;
+import com.myorg.usbparser.service.implementation.ExcelValidator;
+import com.myorg.usbparser.service.implementation.JacksonJsonlWriter;
+import com.myorg.usbparser.service.processing.SectionPostProcessor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Post-extraction stages over the fixture's {@link SyntheticSpecPdf#HEADINGS} sections:
+ * clean-up, JSONL writing and the Excel validation report.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OutputBenchmark {
+
+    @Benchmark
+    public List<Section> cleanSections(SpecFixture fixture) {
+        return SectionPostProcessor.cleanSections(fixture.sections);
+    }
+
+    @Benchmark
+    public long jsonlWriter(SpecFixture fixture) throws IOException {
+        File out = fixture.workDir.resolve("sections.jsonl").toFile();
+        new JacksonJsonlWriter<Section>().write(out, fixture.sections);
+        return out.length();
+    }
+
+    @Benchmark
+    public ValidationResult excelValidator(SpecFixture fixture) {
+        File out = fixture.workDir.resolve("validation_report.xlsx").toFile();
+        return new ExcelValidator(out).validate(fixture.tocSections, fixture.sections);
+    }
+}
@@ -0,0 +1,114 @@
+package com.myorg.usbparser.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.myorg.usbparser.model.Section;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Heap retained by deserialized {@link Section}s: full sections as read back from JSONL, and
+ * content-less heads as the pipeline and the query index keep them. Each single shot reads
+ * {@link #SECTIONS} sections between two full collections and reports the difference per section
+ * in the {@code bytesPerSection} counter (list slots included). JMH sums event counters over
+ * iterations, so only one shot is measured.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 1)
+@Fork(value = 1, jvmArgsAppend = {"-XX:+UseSerialGC", "-Xms1g", "-Xmx1g"})
+public class SectionHeapBenchmark {
+
+    // fixture sections are repeated up to this count, so the heap difference dwarfs the noise
+    static final int SECTIONS = 100_000;
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final ObjectReader READER = MAPPER.readerFor(Section.class);
+
+    @State(Scope.Benchmark)
+    public static class Lines {
+        List<String> lines;
+
+        @Setup(Level.Trial)
+        public void setUp(SpecFixture fixture) throws IOException {
+            List<String> one = new ArrayList<>(fixture.sections.size());
+            for (Section s : fixture.sections) one.add(MAPPER.writeValueAsString(s));
+            lines = new ArrayList<>(SECTIONS);
+            for (int i = 0; i < SECTIONS; i++) lines.add(one.get(i % one.size()));
+        }
+    }
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Retained {
+        public long bytesPerSection;
+        // the sections of the last shot; held here rather than returned, so the previous shot's
+        // list is unreachable (not kept by the blackhole) when the next one measures its baseline
+        List<Section> sections;
+    }
+
+    @Benchmark
+    public int sections(Lines lines, Retained retained) throws IOException {
+        return read(lines.lines, false, retained);
+    }
+
+    @Benchmark
+    public int heads(Lines lines, Retained retained) throws IOException {
+        return read(lines.lines, true, retained);
+    }
+
+    private static int read(List<String> lines, boolean heads, Retained retained) throws IOException {
+        retained.sections = null;
+        long before = usedAfterGc();
+        List<Section> sections = new ArrayList<>(lines.size());
+        for (String line : lines) {
+            Section s = READER.readValue(line);
+            sections.add(heads ? withoutContent(s) : s);
+        }
+        retained.sections = sections;
+        retained.bytesPerSection = (usedAfterGc() - before) / sections.size();
+        return sections.size();
+    }
+
+    private static Section withoutContent(Section s) {
+        return Section.builder()
+                .docTitle(s.getDocTitle())
+                .sectionId(s.getSectionId())
+                .title(s.getTitle())
+                .page(s.getPage())
+                .level(s.getLevel())
+                .parentId(s.getParentId())
+                .fullPath(s.getFullPath())
+                .tags(s.getTags())
+                .build();
+    }
+
+    private static long usedAfterGc() {
+        Runtime runtime = Runtime.getRuntime();
+        long used = Long.MAX_VALUE;
+        // until a collection frees nothing more
+        for (int i = 0; i < 10; i++) {
+            System.gc();
+            long now = runtime.totalMemory() - runtime.freeMemory();
+            if (now >= used) break;
+            used = now;
+        }
+        return used;
+    }
+}
@@ -0,0 +1,55 @@
+package com.myorg.usbparser.benchmarks;
+
+import com.myorg.usbparser.model.Section;
+import com.myorg.usbparser.service.implementation.PdfBoxSectionExtractor;
+import com.myorg.usbparser.service.implementation.PdfBoxTocExtractor;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * The synthetic spec PDF, generated once per trial, plus its extracted ToC and sections
+ * as input for the output-stage benchmarks.
+ */
+@State(Scope.Benchmark)
+public class SpecFixture {
+
+    static final String DOC_TITLE = "USB Power Delivery Specification Rev 3.2";
+
+    Path workDir;
+    File pdf;
+    List<Section> tocSections;
+    List<Section> sections;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        workDir = Files.createTempDirectory("usbpd-bench-");
+        Path pdfPath = workDir.resolve("spec.pdf");
+        SyntheticSpecPdf.write(pdfPath);
+        pdf = pdfPath.toFile();
+
+        tocSections = new PdfBoxTocExtractor(DOC_TITLE).parse(pdf);
+        sections = new PdfBoxSectionExtractor(DOC_TITLE).parse(pdf);
+        if (tocSections.isEmpty() || sections.isEmpty()) {
+            throw new IllegalStateException("Fixture produced no ToC entries or sections");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (var files = Files.walk(workDir)) {
+            for (Path p : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(p);
+            }
+        }
+    }
+}
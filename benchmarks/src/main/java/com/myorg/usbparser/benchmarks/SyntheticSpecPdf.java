@@ -0,0 +1,103 @@
+package com.myorg.usbparser.benchmarks;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Generates a spec-shaped PDF fixture: a title page, a dotted-leader ToC and body pages
+ * with numbered headings (chapter / x.y / x.y.z), running headers, page footers and
+ * hyphenated paragraphs, so every extractor heuristic is exercised.
+ *
+ * The layout is fixed, so the page count is a compile-time constant usable in
+ * {@code @OperationsPerInvocation}.
+ */
+public final class SyntheticSpecPdf {
+
+    public static final int CHAPTERS = 40;
+    public static final int HEADINGS_PER_CHAPTER = 1 + 3 + 3 * 2;
+    public static final int HEADINGS = CHAPTERS * HEADINGS_PER_CHAPTER;
+
+    static final int HEADINGS_PER_PAGE = 4;
+    static final int TOC_LINES_PER_PAGE = 60;
+
+    public static final int BODY_PAGES = (HEADINGS + HEADINGS_PER_PAGE - 1) / HEADINGS_PER_PAGE;
+    public static final int TOC_PAGES = (HEADINGS + 1 + TOC_LINES_PER_PAGE - 1) / TOC_LINES_PER_PAGE;
+    public static final int PAGES = 1 + TOC_PAGES + BODY_PAGES;
+
+    private static final String RUNNING_HEADER = "Universal Serial Bus Power Delivery Specification";
+
+    private SyntheticSpecPdf() {}
+
+    public static void write(Path target) throws IOException {
+        List<String[]> headings = headings();
+
+        try (PDDocument doc = new PDDocument()) {
+            page(doc, List.of(RUNNING_HEADER, "Revision 3.2, Version 1.1 October 2024", "Editors"));
+
+            List<String> toc = new ArrayList<>();
+            toc.add("Table of Contents");
+            for (int i = 0; i < headings.size(); i++) {
+                String[] h = headings.get(i);
+                toc.add(h[0] + " " + h[1] + " ........................ " + (i / HEADINGS_PER_PAGE + 1));
+            }
+            for (int from = 0; from < toc.size(); from += TOC_LINES_PER_PAGE) {
+                page(doc, toc.subList(from, Math.min(toc.size(), from + TOC_LINES_PER_PAGE)));
+            }
+
+            for (int p = 0; p < BODY_PAGES; p++) {
+                List<String> lines = new ArrayList<>();
+                lines.add(RUNNING_HEADER);
+                for (int i = p * HEADINGS_PER_PAGE; i < Math.min(headings.size(), (p + 1) * HEADINGS_PER_PAGE); i++) {
+                    String[] h = headings.get(i);
+                    lines.add(h[0] + " " + h[1]);
+                    lines.add("The Source_Capabilities message carries PPS and EPR data for " + h[1] + ".");
+                    lines.add("Power negotiation contin-");
+                    lines.add("ues across the link with the values listed in Table " + i + ".");
+                    lines.add("A Sink shall respond within tSenderResponse after the GoodCRC Message.");
+                }
+                lines.add("Page " + (p + 1));
+                page(doc, lines);
+            }
+
+            doc.getDocumentInformation().setTitle("Synthetic USB PD Specification");
+            doc.save(target.toFile());
+        }
+    }
+
+    private static List<String[]> headings() {
+        List<String[]> headings = new ArrayList<>(HEADINGS);
+        for (int c = 1; c <= CHAPTERS; c++) {
+            headings.add(new String[]{String.valueOf(c), "Chapter Topic " + c});
+            for (int s = 1; s <= 3; s++) {
+                headings.add(new String[]{c + "." + s, "Section Topic " + c + " " + s});
+                for (int t = 1; t <= 2; t++) {
+                    headings.add(new String[]{c + "." + s + "." + t, "Detail Topic " + c + " " + s + " " + t});
+                }
+            }
+        }
+        return headings;
+    }
+
+    private static void page(PDDocument doc, List<String> lines) throws IOException {
+        PDPage page = new PDPage();
+        doc.addPage(page);
+        try (PDPageContentStream cs = new PDPageContentStream(doc, page)) {
+            cs.setFont(PDType1Font.HELVETICA, 9);
+            float y = 760;
+            for (String line : lines) {
+                cs.beginText();
+                cs.newLineAtOffset(40, y);
+                cs.showText(line);
+                cs.endText();
+                y -= 11;
+            }
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.myorg.usbparser.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "batch")
+public class BatchProperties {
+    private int parallelism = 0;        // batch pool workers, shared by documents and their page ranges; <= 0 = all available cores
+    private String inputRoot = "";      // directory the batch endpoint may read PDFs and manifests from; empty disables the endpoint
+    private int retainedBatches = 20;   // finished batches kept for status polling; older ones are deleted with their output
+
+    public int effectiveParallelism() {
+        return parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+    }
+}
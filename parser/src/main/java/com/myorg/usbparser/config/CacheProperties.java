@@ -0,0 +1,15 @@
+package com.myorg.usbparser.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "cache")
+public class CacheProperties {
+    private boolean enabled = true;  // reuse outputs of byte-identical uploads
+    private long maxMb = 512;        // LRU-evicted size cap of <base-path>/cache
+}
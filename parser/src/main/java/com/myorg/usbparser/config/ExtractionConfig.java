@@ -0,0 +1,43 @@
+package com.myorg.usbparser.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Configuration
+public class ExtractionConfig {
+
+    /**
+     * Worker pool for parallel page-range text extraction, sized by {@code parser.parallelism}.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ForkJoinPool extractionPool(ParserProperties parserProperties) {
+        return new ForkJoinPool(parserProperties.effectiveParallelism());
+    }
+
+    /**
+     * Platform threads, sized by {@code jobs.cpu-threads}, that run the CPU-bound extraction of jobs
+     * running on virtual threads; threads are only started when used and end when idle.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ThreadPoolExecutor cpuExecutor(JobProperties jobProperties) {
+        int threads = jobProperties.effectiveCpuThreads();
+        AtomicInteger threadNo = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                threads, threads,
+                30L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(),
+                r -> {
+                    Thread t = new Thread(r, "parse-cpu-" + threadNo.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+}
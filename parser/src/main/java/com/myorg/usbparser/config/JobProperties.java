@@ -0,0 +1,21 @@
+package com.myorg.usbparser.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "jobs")
+public class JobProperties {
+    private int workerThreads = 2;    // parse jobs running at once
+    private int queueCapacity = 8;    // jobs waiting for a worker; submissions beyond this get 429
+    private int retainedJobs = 200;   // finished jobs kept for status polling
+    private int cpuThreads = 0;       // with virtual job threads: platform threads for the CPU-bound extraction; <= 0 = all cores
+
+    public int effectiveCpuThreads() {
+        return cpuThreads > 0 ? cpuThreads : Runtime.getRuntime().availableProcessors();
+    }
+}
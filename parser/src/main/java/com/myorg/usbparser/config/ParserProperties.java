@@ -0,0 +1,32 @@
+package com.myorg.usbparser.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "parser")
+public class ParserProperties {
+    private int parallelism = 1;     // text extraction workers; 1 = sequential, <= 0 = all available cores
+    private int pagesPerTask = 16;   // smallest page range handed to a single worker
+    private boolean incremental = true; // reuse page scans of the latest successful job for unchanged pages
+    private boolean binaryOutput = false; // also write usb_pd_sections.bin (compact binary, random access by section id)
+    private Compression compression = Compression.NONE; // precompressed .jsonl.gz copies of the ToC and sections
+    private int frameKb = 256;       // uncompressed text per member of gzip-framed output
+    private String defaultDocTitle = "USB Power Delivery Specification Rev 3.2"; // doc_title when the PDF metadata has no title
+
+    public int effectiveParallelism() {
+        return parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+    }
+
+    public enum Compression {
+        NONE,
+        GZIP,        // one gzip member
+        GZIP_FRAMED; // line-aligned gzip members that carry their size, splittable for parallel reading
+
+        public static final String SUFFIX = ".gz";
+    }
+}
@@ -0,0 +1,38 @@
+package com.myorg.usbparser.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.File;
+
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "pdfbox")
+public class PdfBoxProperties {
+    private MemoryMode memoryMode = MemoryMode.MAIN_MEMORY; // where PDFBox buffers decoded streams
+    private long maxMainMemoryMb = 64;  // heap buffer per loaded document before spilling (mixed mode)
+    private long maxStorageMb = -1;     // total buffer per loaded document, heap + scratch; -1 = unlimited
+
+    public enum MemoryMode { MAIN_MEMORY, MIXED, TEMP_FILE }
+
+    /**
+     * PDFBox memory policy for one loaded document; spilled buffers go to {@code scratchDir}.
+     */
+    public MemoryUsageSetting memoryUsageSetting(File scratchDir) {
+        long maxStorage = maxStorageMb < 0 ? -1 : maxStorageMb * 1024 * 1024;
+        return switch (memoryMode) {
+            case MAIN_MEMORY -> MemoryUsageSetting.setupMainMemoryOnly(maxStorage);
+            case MIXED -> MemoryUsageSetting.setupMixed(Math.max(0, maxMainMemoryMb) * 1024 * 1024, maxStorage)
+                    .setTempDir(scratchDir);
+            case TEMP_FILE -> MemoryUsageSetting.setupTempFileOnly(maxStorage).setTempDir(scratchDir);
+        };
+    }
+
+    public boolean usesScratch() {
+        return memoryMode != MemoryMode.MAIN_MEMORY;
+    }
+}
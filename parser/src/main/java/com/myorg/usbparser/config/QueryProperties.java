@@ -0,0 +1,14 @@
+package com.myorg.usbparser.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "query")
+public class QueryProperties {
+    private int cachedIndexes = 16;  // section indexes of recent jobs kept in memory for the query endpoints
+}
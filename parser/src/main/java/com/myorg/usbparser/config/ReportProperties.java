@@ -0,0 +1,41 @@
+package com.myorg.usbparser.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.Arrays;
+import java.util.List;
+
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "report")
+public class ReportProperties {
+    private Format format = Format.XLSX;  // validation report: xlsx (streamed workbook), csv or json
+    private int rowWindow = 100;          // xlsx rows kept in memory before flushing to disk
+
+    public enum Format {
+        XLSX("validation_report.xlsx"),
+        CSV("validation_report.csv"),
+        JSON("validation_report.json");
+
+        private final String fileName;
+
+        Format(String fileName) {
+            this.fileName = fileName;
+        }
+
+        public String getFileName() {
+            return fileName;
+        }
+
+        /**
+         * Report file names of every format, for serving jobs written under another setting.
+         */
+        public static List<String> fileNames() {
+            return Arrays.stream(values()).map(Format::getFileName).toList();
+        }
+    }
+}
@@ -11,5 +11,7 @@ import org.springframework.context.annotation.Configuration;
 @ConfigurationProperties(prefix = "storage")
 public class StorageProperties {
     private String basePath = "output"; // default
+    private int maxJobs = 50;           // job directories kept under <base-path>/jobs
+    private long maxDiskMb = 2048;      // total size cap for job directories
 }
 
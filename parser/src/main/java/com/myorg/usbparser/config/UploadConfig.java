@@ -0,0 +1,33 @@
+package com.myorg.usbparser.config;
+
+import jakarta.servlet.MultipartConfigElement;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.web.servlet.MultipartProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+// servlet only: the offline batch runner starts the application without a web server
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class UploadConfig {
+
+    /**
+     * Multipart settings from {@code spring.servlet.multipart.*}; unless a location is configured,
+     * the container spools uploads into {@code <base-path>/uploads}, on the same file system as the
+     * job directories, so storing an upload is a rename rather than a copy.
+     */
+    @Bean
+    public MultipartConfigElement multipartConfigElement(MultipartProperties multipartProperties,
+                                                         StorageProperties storageProperties) throws IOException {
+        if (!StringUtils.hasText(multipartProperties.getLocation())) {
+            Path uploads = Path.of(storageProperties.getBasePath()).toAbsolutePath().normalize().resolve("uploads");
+            multipartProperties.setLocation(Files.createDirectories(uploads).toString());
+        }
+        return multipartProperties.createMultipartConfig();
+    }
+}
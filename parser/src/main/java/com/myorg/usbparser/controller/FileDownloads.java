@@ -0,0 +1,175 @@
+package com.myorg.usbparser.controller;
+
+import com.myorg.usbparser.util.FileDigests;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRange;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sends result files. Each representation (a file, or its gzipped sibling for clients that accept gzip)
+ * gets a strong ETag from the SHA-256 of its content, computed once per file version; {@code If-None-Match}
+ * answers 304, a single byte range 206 (or 416), honouring {@code If-Range}. Several ranges get the whole
+ * file. The body goes out through Tomcat's sendfile ({@code FileChannel.transferTo} into the socket,
+ * no copy through the heap) where the connector supports it, otherwise by {@code transferTo} into the
+ * response stream.
+ */
+@Component
+class FileDownloads {
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+    private static final int MAX_DIGESTS = 256;
+
+    private record Digest(long size, FileTime modified, String etag) {}
+
+    // file identity (inode where available, so cache-restored hard links share it) -> content ETag
+    private final Map<Object, Digest> digests = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Object, Digest> eldest) {
+            return size() > MAX_DIGESTS;
+        }
+    };
+
+    /**
+     * @param compressed gzipped copy of {@code file} to send to clients that accept gzip, or null
+     */
+    void send(Path file, Path compressed, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String name = file.getFileName().toString();
+        Path body = file;
+        if (compressed != null && Files.isRegularFile(compressed)) {
+            response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+            if (acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING))) {
+                body = compressed;
+                response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+            }
+        }
+        BasicFileAttributes attributes = Files.readAttributes(body, BasicFileAttributes.class);
+        long length = attributes.size();
+        String etag = etag(body, attributes);
+
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "no-cache");
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        if (new ServletWebRequest(request, response).checkNotModified(etag, attributes.lastModifiedTime().toMillis())) {
+            return; // 304 (412 for a failed If-Match), ETag and Last-Modified set
+        }
+        response.setContentType(contentType(name).toString());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + name + "\"");
+
+        long start = 0;
+        long end = length - 1;
+        HttpRange range = range(request, etag);
+        if (range != null) {
+            start = range.getRangeStart(length);
+            end = range.getRangeEnd(length);
+            if (start >= length || end < start) {
+                response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                return;
+            }
+            response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+        }
+        response.setContentLengthLong(end - start + 1);
+        if (HttpMethod.HEAD.matches(request.getMethod()) || end < start) return;
+
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, body.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end + 1);
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(body, StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            for (long position = start; position <= end; ) {
+                position += channel.transferTo(position, end + 1 - position, out);
+            }
+        }
+    }
+
+    /**
+     * The one requested range, or null to send the whole file: no, several or malformed ranges,
+     * or an {@code If-Range} that does not name the current version.
+     */
+    private static HttpRange range(HttpServletRequest request, String etag) {
+        String header = request.getHeader(HttpHeaders.RANGE);
+        if (header == null) return null;
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange != null && !ifRange.trim().equals(etag)) return null;
+        try {
+            List<HttpRange> ranges = HttpRange.parseRanges(header);
+            return ranges.size() == 1 ? ranges.get(0) : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private String etag(Path file, BasicFileAttributes attributes) throws IOException {
+        Object key = attributes.fileKey() != null ? attributes.fileKey() : file.toAbsolutePath();
+        synchronized (digests) {
+            Digest digest = digests.get(key);
+            if (digest != null && digest.size() == attributes.size()
+                    && digest.modified().equals(attributes.lastModifiedTime())) {
+                return digest.etag();
+            }
+        }
+        // outputs are published by rename and never modified, so size and time identify a version
+        String etag = "\"" + FileDigests.sha256(file).substring(0, 32) + "\"";
+        synchronized (digests) {
+            digests.put(key, new Digest(attributes.size(), attributes.lastModifiedTime(), etag));
+        }
+        return etag;
+    }
+
+    private static MediaType contentType(String name) {
+        if (name.endsWith(".jsonl")) return MediaType.APPLICATION_NDJSON;
+        return MediaTypeFactory.getMediaType(name).orElse(MediaType.APPLICATION_OCTET_STREAM);
+    }
+
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) return false;
+        Boolean gzip = null;
+        boolean any = false;
+        for (String part : acceptEncoding.split(",")) {
+            String[] params = part.split(";");
+            String coding = params[0].trim();
+            boolean accepted = true;
+            for (int i = 1; i < params.length; i++) {
+                String param = params[i].trim();
+                if (param.regionMatches(true, 0, "q=", 0, 2)) {
+                    try {
+                        accepted = Double.parseDouble(param.substring(2)) > 0;
+                    } catch (NumberFormatException e) {
+                        accepted = false;
+                    }
+                }
+            }
+            if (coding.equalsIgnoreCase("gzip") || coding.equalsIgnoreCase("x-gzip")) {
+                gzip = (gzip != null && gzip) || accepted;
+            } else if (coding.equals("*")) {
+                any = accepted;
+            }
+        }
+        return gzip != null ? gzip : any;
+    }
+}
@@ -1,35 +1,36 @@
 package com.myorg.usbparser.controller;
 
-import com.myorg.usbparser.config.StorageProperties;
+import com.myorg.usbparser.config.BatchProperties;
+import com.myorg.usbparser.config.ReportProperties;
 import com.myorg.usbparser.exception.ValidationException;
+import com.myorg.usbparser.model.BatchSummary;
+import com.myorg.usbparser.model.ParseJob;
+import com.myorg.usbparser.model.SearchResult;
 import com.myorg.usbparser.model.Section;
-import com.myorg.usbparser.service.JsonlWriter;
-import com.myorg.usbparser.service.SectionExtractor;
-import com.myorg.usbparser.service.TocExtractor;
-import com.myorg.usbparser.service.Validator;
-import com.myorg.usbparser.service.implementation.ExcelValidator;
-import com.myorg.usbparser.service.implementation.JacksonJsonlWriter;
-import com.myorg.usbparser.service.implementation.PdfBoxSectionExtractor;
-import com.myorg.usbparser.service.implementation.PdfBoxTocExtractor;
+import com.myorg.usbparser.service.implementation.BatchService;
+import com.myorg.usbparser.service.implementation.BinarySectionWriter;
+import com.myorg.usbparser.service.implementation.JobStorage;
+import com.myorg.usbparser.service.implementation.ParseJobService;
+import com.myorg.usbparser.service.implementation.ParsePipeline;
+import com.myorg.usbparser.service.implementation.SectionQueryService;
+import com.myorg.usbparser.service.implementation.SectionSelector;
+import com.myorg.usbparser.util.FileDigests;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-import org.springframework.core.io.FileSystemResource;
-import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.File;
-import java.lang.management.ManagementFactory;
-import java.lang.management.MemoryMXBean;
-import java.lang.management.MemoryUsage;
+import java.io.IOException;
+import java.net.URI;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.StandardCopyOption;
-import java.time.Duration;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
 
 @Slf4j
 @RestController
@@ -37,158 +38,317 @@ import java.util.List;
 @RequestMapping("/api/pdf")
 public class PdfParserController {
 
-    private static final String DOC_TITLE = "USB Power Delivery Specification Rev 3.2";
-    private final StorageProperties storageProperties;
-
-    private static final Logger PerfLogger = LoggerFactory.getLogger("performance");
-
+    // result name in /jobs/{id}/results/{result} -> candidate files in the job directory
+    // (the validation report is whichever format the job was written with)
+    private static final Map<String, List<String>> RESULT_FILES = Map.of(
+            "toc", List.of(ParsePipeline.TOC_FILE),
+            "sections", List.of(ParsePipeline.SECTIONS_FILE),
+            "sections_bin", List.of(BinarySectionWriter.FILE),
+            "validation", ReportProperties.Format.fileNames());
+
+    private static final int DEFAULT_SEARCH_LIMIT = 10;
+    private static final int MAX_SEARCH_LIMIT = 100;
+
+    private final JobStorage jobStorage;
+    private final ParseJobService parseJobService;
+    private final ParsePipeline parsePipeline;
+    private final SectionQueryService sectionQueries;
+    private final BatchService batchService;
+    private final BatchProperties batchProperties;
+    private final FileDownloads fileDownloads;
+
+    /**
+     * Synchronous parse: runs on the bounded job executor and waits for the result.
+     * With {@code sections} (e.g. {@code 6.4.*}) only the matching sections are extracted.
+     */
     @PostMapping("/parse")
-    public ResponseEntity<String> parsePdf(@RequestParam("file") MultipartFile file) {
-
-        if (file == null || file.isEmpty()) {
-            throw new ValidationException("Please upload a non-empty PDF file.");
+    public ResponseEntity<String> parsePdf(@RequestParam("file") MultipartFile file,
+                                           @RequestParam(value = "sections", required = false) String sections) {
+        ParseJob job = acceptUpload(file, sections);
+        try {
+            job.getCompletion().get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new ValidationException("Parsing was interrupted.", ex);
+        } catch (ExecutionException ex) {
+            throw new ValidationException("Failed to parse uploaded PDF.", ex.getCause());
         }
+        Path outDir = jobStorage.findJobDir(job.getId()).orElseThrow();
+        return ResponseEntity.ok("Parsing complete. Job " + job.getId() + ", results → " + outDir);
+    }
 
-        final String originalName = file.getOriginalFilename();
-        if (originalName == null) {
-            throw new ValidationException("Uploaded file has no filename.");
-        }
+    /**
+     * Asynchronous parse: returns the job id immediately (202); poll {@code GET /jobs/{id}}.
+     */
+    @PostMapping("/jobs")
+    public ResponseEntity<ParseJob> submitJob(@RequestParam("file") MultipartFile file,
+                                              @RequestParam(value = "sections", required = false) String sections) {
+        ParseJob job = acceptUpload(file, sections);
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/pdf/jobs/" + job.getId()))
+                .body(job);
+    }
 
-        final String lower = originalName.toLowerCase();
-        final String contentType = file.getContentType() == null ? "" : file.getContentType().toLowerCase();
+    @GetMapping("/jobs/{jobId}")
+    public ResponseEntity<ParseJob> getJob(@PathVariable("jobId") String jobId) {
+        return parseJobService.find(jobId)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
 
-        if (!(lower.endsWith(".pdf") || contentType.contains("pdf"))) {
-            throw new ValidationException("Only PDF files are accepted.");
+    /**
+     * Batch parse of a directory or manifest under {@code batch.input-root}; returns the batch id
+     * immediately (202), poll {@code GET /batches/{id}}.
+     */
+    @PostMapping("/batches")
+    public ResponseEntity<BatchSummary> submitBatch(@RequestParam("path") String path) throws IOException {
+        if (batchProperties.getInputRoot() == null || batchProperties.getInputRoot().isBlank()) {
+            throw new ValidationException("Batch parsing is disabled (batch.input-root is not set).");
         }
-
-        long jobStart = System.nanoTime();
-
+        Path root = Path.of(batchProperties.getInputRoot()).toAbsolutePath().normalize();
+        Path source = root.resolve(path).normalize();
+        if (!source.startsWith(root) || !Files.exists(source)) {
+            throw new ValidationException("Batch input not found under the input root: " + path);
+        }
+        BatchSummary batch;
         try {
-            Path outDir = Path.of(storageProperties.getBasePath()).toAbsolutePath().normalize();
-            Files.createDirectories(outDir);
-
-            // Save upload
-            Path pdfPath = outDir.resolve(Path.of(originalName).getFileName().toString());
-            long t0 = System.nanoTime();
-            Files.copy(file.getInputStream(), pdfPath, StandardCopyOption.REPLACE_EXISTING);
-            perf("Upload saved", t0, 1);
-
-            PerfLogger.info("Parsing started: {}", originalName);
-
-            // ToC extraction
-            t0 = System.nanoTime();
-            TocExtractor tocExtractor = new PdfBoxTocExtractor(DOC_TITLE);
-            List<Section> tocSections = tocExtractor.parse(pdfPath.toFile());
-            perf("ToC extracted", t0, tocSections.size());
-
-            // Sections extraction
-            t0 = System.nanoTime();
-            SectionExtractor sectionExtractor = new PdfBoxSectionExtractor(DOC_TITLE);
-            List<Section> allSections = sectionExtractor.parse(pdfPath.toFile());
-            perf("Sections extracted", t0, allSections.size());
-
-            // JSONL writing
-            JsonlWriter<Section> writer = new JacksonJsonlWriter<>();
-            t0 = System.nanoTime();
-            writer.write(outDir.resolve("usb_pd_toc.jsonl").toFile(), tocSections);
-            writer.write(outDir.resolve("usb_pd_sections.jsonl").toFile(), allSections);
-            perf("JSONL written", t0, tocSections.size() + allSections.size());
-
-            // Excel Validation
-            t0 = System.nanoTime();
-            Validator validator = new ExcelValidator(outDir.resolve("validation_report.xlsx").toFile());
-            validator.validate(tocSections, allSections);
-            perf("Validation report written", t0, 1);
-
-            // Job total
-            long totalMs = msSince(jobStart);
-            PerfLogger.info(
-                    "Job complete: {} ms, CPU: {}%, Memory: {} MB",
-                    totalMs,
-                    format(cpuLoad()),
-                    format(mb(usedMemoryBytes()))
-            );
-
-            return ResponseEntity.ok("Parsing complete. Results → " + outDir);
-
-        } catch (Exception ex) {
-            log.error("Parsing failed for {}: {}", originalName, ex.getMessage(), ex);
-            throw new ValidationException("Failed to parse uploaded PDF.", ex);
+            batch = batchService.submit(source, root);
+        } catch (IllegalArgumentException ex) {
+            throw new ValidationException(ex.getMessage(), ex);
         }
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/pdf/batches/" + batch.getBatchId()))
+                .body(batch);
+    }
+
+    @GetMapping("/batches/{batchId}")
+    public ResponseEntity<BatchSummary> getBatch(@PathVariable("batchId") String batchId) {
+        return batchService.find(batchId)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
     }
 
+    /**
+     * Result download; supports conditional GET ({@code If-None-Match}) and byte ranges, see {@link FileDownloads}.
+     */
+    @GetMapping("/jobs/{jobId}/results/{result}")
+    public void getJobResult(@PathVariable("jobId") String jobId,
+                             @PathVariable("result") String result,
+                             HttpServletRequest request, HttpServletResponse response) throws IOException {
+        List<String> names = RESULT_FILES.get(result);
+        Optional<Path> dir = names == null ? Optional.empty() : jobStorage.findJobDir(jobId);
+        serveFile(dir, names, request, response);
+    }
+
+    // Legacy endpoints: results of the most recent successful job
+
     @GetMapping("/results/toc")
-    public ResponseEntity<FileSystemResource> getTocJsonl() {
-        return serveFile("usb_pd_toc.jsonl");
+    public void getTocJsonl(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        serveFile(jobStorage.latestSucceededJobDir(), RESULT_FILES.get("toc"), request, response);
     }
 
     @GetMapping("/results/sections")
-    public ResponseEntity<FileSystemResource> getSectionsJsonl() {
-        return serveFile("usb_pd_sections.jsonl");
+    public void getSectionsJsonl(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        serveFile(jobStorage.latestSucceededJobDir(), RESULT_FILES.get("sections"), request, response);
     }
 
     @GetMapping("/results/validation")
-    public ResponseEntity<FileSystemResource> getValidationReport() {
-        return serveFile("validation_report.xlsx");
+    public void getValidationReport(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        serveFile(jobStorage.latestSucceededJobDir(), RESULT_FILES.get("validation"), request, response);
     }
 
-    // ===== Helpers =====
+    // Section queries, served from an in-memory index of the job's sections
+
+    /**
+     * Sections matching all given filters: {@code prefix=6.4} (6.4 and below), {@code level=2},
+     * {@code page=100-120} (sections whose pages overlap the range) or {@code page=100}.
+     */
+    @GetMapping("/jobs/{jobId}/sections")
+    public ResponseEntity<List<Section>> queryJobSections(@PathVariable("jobId") String jobId,
+                                                          @RequestParam(value = "prefix", required = false) String prefix,
+                                                          @RequestParam(value = "level", required = false) String level,
+                                                          @RequestParam(value = "page", required = false) String page)
+            throws IOException {
+        return querySections(jobStorage.findJobDir(jobId), prefix, level, page);
+    }
 
-    private ResponseEntity<FileSystemResource> serveFile(String name) {
-        Path outDir = Path.of(storageProperties.getBasePath()).toAbsolutePath().normalize();
-        File f = outDir.resolve(name).toFile();
+    @GetMapping("/jobs/{jobId}/sections/{sectionId}")
+    public ResponseEntity<Section> getJobSection(@PathVariable("jobId") String jobId,
+                                                 @PathVariable("sectionId") String sectionId) throws IOException {
+        return findSection(jobStorage.findJobDir(jobId), sectionId);
+    }
 
-        if (!f.exists()) return ResponseEntity.notFound().build();
+    @GetMapping("/jobs/{jobId}/sections/{sectionId}/children")
+    public ResponseEntity<List<Section>> getJobSectionChildren(@PathVariable("jobId") String jobId,
+                                                               @PathVariable("sectionId") String sectionId)
+            throws IOException {
+        return sectionChildren(jobStorage.findJobDir(jobId), sectionId);
+    }
 
-        return ResponseEntity.ok()
-                .header(HttpHeaders.CONTENT_DISPOSITION,
-                        "attachment; filename=\"" + name + "\"")
-                .body(new FileSystemResource(f));
+    /**
+     * Full-text search over section titles and content, BM25-ranked; {@code "quoted phrases"} must match exactly.
+     */
+    @GetMapping("/jobs/{jobId}/search")
+    public ResponseEntity<SearchResult> searchJob(@PathVariable("jobId") String jobId,
+                                                  @RequestParam("q") String q,
+                                                  @RequestParam(value = "limit", required = false) String limit)
+            throws IOException {
+        return search(jobStorage.findJobDir(jobId), q, limit);
     }
 
-    private void perf(String step, long startNano, int items) {
-        long ms = msSince(startNano);
-        double rate = items > 0 ? items / (ms / 1000.0) : 0;
+    // Same queries over the most recent successful job
 
-        PerfLogger.info(
-                "{}: {} ms (Rate/FPS: {}), CPU: {}%, Memory: {} MB, items={}",
-                step,
-                ms,
-                format(rate),
-                format(cpuLoad()),
-                format(mb(usedMemoryBytes())),
-                items
-        );
+    @GetMapping("/search")
+    public ResponseEntity<SearchResult> search(@RequestParam("q") String q,
+                                               @RequestParam(value = "limit", required = false) String limit)
+            throws IOException {
+        return search(jobStorage.latestSucceededJobDir(), q, limit);
     }
 
-    private static long msSince(long nano) {
-        return Duration.ofNanos(System.nanoTime() - nano).toMillis();
+    @GetMapping("/sections")
+    public ResponseEntity<List<Section>> querySections(@RequestParam(value = "prefix", required = false) String prefix,
+                                                       @RequestParam(value = "level", required = false) String level,
+                                                       @RequestParam(value = "page", required = false) String page)
+            throws IOException {
+        return querySections(jobStorage.latestSucceededJobDir(), prefix, level, page);
     }
 
-    private static long usedMemoryBytes() {
-        MemoryMXBean bean = ManagementFactory.getMemoryMXBean();
-        long used = bean.getHeapMemoryUsage().getUsed();
-        MemoryUsage non = bean.getNonHeapMemoryUsage();
-        if (non != null) used += Math.max(0, non.getUsed());
-        return used;
+    @GetMapping("/sections/{sectionId}")
+    public ResponseEntity<Section> getSection(@PathVariable("sectionId") String sectionId) throws IOException {
+        return findSection(jobStorage.latestSucceededJobDir(), sectionId);
     }
 
-    private static double cpuLoad() {
+    @GetMapping("/sections/{sectionId}/children")
+    public ResponseEntity<List<Section>> getSectionChildren(@PathVariable("sectionId") String sectionId)
+            throws IOException {
+        return sectionChildren(jobStorage.latestSucceededJobDir(), sectionId);
+    }
+
+    // ===== Helpers =====
+
+    private ResponseEntity<List<Section>> querySections(Optional<Path> dir, String prefix, String level, String page)
+            throws IOException {
+        Integer lvl = level == null ? null : parseNumber("level", level);
+        int[] pages = page == null ? null : parsePageRange(page);
+        if (dir.isEmpty()) return ResponseEntity.notFound().build();
+        Optional<List<Section>> sections = sectionQueries.query(dir.get(), prefix, lvl,
+                pages == null ? null : pages[0], pages == null ? null : pages[1]);
+        return sections.map(ResponseEntity::ok).orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    private ResponseEntity<SearchResult> search(Optional<Path> dir, String q, String limit) throws IOException {
+        if (q == null || q.isBlank()) throw new ValidationException("Query parameter q must not be empty.");
+        int max = limit == null ? DEFAULT_SEARCH_LIMIT : parseNumber("limit", limit);
+        if (max < 1 || max > MAX_SEARCH_LIMIT) {
+            throw new ValidationException("limit must be between 1 and " + MAX_SEARCH_LIMIT);
+        }
+        if (dir.isEmpty()) return ResponseEntity.notFound().build();
+        return sectionQueries.search(dir.get(), q, max)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    private ResponseEntity<Section> findSection(Optional<Path> dir, String sectionId) throws IOException {
+        if (dir.isEmpty()) return ResponseEntity.notFound().build();
+        return sectionQueries.find(dir.get(), sectionId)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    private ResponseEntity<List<Section>> sectionChildren(Optional<Path> dir, String sectionId) throws IOException {
+        if (dir.isEmpty()) return ResponseEntity.notFound().build();
+        return sectionQueries.children(dir.get(), sectionId)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    /**
+     * {@code "100-120"} or {@code "100"} -> {from, to}.
+     */
+    private static int[] parsePageRange(String page) {
+        int dash = page.indexOf('-');
+        int from = parseNumber("page", dash < 0 ? page : page.substring(0, dash));
+        int to = dash < 0 ? from : parseNumber("page", page.substring(dash + 1));
+        if (from < 1 || to < from) {
+            throw new ValidationException("Invalid page range: " + page);
+        }
+        return new int[]{from, to};
+    }
+
+    private static int parseNumber(String name, String value) {
         try {
-            var os = ManagementFactory.getOperatingSystemMXBean();
-            if (os instanceof com.sun.management.OperatingSystemMXBean m) {
-                double val = m.getProcessCpuLoad();
-                return val < 0 ? -1 : val * 100;
-            }
-        } catch (Exception ignored) {}
-        return -1;
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException ex) {
+            throw new ValidationException("Invalid " + name + ": " + value, ex);
+        }
     }
 
-    private static double mb(long bytes) {
-        return bytes / (1024.0 * 1024.0);
+    /**
+     * The first of {@code names} present in the job directory, or 404.
+     */
+    private void serveFile(Optional<Path> dir, List<String> names, HttpServletRequest request,
+                           HttpServletResponse response) throws IOException {
+        Optional<Path> file = dir.flatMap(d -> names.stream()
+                .map(d::resolve)
+                .filter(Files::isRegularFile)
+                .findFirst());
+        if (file.isEmpty()) {
+            response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        fileDownloads.send(file.get(), ParsePipeline.compressedPath(file.get()), request, response);
     }
 
-    private static String format(double v) {
-        return v < 0 ? "n/a" : String.format("%.2f", v);
+    private ParseJob acceptUpload(MultipartFile file, String sections) {
+        if (file == null || file.isEmpty()) {
+            throw new ValidationException("Please upload a non-empty PDF file.");
+        }
+
+        final String originalName = file.getOriginalFilename();
+        if (originalName == null) {
+            throw new ValidationException("Uploaded file has no filename.");
+        }
+
+        final String lower = originalName.toLowerCase();
+        final String contentType = file.getContentType() == null ? "" : file.getContentType().toLowerCase();
+
+        if (!(lower.endsWith(".pdf") || contentType.contains("pdf"))) {
+            throw new ValidationException("Only PDF files are accepted.");
+        }
+
+        SectionSelector selector = null;
+        if (sections != null) {
+            try {
+                selector = SectionSelector.parse(sections);
+            } catch (IllegalArgumentException ex) {
+                throw new ValidationException("Invalid sections parameter: " + ex.getMessage(), ex);
+            }
+        }
+
+        parseJobService.ensureCapacity();
+        ParseJob job = parseJobService.create(originalName);
+        if (selector != null) job.setSectionFilter(selector.toString());
+
+        Path outDir;
+        Path pdfPath;
+        try {
+            outDir = jobStorage.createJobDir(job.getId());
+            pdfPath = outDir.resolve(JobStorage.INPUT_FILE);
+
+            // Save upload: the container's spooled temp file is moved into the job directory
+            // (same file system), then hashed from the page cache for the result cache
+            long t0 = System.nanoTime();
+            file.transferTo(pdfPath.toFile());
+            job.setContentSha256(FileDigests.sha256(pdfPath));
+            parsePipeline.stage(job, "upload", "Upload saved", t0, 1);
+        } catch (IOException ex) {
+            log.error("Saving upload failed for {}: {}", originalName, ex.getMessage(), ex);
+            job.markFailed(ex);
+            job.complete();
+            jobStorage.enforceRetention(parseJobService.activeJobIds());
+            throw new ValidationException("Failed to store uploaded PDF.", ex);
+        }
+
+        return parseJobService.submit(job, pdfPath, outDir);
     }
 }
@@ -80,6 +80,11 @@ public class GlobalExceptionHandler {
         return logAndBuild(ex, HttpStatus.PAYLOAD_TOO_LARGE, "Uploaded file is too large!", request);
     }
 
+    @ExceptionHandler(JobRejectedException.class)
+    public ResponseEntity<ErrorResponse> handleJobRejected(JobRejectedException ex, HttpServletRequest request) {
+        return logAndBuild(ex, HttpStatus.TOO_MANY_REQUESTS, safeMessage(ex.getMessage()), request);
+    }
+
     @ExceptionHandler(ValidationException.class)
     public ResponseEntity<ErrorResponse> handleValidation(ValidationException ex, HttpServletRequest request) {
         return logAndBuild(ex, HttpStatus.BAD_REQUEST, safeMessage(ex.getMessage()), request);
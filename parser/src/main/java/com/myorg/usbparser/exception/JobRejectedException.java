@@ -0,0 +1,15 @@
+package com.myorg.usbparser.exception;
+
+/**
+ * Thrown when the parse job queue is full; mapped to 429 Too Many Requests.
+ */
+public class JobRejectedException extends RuntimeException {
+
+    public JobRejectedException(String message) {
+        super(message);
+    }
+
+    public JobRejectedException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -1,10 +1,17 @@
 package com.myorg.usbparser.metrics;
 
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import java.lang.management.ManagementFactory;
 import com.sun.management.OperatingSystemMXBean;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Step timer that logs to the "performance" logger and records each step into the
+ * {@code usbpd.probe} timer of the global Micrometer registry (tagged by label and step).
+ */
 public class PerfProbe {
     private static final Logger PERF = LoggerFactory.getLogger("performance");
     private static final OperatingSystemMXBean OS =
@@ -18,6 +25,11 @@ public class PerfProbe {
 
     public void mark(String stepName, long unitsProcessed) {
         long now = System.nanoTime();
+        Timer.builder("usbpd.probe")
+                .tag("label", label)
+                .tag("step", stepName)
+                .register(Metrics.globalRegistry)
+                .record(now - last, TimeUnit.NANOSECONDS);
         double ms = (now - last) / 1_000_000.0;
         double sec = ms / 1000.0;
         last = now;
@@ -0,0 +1,116 @@
+package com.myorg.usbparser.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Micrometer instrumentation of the parse pipeline, scraped from {@code /actuator/prometheus}.
+ *
+ * Stage durations are published as histograms rather than client-side percentiles so that
+ * p95/p99 can be aggregated across instances ({@code histogram_quantile} over
+ * {@code usbpd_stage_seconds_bucket}).
+ */
+@Component
+public class PipelineMetrics {
+
+    public static final String STAGE_TIMER = "usbpd.stage";
+
+    private final MeterRegistry registry;
+    private final Map<String, Timer> stageTimers = new ConcurrentHashMap<>();
+    private final Map<String, Counter> outcomes = new ConcurrentHashMap<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private final Counter pages;
+    private final Counter pagesReused;
+    private final Counter lines;
+    private final Counter tocEntries;
+    private final Counter sections;
+    private final Counter cacheHits;
+
+    public PipelineMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        this.pages = Counter.builder("usbpd.pages").description("PDF pages loaded").register(registry);
+        this.pagesReused = Counter.builder("usbpd.pages.reused").description("Pages taken from a previous parse instead of extracted").register(registry);
+        this.lines = Counter.builder("usbpd.lines").description("Text lines extracted from pages").register(registry);
+        this.tocEntries = Counter.builder("usbpd.toc.entries").description("ToC entries extracted").register(registry);
+        this.sections = Counter.builder("usbpd.sections").description("Sections extracted").register(registry);
+        this.cacheHits = Counter.builder("usbpd.cache.hits").description("Jobs served from the result cache").register(registry);
+        Gauge.builder("usbpd.jobs.in_flight", inFlight, AtomicInteger::get)
+                .description("Parse jobs currently running")
+                .register(registry);
+    }
+
+    /**
+     * Record one finished stage (upload, load, pages, toc, jsonl, sections, validation, cache, total).
+     */
+    public void recordStage(String stage, long nanos) {
+        stageTimers.computeIfAbsent(stage, s -> Timer.builder(STAGE_TIMER)
+                        .description("Duration of a parse pipeline stage")
+                        .tag("stage", s)
+                        .publishPercentileHistogram()
+                        .register(registry))
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void countPages(int n) {
+        pages.increment(n);
+    }
+
+    public void countPagesReused(int n) {
+        pagesReused.increment(n);
+    }
+
+    public void countLines(long n) {
+        lines.increment(n);
+    }
+
+    public void countTocEntries(int n) {
+        tocEntries.increment(n);
+    }
+
+    public void countSections(int n) {
+        sections.increment(n);
+    }
+
+    public void countCacheHit() {
+        cacheHits.increment();
+    }
+
+    /**
+     * Expose the length of the job executor's waiting queue.
+     */
+    public void bindJobQueue(Collection<?> queue) {
+        Gauge.builder("usbpd.jobs.queued", queue, Collection::size)
+                .description("Parse jobs waiting for a worker")
+                .register(registry);
+    }
+
+    public void jobStarted() {
+        inFlight.incrementAndGet();
+    }
+
+    public void jobFinished(String outcome) {
+        inFlight.decrementAndGet();
+        countJob(outcome);
+    }
+
+    /**
+     * Count a job by outcome: succeeded, failed or rejected.
+     */
+    public void countJob(String outcome) {
+        outcomes.computeIfAbsent(outcome, o -> Counter.builder("usbpd.jobs")
+                        .description("Parse jobs by outcome")
+                        .tag("outcome", o)
+                        .register(registry))
+                .increment();
+    }
+}
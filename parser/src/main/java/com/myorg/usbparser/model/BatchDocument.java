@@ -0,0 +1,49 @@
+package com.myorg.usbparser.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.Map;
+
+/**
+ * One document of a batch, as listed in {@code batch_summary.json}.
+ */
+@Getter
+@Builder
+@ToString
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchDocument {
+
+    @JsonProperty("file_name")
+    private String fileName;
+
+    @JsonProperty("doc_title")
+    private String docTitle;
+
+    @JsonProperty("status")
+    private ParseJob.Status status;
+
+    @JsonProperty("error")
+    private String error;
+
+    @JsonProperty("input_bytes")
+    private long inputBytes;
+
+    @JsonProperty("cache_hit")
+    private boolean cacheHit;
+
+    // outputs of this document, under <batch output>/<name>/
+    @JsonProperty("output_dir")
+    private String outputDir;
+
+    @JsonProperty("stage_millis")
+    private Map<String, Long> stageMillis;
+
+    @JsonProperty("results")
+    private Map<String, String> results;
+}
@@ -0,0 +1,77 @@
+package com.myorg.usbparser.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * State of a batch parse, as reported by {@code GET /api/pdf/batches/{id}} and written to
+ * {@code batch_summary.json} once every document has finished.
+ */
+@Getter
+@Builder
+@ToString
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchSummary {
+
+    // PARTIAL: finished, but some documents failed
+    public enum Status { RUNNING, SUCCEEDED, PARTIAL, FAILED }
+
+    @JsonProperty("batch_id")
+    private String batchId;
+
+    // directory or manifest the documents were read from
+    @JsonProperty("source")
+    private String source;
+
+    @JsonProperty("output_dir")
+    private String outputDir;
+
+    @JsonProperty("status")
+    private Status status;
+
+    @JsonProperty("parallelism")
+    private int parallelism;
+
+    @JsonProperty("documents")
+    private int documents;
+
+    @JsonProperty("finished")
+    private int finished;
+
+    @JsonProperty("succeeded")
+    private int succeeded;
+
+    @JsonProperty("failed")
+    private int failed;
+
+    @JsonProperty("cache_hits")
+    private int cacheHits;
+
+    @JsonProperty("input_bytes")
+    private long inputBytes;
+
+    @JsonProperty("started_at")
+    private Instant startedAt;
+
+    @JsonProperty("finished_at")
+    private Instant finishedAt;
+
+    // wall-clock time of the batch, and the sum of the documents' own times (their ratio is the speed-up)
+    @JsonProperty("wall_millis")
+    private Long wallMillis;
+
+    @JsonProperty("document_millis")
+    private long documentMillis;
+
+    // in input order
+    @JsonProperty("document_results")
+    private List<BatchDocument> documentResults;
+}
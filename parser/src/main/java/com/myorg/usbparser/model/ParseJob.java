@@ -0,0 +1,156 @@
+package com.myorg.usbparser.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Getter;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * State of one asynchronous parse job, as reported by {@code GET /api/pdf/jobs/{id}}.
+ * Written by the worker thread, read by request threads.
+ */
+@Getter
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ParseJob {
+
+    public enum Status { QUEUED, RUNNING, SUCCEEDED, FAILED }
+
+    @JsonProperty("job_id")
+    private final String id;
+
+    @JsonProperty("file_name")
+    private final String fileName;
+
+    // targeted parse: section id patterns (e.g. "6.4.*"); only the matching sections are extracted
+    @JsonProperty("section_filter")
+    private volatile String sectionFilter;
+
+    // from the PDF metadata, unless a batch manifest names it
+    @JsonProperty("doc_title")
+    private volatile String docTitle;
+
+    // SHA-256 of the uploaded bytes, computed while the upload is stored
+    @JsonProperty("content_sha256")
+    private volatile String contentSha256;
+
+    @JsonProperty("cache_hit")
+    private volatile boolean cacheHit;
+
+    // incremental parse: job whose page index was reused, and how many pages were not re-extracted
+    @JsonProperty("baseline_job_id")
+    private volatile String baselineJobId;
+
+    @JsonProperty("pages_reused")
+    private volatile Integer pagesReused;
+
+    @JsonProperty("status")
+    private volatile Status status = Status.QUEUED;
+
+    @JsonProperty("submitted_at")
+    private final Instant submittedAt = Instant.now();
+
+    @JsonProperty("started_at")
+    private volatile Instant startedAt;
+
+    @JsonProperty("finished_at")
+    private volatile Instant finishedAt;
+
+    @JsonProperty("error")
+    private volatile String error;
+
+    // stage name -> elapsed ms, in execution order
+    @JsonProperty("stage_millis")
+    private final Map<String, Long> stageMillis = new LinkedHashMap<>();
+
+    // result name (toc, sections, validation) -> file location
+    @JsonProperty("results")
+    private final Map<String, String> results = new LinkedHashMap<>();
+
+    @JsonIgnore
+    private volatile Throwable failure;
+
+    @JsonIgnore
+    private final CompletableFuture<ParseJob> completion = new CompletableFuture<>();
+
+    public ParseJob(String id, String fileName) {
+        this.id = id;
+        this.fileName = fileName;
+    }
+
+    public void setSectionFilter(String sectionFilter) {
+        this.sectionFilter = sectionFilter;
+    }
+
+    public void setDocTitle(String docTitle) {
+        this.docTitle = docTitle;
+    }
+
+    public void setContentSha256(String contentSha256) {
+        this.contentSha256 = contentSha256;
+    }
+
+    public void markCacheHit() {
+        this.cacheHit = true;
+    }
+
+    public void markIncremental(String baselineJobId, int pagesReused) {
+        this.baselineJobId = baselineJobId;
+        this.pagesReused = pagesReused;
+    }
+
+    public synchronized void recordStage(String stage, long millis) {
+        stageMillis.put(stage, millis);
+    }
+
+    public synchronized void recordResult(String name, String location) {
+        results.put(name, location);
+    }
+
+    public void markRunning() {
+        startedAt = Instant.now();
+        status = Status.RUNNING;
+    }
+
+    public void markSucceeded() {
+        finishedAt = Instant.now();
+        status = Status.SUCCEEDED;
+    }
+
+    public void markFailed(Throwable cause) {
+        finishedAt = Instant.now();
+        error = cause == null ? "Unknown error"
+                : cause.getMessage() != null ? cause.getMessage() : cause.toString(); // e.g. StackOverflowError
+        failure = cause == null ? new IllegalStateException(error) : cause;
+        status = Status.FAILED;
+    }
+
+    /**
+     * Release waiters once the job's final state (and its outputs) are in place.
+     */
+    public void complete() {
+        if (status == Status.FAILED) {
+            completion.completeExceptionally(failure);
+        } else {
+            completion.complete(this);
+        }
+    }
+
+    @JsonIgnore
+    public boolean isFinished() {
+        return status == Status.SUCCEEDED || status == Status.FAILED;
+    }
+
+    // Defensive getters: snapshot under the same lock the worker writes with
+    public synchronized Map<String, Long> getStageMillis() {
+        return new LinkedHashMap<>(stageMillis);
+    }
+
+    public synchronized Map<String, String> getResults() {
+        return new LinkedHashMap<>(results);
+    }
+}
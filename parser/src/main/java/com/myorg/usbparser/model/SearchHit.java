@@ -0,0 +1,36 @@
+package com.myorg.usbparser.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * One ranked section of a full-text search.
+ */
+@Getter
+@Builder
+@ToString
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class SearchHit {
+
+    @JsonProperty("section_id")
+    private String sectionId;
+
+    @JsonProperty("title")
+    private String title;
+
+    @JsonProperty("page")
+    private Integer page;
+
+    // BM25 score summed over the query terms
+    @JsonProperty("score")
+    private double score;
+
+    // text around the densest cluster of query terms, matches wrapped in <em>...</em>
+    @JsonProperty("snippet")
+    private String snippet;
+}
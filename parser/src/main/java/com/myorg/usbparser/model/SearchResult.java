@@ -0,0 +1,34 @@
+package com.myorg.usbparser.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.List;
+
+/**
+ * Response of {@code GET /api/pdf/search}: the best {@code limit} hits out of {@code total_hits}.
+ */
+@Getter
+@Builder
+@ToString
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class SearchResult {
+
+    @JsonProperty("query")
+    private String query;
+
+    @JsonProperty("total_hits")
+    private int totalHits;
+
+    // time spent ranking in the index, without reading snippets back
+    @JsonProperty("took_micros")
+    private long tookMicros;
+
+    @JsonProperty("hits")
+    private List<SearchHit> hits;
+}
@@ -2,64 +2,225 @@ package com.myorg.usbparser.model;
 
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
-import lombok.AllArgsConstructor;
-import lombok.Builder;
-import lombok.EqualsAndHashCode;
-import lombok.Getter;
-import lombok.NoArgsConstructor;
-import lombok.ToString;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonPOJOBuilder;
 
 import java.util.List;
+import java.util.Objects;
 
 /**
  * Model representing a document section / ToC line.
+ *
+ * Kept compact for documents with thousands of sections: the doc title is interned, page and level are
+ * primitives ({@code NONE} for a missing value), and parent id and full path are stored only when they
+ * differ from what the section id implies ({@code "6.4"} for {@code 6.4.1}, {@code "<id> <title>"}).
+ * Getters and JSON are the same as for a plain field-per-property class.
  */
-@Getter
-@Builder
-@NoArgsConstructor
-@AllArgsConstructor
-@ToString
-@EqualsAndHashCode
 @JsonInclude(JsonInclude.Include.NON_NULL)
-public class Section {
+@JsonPropertyOrder({"doc_title", "section_id", "title", "page", "level", "parent_id", "full_path", "tags", "content"})
+@JsonDeserialize(builder = Section.SectionBuilder.class)
+public final class Section {
+
+    private static final int NONE = Integer.MIN_VALUE;
+    private static final byte DERIVED_PARENT = 1;
+    private static final byte DERIVED_FULL_PATH = 2;
+
+    private final String docTitle;
+    private final String sectionId;
+    private final String title;
+    private final int page;
+    private final int level;
+    private final String parentId;   // null when derived (or absent, see flags)
+    private final String fullPath;   // null when derived (or absent, see flags)
+    private final byte flags;
+    private final List<String> tags; // immutable, shared List.of() when empty
+    private final String content;    // present in sections.jsonl; null for pure ToC lines
+
+    private Section(SectionBuilder b) {
+        this.docTitle = b.docTitle == null ? null : b.docTitle.intern();
+        this.sectionId = b.sectionId;
+        this.title = b.title;
+        this.page = b.page == null ? NONE : b.page;
+        this.level = b.level == null ? NONE : b.level;
+        byte f = 0;
+        if (b.parentId != null && b.parentId.equals(derivedParentId(sectionId))) {
+            f |= DERIVED_PARENT;
+            this.parentId = null;
+        } else {
+            this.parentId = b.parentId;
+        }
+        if (b.fullPath != null && sectionId != null && title != null
+                && b.fullPath.length() == sectionId.length() + 1 + title.length()
+                && b.fullPath.startsWith(sectionId) && b.fullPath.charAt(sectionId.length()) == ' '
+                && b.fullPath.endsWith(title)) {
+            f |= DERIVED_FULL_PATH;
+            this.fullPath = null;
+        } else {
+            this.fullPath = b.fullPath;
+        }
+        this.flags = f;
+        this.tags = b.tags == null || b.tags.isEmpty() ? List.of() : List.copyOf(b.tags);
+        this.content = b.content;
+    }
+
+    public static SectionBuilder builder() {
+        return new SectionBuilder();
+    }
 
     @JsonProperty("doc_title")
-    private String docTitle;
+    public String getDocTitle() {
+        return docTitle;
+    }
 
     @JsonProperty("section_id")
-    private String sectionId;
+    public String getSectionId() {
+        return sectionId;
+    }
 
     @JsonProperty("title")
-    private String title;
+    public String getTitle() {
+        return title;
+    }
 
     /**
-     * Use Integer so that missing page numbers map to null instead of 0.
+     * Page number, or null when unknown.
      */
     @JsonProperty("page")
-    private Integer page;
+    public Integer getPage() {
+        return page == NONE ? null : page;
+    }
 
     /**
      * Section level (nullable).
      */
     @JsonProperty("level")
-    private Integer level;
+    public Integer getLevel() {
+        return level == NONE ? null : level;
+    }
 
     @JsonProperty("parent_id")
-    private String parentId;
+    public String getParentId() {
+        return (flags & DERIVED_PARENT) != 0 ? derivedParentId(sectionId) : parentId;
+    }
 
     @JsonProperty("full_path")
-    private String fullPath;
+    public String getFullPath() {
+        return (flags & DERIVED_FULL_PATH) != 0 ? sectionId + " " + title : fullPath;
+    }
 
-    @Builder.Default
     @JsonProperty("tags")
-    private List<String> tags = List.of();
+    public List<String> getTags() {
+        return tags;
+    }
 
-    // present in sections.jsonl; will be null/omitted for pure ToC lines
     @JsonProperty("content")
-    private String content;
+    public String getContent() {
+        return content;
+    }
 
-    // Defensive getter to keep immutability of collections
-    public List<String> getTags() {
-        return tags == null ? List.of() : List.copyOf(tags);
+    private static String derivedParentId(String sectionId) {
+        int dot = sectionId == null ? -1 : sectionId.lastIndexOf('.');
+        return dot < 0 ? null : sectionId.substring(0, dot);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof Section other)) return false;
+        return page == other.page
+                && level == other.level
+                && Objects.equals(docTitle, other.docTitle)
+                && Objects.equals(sectionId, other.sectionId)
+                && Objects.equals(title, other.title)
+                && Objects.equals(getParentId(), other.getParentId())
+                && Objects.equals(getFullPath(), other.getFullPath())
+                && tags.equals(other.tags)
+                && Objects.equals(content, other.content);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(docTitle, sectionId, title, page, level, getParentId(), getFullPath(), tags, content);
+    }
+
+    @Override
+    public String toString() {
+        return "Section(docTitle=" + docTitle + ", sectionId=" + sectionId + ", title=" + title
+                + ", page=" + getPage() + ", level=" + getLevel() + ", parentId=" + getParentId()
+                + ", fullPath=" + getFullPath() + ", tags=" + tags + ", content=" + content + ")";
+    }
+
+    @JsonPOJOBuilder(withPrefix = "")
+    public static final class SectionBuilder {
+        private String docTitle;
+        private String sectionId;
+        private String title;
+        private Integer page;
+        private Integer level;
+        private String parentId;
+        private String fullPath;
+        private List<String> tags;
+        private String content;
+
+        private SectionBuilder() {}
+
+        @JsonProperty("doc_title")
+        public SectionBuilder docTitle(String docTitle) {
+            this.docTitle = docTitle;
+            return this;
+        }
+
+        @JsonProperty("section_id")
+        public SectionBuilder sectionId(String sectionId) {
+            this.sectionId = sectionId;
+            return this;
+        }
+
+        @JsonProperty("title")
+        public SectionBuilder title(String title) {
+            this.title = title;
+            return this;
+        }
+
+        @JsonProperty("page")
+        public SectionBuilder page(Integer page) {
+            this.page = page;
+            return this;
+        }
+
+        @JsonProperty("level")
+        public SectionBuilder level(Integer level) {
+            this.level = level;
+            return this;
+        }
+
+        @JsonProperty("parent_id")
+        public SectionBuilder parentId(String parentId) {
+            this.parentId = parentId;
+            return this;
+        }
+
+        @JsonProperty("full_path")
+        public SectionBuilder fullPath(String fullPath) {
+            this.fullPath = fullPath;
+            return this;
+        }
+
+        @JsonProperty("tags")
+        public SectionBuilder tags(List<String> tags) {
+            this.tags = tags;
+            return this;
+        }
+
+        @JsonProperty("content")
+        public SectionBuilder content(String content) {
+            this.content = content;
+            return this;
+        }
+
+        public Section build() {
+            return new Section(this);
+        }
     }
 }
@@ -1,8 +1,21 @@
 package com.myorg.usbparser.service;
 
+import java.io.Closeable;
 import java.io.File;
+import java.io.IOException;
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface JsonlWriter<T> {
     void write(File outputFile, List<T> data) throws Exception;
+
+    /**
+     * Open a streaming writer: every accepted record is written immediately.
+     * I/O failures surface as {@link java.io.UncheckedIOException} from {@code accept}.
+     */
+    Sink<T> open(File outputFile) throws IOException;
+
+    interface Sink<T> extends Consumer<T>, Closeable {
+        int getCount();
+    }
 }
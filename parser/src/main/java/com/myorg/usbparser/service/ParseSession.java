@@ -0,0 +1,40 @@
+package com.myorg.usbparser.service;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * A single opened PDF shared by every extractor of one parse job.
+ * The document is loaded once and closed when the job ends.
+ */
+public interface ParseSession extends AutoCloseable {
+
+    File getSourceFile();
+
+    int getPageCount();
+
+    /**
+     * Title from the document's metadata, or null when it has none.
+     */
+    String getDocumentTitle();
+
+    /**
+     * Normalized, trimmed lines of a 1-based page; extracted on first access and
+     * cached for the session. The array is shared and must not be modified.
+     */
+    String[] getPageLines(int page) throws IOException;
+
+    /**
+     * Raw text of a 1-based page in content-stream order (not sorted by position), as the ToC
+     * heuristics read it; pages of the ToC window come from the same extraction as their lines.
+     */
+    String getUnsortedPageText(int page) throws IOException;
+
+    /**
+     * Drop a page's cached lines once no later reader needs them; reading it again re-extracts it.
+     */
+    void releasePage(int page);
+
+    @Override
+    void close() throws IOException;
+}
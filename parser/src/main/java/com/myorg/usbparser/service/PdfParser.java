@@ -2,7 +2,24 @@ package com.myorg.usbparser.service;
 
 import java.io.File;
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface PdfParser<T> {
     List<T> parse(File pdfFile) throws Exception;
+
+    /**
+     * Parse using an already opened session so the PDF is not loaded again.
+     * Implementations that cannot share a session fall back to the source file.
+     */
+    default List<T> parse(ParseSession session) throws Exception {
+        return parse(session.getSourceFile());
+    }
+
+    /**
+     * Push-based variant: each record is handed to {@code sink} as soon as it is complete
+     * instead of being collected first. The default simply replays the list result.
+     */
+    default void parse(ParseSession session, Consumer<? super T> sink) throws Exception {
+        parse(session).forEach(sink);
+    }
 }
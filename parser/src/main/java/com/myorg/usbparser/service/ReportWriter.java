@@ -0,0 +1,13 @@
+package com.myorg.usbparser.service;
+
+import com.myorg.usbparser.model.ValidationResult;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Renders a {@link ValidationResult} into a report file (Excel workbook, CSV or JSON).
+ */
+public interface ReportWriter {
+    void write(ValidationResult result, File outputFile) throws IOException;
+}
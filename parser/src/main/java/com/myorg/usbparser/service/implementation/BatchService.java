@@ -0,0 +1,384 @@
+package com.myorg.usbparser.service.implementation;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.myorg.usbparser.config.BatchProperties;
+import com.myorg.usbparser.config.StorageProperties;
+import com.myorg.usbparser.model.BatchDocument;
+import com.myorg.usbparser.model.BatchSummary;
+import com.myorg.usbparser.model.ParseJob;
+import com.myorg.usbparser.util.AtomicFiles;
+import com.myorg.usbparser.util.FileDigests;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.stream.Stream;
+
+/**
+ * Parses a directory or manifest of PDFs on one work-stealing pool.
+ *
+ * Every document is a fork-join task, forked largest first so idle workers steal the big documents while
+ * the submitting worker works through the small ones. A document's page ranges are forked onto the same
+ * pool from inside its task, so the cores left over by a few large files are filled with their pages.
+ * Each document is parsed by the regular {@link ParsePipeline} (result cache included) into
+ * {@code <output>/<name>/}; {@code batch_summary.json} in the output directory lists them all.
+ *
+ * A manifest is a text file with one PDF per line, relative to the manifest's directory, optionally
+ * followed by a tab and the doc title to use instead of the PDF metadata title; {@code #} starts a comment.
+ * Batches submitted over HTTP may only name PDFs under {@code batch.input-root}, and their output
+ * directories are deleted with them once more than {@code batch.retained-batches} have finished.
+ */
+@Slf4j
+@Service
+public class BatchService {
+
+    public static final String SUMMARY_FILE = "batch_summary.json";
+
+    private final ParsePipeline pipeline;
+    private final JobStorage jobStorage;
+    private final BatchProperties batchProperties;
+    private final StorageProperties storageProperties;
+    private final ObjectMapper objectMapper;
+    private final ForkJoinPool pool;
+    private final Map<String, Batch> batches = new ConcurrentHashMap<>();
+    private final Deque<String> submissionOrder = new ConcurrentLinkedDeque<>();
+
+    private record Input(Path pdf, String docTitle) {}
+
+    private record Document(Path pdf, long bytes, Path outDir, ParseJob job) {}
+
+    private static final class Batch {
+        private final String id;
+        private final Path source;
+        private final Path outDir;
+        private final List<Document> documents;   // input order
+        private final Instant startedAt = Instant.now();
+        private volatile Instant finishedAt;
+
+        private Batch(String id, Path source, Path outDir, List<Document> documents) {
+            this.id = id;
+            this.source = source;
+            this.outDir = outDir;
+            this.documents = documents;
+        }
+    }
+
+    public BatchService(ParsePipeline pipeline, JobStorage jobStorage, BatchProperties batchProperties,
+                        StorageProperties storageProperties, ObjectMapper objectMapper) {
+        this.pipeline = pipeline;
+        this.jobStorage = jobStorage;
+        this.batchProperties = batchProperties;
+        this.storageProperties = storageProperties;
+        this.objectMapper = objectMapper;
+        this.pool = new ForkJoinPool(batchProperties.effectiveParallelism());
+    }
+
+    public Path batchesRoot() {
+        return Path.of(storageProperties.getBasePath()).toAbsolutePath().normalize().resolve("batches");
+    }
+
+    /**
+     * Start a batch in the background, writing into {@code <base-path>/batches/<batch-id>/}; poll {@link #find(String)}.
+     *
+     * @param inputRoot directory every PDF of the batch must be under
+     * @throws IllegalArgumentException when the source holds no PDFs, or a manifest names one outside {@code inputRoot}
+     */
+    public BatchSummary submit(Path source, Path inputRoot) throws IOException {
+        String id = UUID.randomUUID().toString();
+        Batch batch = prepare(id, source, inputRoot.toAbsolutePath().normalize(), batchesRoot().resolve(id));
+        batches.put(id, batch);
+        submissionOrder.addLast(id);
+        evictFinishedBatches();
+        pool.execute(new BatchTask(batch));
+        log.info("Batch {} queued: {} documents from {}", id, batch.documents.size(), source);
+        return summarize(batch);
+    }
+
+    /**
+     * Run a batch to completion on the calling thread's behalf, writing into {@code outDir}.
+     *
+     * @throws IllegalArgumentException when the source holds no PDFs
+     */
+    public BatchSummary run(Path source, Path outDir) throws IOException {
+        Batch batch = prepare(UUID.randomUUID().toString(), source, null, outDir.toAbsolutePath().normalize());
+        pool.invoke(new BatchTask(batch));
+        return summarize(batch);
+    }
+
+    public Optional<BatchSummary> find(String batchId) {
+        Batch batch = batchId == null ? null : batches.get(batchId);
+        return batch == null ? Optional.empty() : Optional.of(summarize(batch));
+    }
+
+    private Batch prepare(String id, Path source, Path inputRoot, Path outDir) throws IOException {
+        List<Input> inputs = inputs(source, inputRoot);
+        if (inputs.isEmpty()) throw new IllegalArgumentException("No PDFs found in " + source);
+        Files.createDirectories(outDir);
+
+        List<Document> documents = new ArrayList<>(inputs.size());
+        Set<String> names = new HashSet<>();
+        for (Input input : inputs) {
+            String base = baseName(input.pdf());
+            String name = base;
+            for (int n = 2; !names.add(name); n++) name = base + "-" + n;
+
+            ParseJob job = new ParseJob(id + "/" + name, input.pdf().getFileName().toString());
+            job.setDocTitle(input.docTitle());
+            long bytes = Files.isRegularFile(input.pdf()) ? Files.size(input.pdf()) : 0;
+            documents.add(new Document(input.pdf(), bytes, outDir.resolve(name), job));
+        }
+        return new Batch(id, source, outDir, List.copyOf(documents));
+    }
+
+    /**
+     * The PDFs of a directory (by name), or the entries of a manifest (in file order).
+     *
+     * @param inputRoot directory manifest entries must resolve under, or null for no restriction
+     */
+    private static List<Input> inputs(Path source, Path inputRoot) throws IOException {
+        if (Files.isDirectory(source)) {
+            try (Stream<Path> files = Files.list(source)) {
+                return files.filter(Files::isRegularFile)
+                        .filter(p -> p.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".pdf"))
+                        .sorted()
+                        .map(p -> new Input(p, null))
+                        .toList();
+            }
+        }
+        Path base = source.toAbsolutePath().getParent();
+        List<Input> inputs = new ArrayList<>();
+        for (String line : Files.readAllLines(source, StandardCharsets.UTF_8)) {
+            String entry = line.strip();
+            if (entry.isEmpty() || entry.startsWith("#")) continue;
+            int tab = entry.indexOf('\t');
+            String path = tab < 0 ? entry : entry.substring(0, tab).strip();
+            String title = tab < 0 ? null : entry.substring(tab + 1).strip();
+            Path pdf = base.resolve(path).normalize();
+            if (inputRoot != null && !pdf.startsWith(inputRoot)) {
+                throw new IllegalArgumentException("Manifest entry is outside the input root: " + path);
+            }
+            inputs.add(new Input(pdf, title == null || title.isEmpty() ? null : title));
+        }
+        return inputs;
+    }
+
+    private static String baseName(Path pdf) {
+        String name = pdf.getFileName().toString();
+        return name.toLowerCase(Locale.ROOT).endsWith(".pdf") ? name.substring(0, name.length() - 4) : name;
+    }
+
+    private final class BatchTask extends RecursiveAction {
+        private final Batch batch;
+
+        private BatchTask(Batch batch) {
+            this.batch = batch;
+        }
+
+        @Override
+        protected void compute() {
+            // largest first: thieves take from the bottom of this worker's queue, the owner pops from the top
+            List<DocumentTask> tasks = batch.documents.stream()
+                    .sorted(Comparator.comparingLong(Document::bytes).reversed())
+                    .map(DocumentTask::new)
+                    .toList();
+            tasks.forEach(DocumentTask::fork);
+            // quietly: a document that died of an Error is already marked failed, the batch still finishes
+            for (int i = tasks.size() - 1; i >= 0; i--) tasks.get(i).quietlyJoin();
+            finish(batch);
+        }
+    }
+
+    private final class DocumentTask extends RecursiveAction {
+        private final Document document;
+
+        private DocumentTask(Document document) {
+            this.document = document;
+        }
+
+        @Override
+        protected void compute() {
+            parse(document);
+        }
+    }
+
+    private void parse(Document document) {
+        ParseJob job = document.job();
+        job.markRunning();
+        try {
+            Files.createDirectories(document.outDir());
+            if (!Files.isRegularFile(document.pdf())) throw new FileNotFoundException("PDF not found: " + document.pdf());
+            job.setContentSha256(FileDigests.sha256(document.pdf()));
+            pipeline.run(job, document.pdf(), document.outDir(), pool);
+            job.markSucceeded();
+            log.info("Batch document {} parsed: {}", job.getId(), job.getStageMillis());
+        } catch (Exception ex) {
+            log.error("Batch document {} failed for {}: {}", job.getId(), document.pdf(), ex.getMessage(), ex);
+            job.markFailed(ex);
+        } catch (Error err) {
+            log.error("Batch document {} failed for {}: {}", job.getId(), document.pdf(), err.toString(), err);
+            job.markFailed(err);
+            throw err;
+        } finally {
+            try {
+                jobStorage.writeManifest(job, document.outDir());
+            } catch (IOException e) {
+                log.warn("Could not write manifest for batch document {}: {}", job.getId(), e.toString());
+            }
+            job.complete();
+        }
+    }
+
+    private void finish(Batch batch) {
+        batch.finishedAt = Instant.now();
+        BatchSummary summary = summarize(batch);
+        Path target = batch.outDir.resolve(SUMMARY_FILE);
+        Path temp = AtomicFiles.tempFor(target);
+        try {
+            objectMapper.writerWithDefaultPrettyPrinter().writeValue(temp.toFile(), summary);
+            AtomicFiles.publish(temp, target);
+        } catch (IOException e) {
+            log.warn("Could not write summary of batch {}: {}", batch.id, e.toString());
+        }
+        log.info("Batch {} {}: {} of {} documents succeeded in {} ms (documents took {} ms)",
+                batch.id, summary.getStatus(), summary.getSucceeded(), summary.getDocuments(),
+                summary.getWallMillis(), summary.getDocumentMillis());
+    }
+
+    private BatchSummary summarize(Batch batch) {
+        int finished = 0;
+        int succeeded = 0;
+        int cacheHits = 0;
+        long inputBytes = 0;
+        long documentMillis = 0;
+        List<BatchDocument> results = new ArrayList<>(batch.documents.size());
+        for (Document d : batch.documents) {
+            ParseJob job = d.job();
+            Map<String, Long> stages = job.getStageMillis();
+            if (job.isFinished()) finished++;
+            if (job.getStatus() == ParseJob.Status.SUCCEEDED) succeeded++;
+            if (job.isCacheHit()) cacheHits++;
+            inputBytes += d.bytes();
+            documentMillis += stages.getOrDefault("total", 0L);
+            results.add(BatchDocument.builder()
+                    .fileName(job.getFileName())
+                    .docTitle(job.getDocTitle())
+                    .status(job.getStatus())
+                    .error(job.getError())
+                    .inputBytes(d.bytes())
+                    .cacheHit(job.isCacheHit())
+                    .outputDir(d.outDir().toString())
+                    .stageMillis(stages)
+                    .results(job.getResults())
+                    .build());
+        }
+
+        Instant finishedAt = batch.finishedAt;
+        BatchSummary.Status status;
+        if (finishedAt == null) status = BatchSummary.Status.RUNNING;
+        else if (succeeded == batch.documents.size()) status = BatchSummary.Status.SUCCEEDED;
+        else if (succeeded == 0) status = BatchSummary.Status.FAILED;
+        else status = BatchSummary.Status.PARTIAL;
+
+        return BatchSummary.builder()
+                .batchId(batch.id)
+                .source(batch.source.toString())
+                .outputDir(batch.outDir.toString())
+                .status(status)
+                .parallelism(pool.getParallelism())
+                .documents(batch.documents.size())
+                .finished(finished)
+                .succeeded(succeeded)
+                .failed(finished - succeeded)
+                .cacheHits(cacheHits)
+                .inputBytes(inputBytes)
+                .startedAt(batch.startedAt)
+                .finishedAt(finishedAt)
+                .wallMillis(finishedAt == null ? null : Duration.between(batch.startedAt, finishedAt).toMillis())
+                .documentMillis(documentMillis)
+                .documentResults(results)
+                .build();
+    }
+
+    /**
+     * Keep at most {@code batch.retained-batches} batches, dropping the oldest finished ones together
+     * with their output directories. Directories under the batches root that no batch of this process
+     * owns (left by an earlier run) are removed oldest first while there are more than that in total.
+     */
+    private void evictFinishedBatches() {
+        int retained = Math.max(1, batchProperties.getRetainedBatches());
+        int excess = batches.size() - retained;
+        Iterator<String> it = submissionOrder.iterator();
+        while (excess > 0 && it.hasNext()) {
+            String id = it.next();
+            Batch batch = batches.get(id);
+            if (batch == null || batch.finishedAt != null) {
+                it.remove();
+                if (batch != null) {
+                    batches.remove(id);
+                    excess--;
+                    deleteBatchDir(batch.outDir);
+                }
+            }
+        }
+
+        List<Path> dirs;
+        try (Stream<Path> s = Files.list(batchesRoot())) {
+            dirs = s.filter(Files::isDirectory).sorted(Comparator.comparing(BatchService::lastModified)).toList();
+        } catch (IOException e) {
+            log.warn("Could not list batch directories under {}: {}", batchesRoot(), e.toString());
+            return;
+        }
+        int remaining = dirs.size();
+        for (int i = 0; i < dirs.size() && remaining > retained; i++) {
+            if (batches.containsKey(dirs.get(i).getFileName().toString())) continue;
+            deleteBatchDir(dirs.get(i));
+            remaining--;
+        }
+    }
+
+    private static void deleteBatchDir(Path dir) {
+        try {
+            JobStorage.deleteRecursively(dir);
+            log.info("Retention removed batch directory {}", dir);
+        } catch (IOException | UncheckedIOException e) {
+            log.warn("Could not remove batch directory {}: {}", dir, e.toString());
+        }
+    }
+
+    private static FileTime lastModified(Path p) {
+        try {
+            return Files.getLastModifiedTime(p);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdown();
+    }
+}
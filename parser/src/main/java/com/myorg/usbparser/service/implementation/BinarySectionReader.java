@@ -0,0 +1,182 @@
+package com.myorg.usbparser.service.implementation;
+
+import com.myorg.usbparser.model.Section;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Random access to a {@code usb_pd_sections.bin} file written by {@link BinarySectionWriter}.
+ *
+ * Opening maps the file and decodes only the footer (dictionary and record offsets); sections are
+ * decoded on demand by ordinal or section id. A section id may occur more than once; every occurrence
+ * is returned, in document order.
+ */
+public final class BinarySectionReader {
+
+    private static final int TRAILER_BYTES = 12; // long footer offset, int magic
+
+    private final Path file;
+    private final ByteBuffer buf;
+    private final String[] words;
+    private final int[] offsets;
+    private final Map<String, int[]> byId;
+
+    private BinarySectionReader(Path file, ByteBuffer buf, String[] words, int[] offsets, Map<String, int[]> byId) {
+        this.file = file;
+        this.buf = buf;
+        this.words = words;
+        this.offsets = offsets;
+        this.byId = byId;
+    }
+
+    /**
+     * @throws IOException when the file is not a complete binary sections file of a known version
+     */
+    public static BinarySectionReader open(Path file) throws IOException {
+        ByteBuffer buf;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) throw new IOException("Binary sections file too large: " + file);
+            buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+        int size = buf.limit();
+        if (size < 5 + TRAILER_BYTES || buf.getInt(0) != BinarySectionWriter.MAGIC
+                || buf.getInt(size - 4) != BinarySectionWriter.MAGIC) {
+            throw new IOException("Not a binary sections file: " + file);
+        }
+        if (buf.get(4) != BinarySectionWriter.VERSION) {
+            throw new IOException("Unsupported binary sections version " + buf.get(4) + ": " + file);
+        }
+        long footer = buf.getLong(size - TRAILER_BYTES);
+        if (footer < 5 || footer > size - TRAILER_BYTES) throw new IOException("Corrupt binary sections footer: " + file);
+
+        Cursor in = new Cursor(buf, (int) footer);
+        String[] words = new String[in.varint()];
+        for (int i = 0; i < words.length; i++) words[i] = in.string();
+        int[] offsets = new int[in.varint()];
+        int[] ids = new int[offsets.length];
+        int position = 0;
+        for (int i = 0; i < offsets.length; i++) {
+            position += in.varint();
+            offsets[i] = position;
+            ids[i] = in.varint();
+        }
+
+        Map<String, int[]> byId = new HashMap<>(Math.max(16, offsets.length * 2));
+        for (int i = 0; i < ids.length; i++) {
+            if (ids[i] == 0) continue;
+            int[] ordinals = byId.get(words[ids[i] - 1]);
+            ordinals = ordinals == null ? new int[1] : Arrays.copyOf(ordinals, ordinals.length + 1);
+            ordinals[ordinals.length - 1] = i;
+            byId.put(words[ids[i] - 1], ordinals);
+        }
+        return new BinarySectionReader(file, buf, words, offsets, byId);
+    }
+
+    public int size() {
+        return offsets.length;
+    }
+
+    public Section get(int ordinal) {
+        Cursor in = new Cursor(buf, offsets[ordinal]);
+        String docTitle = in.word(words);
+        String sectionId = in.word(words);
+        String parentId = in.word(words);
+        int page = in.varint();
+        int level = in.varint();
+        String title = in.string();
+
+        int fullPathLength = in.varint();
+        String fullPath = switch (fullPathLength) {
+            case 0 -> sectionId + " " + title;
+            case 1 -> null;
+            default -> in.utf8(fullPathLength - 2);
+        };
+
+        String[] tags = new String[in.varint()];
+        for (int i = 0; i < tags.length; i++) tags[i] = in.string();
+
+        return Section.builder()
+                .docTitle(docTitle)
+                .sectionId(sectionId)
+                .title(title)
+                .page(page == 0 ? null : page - 1)
+                .level(level == 0 ? null : level - 1)
+                .parentId(parentId)
+                .fullPath(fullPath)
+                .tags(List.of(tags))
+                .content(in.string())
+                .build();
+    }
+
+    /**
+     * Every occurrence of a section id, in document order; empty when the id is unknown.
+     */
+    public List<Section> find(String sectionId) {
+        int[] ordinals = byId.get(sectionId);
+        if (ordinals == null) return List.of();
+        List<Section> out = new ArrayList<>(ordinals.length);
+        for (int ordinal : ordinals) out.add(get(ordinal));
+        return out;
+    }
+
+    public List<Section> readAll() {
+        List<Section> out = new ArrayList<>(offsets.length);
+        for (int i = 0; i < offsets.length; i++) out.add(get(i));
+        return out;
+    }
+
+    @Override
+    public String toString() {
+        return "BinarySectionReader[" + file + ", " + offsets.length + " sections]";
+    }
+
+    /**
+     * Position in the mapped file; absolute reads keep the shared buffer free of state.
+     */
+    private static final class Cursor {
+        private final ByteBuffer buf;
+        private int pos;
+
+        Cursor(ByteBuffer buf, int pos) {
+            this.buf = buf;
+            this.pos = pos;
+        }
+
+        int varint() {
+            int value = 0;
+            for (int shift = 0; ; shift += 7) {
+                byte b = buf.get(pos++);
+                value |= (b & 0x7F) << shift;
+                if (b >= 0) return value;
+            }
+        }
+
+        String word(String[] words) {
+            int index = varint();
+            return index == 0 ? null : words[index - 1];
+        }
+
+        String string() {
+            int length = varint();
+            return length == 0 ? null : utf8(length - 1);
+        }
+
+        String utf8(int length) {
+            byte[] bytes = new byte[length];
+            buf.get(pos, bytes);
+            pos += length;
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package com.myorg.usbparser.service.implementation;
+
+import com.myorg.usbparser.model.Section;
+import com.myorg.usbparser.service.JsonlWriter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes sections in the compact binary layout read by {@link BinarySectionReader}
+ * ({@code usb_pd_sections.bin}), as an optional companion of the JSONL output.
+ *
+ * <pre>
+ * header   int magic, byte version
+ * record   varint docTitle, sectionId, parentId   dictionary index + 1 (0 = null)
+ *          varint page, level                      value + 1 (0 = null)
+ *          string title
+ *          varint fullPath                         0 = "sectionId title", else string length + 2 (1 = null)
+ *          varint tag count, strings
+ *          string content
+ * footer   varint dictionary size, strings
+ *          varint record count, per record: varint offset delta, varint sectionId dictionary index + 1
+ * trailer  long footer offset, int magic
+ * </pre>
+ * Strings are varint length + 1 (0 = null) followed by UTF-8 bytes; varints are unsigned LEB128.
+ * Doc titles and ids are written once, in the dictionary; the footer gives random access by position and id.
+ */
+@Slf4j
+public class BinarySectionWriter implements JsonlWriter<Section> {
+
+    public static final String FILE = "usb_pd_sections.bin";
+    static final int MAGIC = 0x55534231; // "USB1"
+    static final int VERSION = 1;
+
+    @Override
+    public void write(File outputFile, List<Section> data) throws IOException {
+        if (outputFile == null) {
+            throw new IllegalArgumentException("outputFile must not be null");
+        }
+        try (Sink<Section> sink = open(outputFile)) {
+            try {
+                data.forEach(sink);
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    @Override
+    public Sink<Section> open(File outputFile) throws IOException {
+        if (outputFile == null) {
+            throw new IllegalArgumentException("outputFile must not be null");
+        }
+        return new BinarySink(new BufferedOutputStream(new FileOutputStream(outputFile), 1 << 16), outputFile);
+    }
+
+    private static final class BinarySink implements Sink<Section> {
+        private final OutputStream out;
+        private final File outputFile;
+        private final Map<String, Integer> dictionary = new HashMap<>();
+        private final List<String> words = new ArrayList<>();
+        private final List<long[]> records = new ArrayList<>(); // {offset, sectionId dictionary index + 1}
+        private long position;
+
+        private BinarySink(OutputStream out, File outputFile) throws IOException {
+            this.out = out;
+            this.outputFile = outputFile;
+            writeInt(MAGIC);
+            out.write(VERSION);
+            position++;
+        }
+
+        @Override
+        public void accept(Section section) {
+            try {
+                int sectionId = word(section.getSectionId());
+                records.add(new long[]{position, sectionId});
+                writeVarint(word(section.getDocTitle()));
+                writeVarint(sectionId);
+                writeVarint(word(section.getParentId()));
+                writeVarint(section.getPage() == null ? 0 : section.getPage() + 1);
+                writeVarint(section.getLevel() == null ? 0 : section.getLevel() + 1);
+                writeString(section.getTitle());
+
+                String fullPath = section.getFullPath();
+                if (fullPath != null && fullPath.equals(section.getSectionId() + " " + section.getTitle())) {
+                    writeVarint(0);
+                } else if (fullPath == null) {
+                    writeVarint(1);
+                } else {
+                    byte[] bytes = fullPath.getBytes(StandardCharsets.UTF_8);
+                    writeVarint(bytes.length + 2);
+                    writeBytes(bytes);
+                }
+
+                List<String> tags = section.getTags();
+                writeVarint(tags.size());
+                for (String tag : tags) writeString(tag);
+                writeString(section.getContent());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public int getCount() {
+            return records.size();
+        }
+
+        @Override
+        public void close() throws IOException {
+            try (out) {
+                long footer = position;
+                writeVarint(words.size());
+                for (String w : words) writeString(w);
+                writeVarint(records.size());
+                long previous = 0;
+                for (long[] record : records) {
+                    writeVarint(Math.toIntExact(record[0] - previous));
+                    writeVarint((int) record[1]);
+                    previous = record[0];
+                }
+                writeLong(footer);
+                writeInt(MAGIC);
+            }
+            log.info("Binary sections written: {} entries, {} bytes -> {}", records.size(), position, outputFile.getAbsolutePath());
+        }
+
+        // dictionary index + 1, 0 for null
+        private int word(String s) {
+            if (s == null) return 0;
+            Integer index = dictionary.get(s);
+            if (index == null) {
+                index = words.size();
+                dictionary.put(s, index);
+                words.add(s);
+            }
+            return index + 1;
+        }
+
+        private void writeString(String s) throws IOException {
+            if (s == null) {
+                writeVarint(0);
+                return;
+            }
+            byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+            writeVarint(bytes.length + 1);
+            writeBytes(bytes);
+        }
+
+        private void writeVarint(int value) throws IOException {
+            while ((value & ~0x7F) != 0) {
+                out.write((value & 0x7F) | 0x80);
+                position++;
+                value >>>= 7;
+            }
+            out.write(value);
+            position++;
+        }
+
+        private void writeBytes(byte[] bytes) throws IOException {
+            out.write(bytes);
+            position += bytes.length;
+        }
+
+        private void writeInt(int v) throws IOException {
+            for (int shift = 24; shift >= 0; shift -= 8) out.write(v >>> shift);
+            position += 4;
+        }
+
+        private void writeLong(long v) throws IOException {
+            writeInt((int) (v >>> 32));
+            writeInt((int) v);
+        }
+    }
+}
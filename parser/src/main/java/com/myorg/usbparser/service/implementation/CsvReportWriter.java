@@ -0,0 +1,76 @@
+package com.myorg.usbparser.service.implementation;
+
+import com.myorg.usbparser.model.ValidationResult;
+import com.myorg.usbparser.service.ReportWriter;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Validation report as a single RFC 4180 CSV table for headless consumers:
+ * the counts as {@code summary} rows, then one row per missing and per extra section.
+ */
+public class CsvReportWriter implements ReportWriter {
+
+    private static final String PAGE_MARKER = " | page=";
+
+    @Override
+    public void write(ValidationResult result, File outputFile) throws IOException {
+        try (Writer out = Files.newBufferedWriter(outputFile.toPath(), StandardCharsets.UTF_8)) {
+            out.write("kind,section_id,title,page\n");
+
+            Map<String, Integer> tables = result.getTableCounts();
+            summary(out, "toc_count", result.getTocSectionCount());
+            summary(out, "parsed_count", result.getParsedSectionCount());
+            summary(out, "missing_count", result.getMissingCount());
+            summary(out, "extra_count", result.getExtraCount());
+            summary(out, "toc_tables_total", tables.get("toc_tables_total"));
+            summary(out, "parsed_tables_total", tables.get("parsed_tables_total"));
+
+            sections(out, "missing", result.getMissingSections());
+            sections(out, "extra", result.getExtraSections());
+        }
+    }
+
+    private static void summary(Writer out, String metric, Integer value) throws IOException {
+        row(out, "summary", metric, "", value == null ? "0" : String.valueOf(value));
+    }
+
+    /**
+     * Split "id | title | page=N" report lines back into their columns.
+     */
+    private static void sections(Writer out, String kind, List<String> lines) throws IOException {
+        for (String line : lines) {
+            int idEnd = line.indexOf(" | ");
+            int pageStart = line.lastIndexOf(PAGE_MARKER);
+            if (idEnd < 0 || pageStart < 0) {
+                row(out, kind, line, "", "");
+                continue;
+            }
+            String title = pageStart >= idEnd + 3 ? line.substring(idEnd + 3, pageStart) : "";
+            row(out, kind, line.substring(0, idEnd), title, line.substring(pageStart + PAGE_MARKER.length()));
+        }
+    }
+
+    private static void row(Writer out, String... cells) throws IOException {
+        for (int i = 0; i < cells.length; i++) {
+            if (i > 0) out.write(',');
+            out.write(escape(cells[i]));
+        }
+        out.write('\n');
+    }
+
+    private static String escape(String cell) {
+        boolean quote = false;
+        for (int i = 0; i < cell.length() && !quote; i++) {
+            char c = cell.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        return quote ? '"' + cell.replace("\"", "\"\"") + '"' : cell;
+    }
+}
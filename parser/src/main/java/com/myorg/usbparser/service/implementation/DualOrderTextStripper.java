@@ -0,0 +1,55 @@
+package com.myorg.usbparser.service.implementation;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+
+/**
+ * Position-sorted {@link PDFTextStripper} that can also write the same page in content-stream order.
+ * Both texts come from one pass over the page's content stream (the expensive part); only the
+ * assembly of the collected text positions into lines runs twice.
+ */
+final class DualOrderTextStripper extends PDFTextStripper {
+
+    private StringWriter unsorted; // non-null while a page is stripped in both orders
+
+    DualOrderTextStripper() throws IOException {
+        // Improve extraction ordering for multi-column / layouted PDFs
+        setSortByPosition(true);
+    }
+
+    /**
+     * Text of one 1-based page sorted by position, plus its content-stream order text when asked for.
+     */
+    PageTextCache.PageText strip(PDDocument document, int page, boolean withUnsorted) throws IOException {
+        setStartPage(page);
+        setEndPage(page);
+        unsorted = withUnsorted ? new StringWriter() : null;
+        try {
+            String sorted = getText(document);
+            return new PageTextCache.PageText(sorted, unsorted == null ? null : unsorted.toString());
+        } finally {
+            unsorted = null;
+        }
+    }
+
+    @Override
+    protected void writePage() throws IOException {
+        if (unsorted != null) {
+            // unsorted first: the sorted write reorders the page's text positions in place
+            Writer sorted = output;
+            output = unsorted;
+            setSortByPosition(false);
+            try {
+                super.writePage();
+            } finally {
+                setSortByPosition(true);
+                output = sorted;
+            }
+        }
+        super.writePage();
+    }
+}
@@ -2,20 +2,25 @@ package com.myorg.usbparser.service.implementation;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.ObjectWriter;
+import com.myorg.usbparser.config.ParserProperties.Compression;
 import com.myorg.usbparser.service.JsonlWriter;
+import com.myorg.usbparser.util.FramedGzip;
 import lombok.extern.slf4j.Slf4j;
 
 import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
 import java.util.List;
-import java.util.Objects;
+import java.util.zip.GZIPOutputStream;
 
 /**
- * Writes objects as JSON Lines (JSONL) using Jackson.
+ * Writes objects as JSON Lines (JSONL) using Jackson, optionally gzip-compressed
+ * ({@link Compression#GZIP_FRAMED} cuts the stream into independently readable members, see {@link FramedGzip}).
  */
 @Slf4j
 public class JacksonJsonlWriter<T> implements JsonlWriter<T> {
@@ -25,6 +30,18 @@ public class JacksonJsonlWriter<T> implements JsonlWriter<T> {
 
     private static final ObjectWriter OBJECT_WRITER = MAPPER.writer();
 
+    private final Compression compression;
+    private final int frameBytes;
+
+    public JacksonJsonlWriter() {
+        this(Compression.NONE, 0);
+    }
+
+    public JacksonJsonlWriter(Compression compression, int frameBytes) {
+        this.compression = compression;
+        this.frameBytes = frameBytes;
+    }
+
     @Override
     public void write(File outputFile, List<T> data) throws IOException {
         // Defensive checks
@@ -36,20 +53,73 @@ public class JacksonJsonlWriter<T> implements JsonlWriter<T> {
             return;
         }
 
+        try (Sink<T> sink = open(outputFile)) {
+            try {
+                data.forEach(sink);
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    @Override
+    public Sink<T> open(File outputFile) throws IOException {
+        if (outputFile == null) {
+            throw new IllegalArgumentException("outputFile must not be null");
+        }
+
         File parent = outputFile.getParentFile();
         if (parent != null && !parent.exists() && !parent.mkdirs()) {
             log.warn("Could not create parent directories: {}", parent.getAbsolutePath());
         }
 
-        try (BufferedWriter writer = new BufferedWriter(
-                new OutputStreamWriter(new FileOutputStream(outputFile), StandardCharsets.UTF_8))) {
+        OutputStream out = new FileOutputStream(outputFile);
+        try {
+            out = switch (compression) {
+                case NONE -> out;
+                case GZIP -> new GZIPOutputStream(out, 1 << 16);
+                case GZIP_FRAMED -> FramedGzip.output(out, frameBytes);
+            };
+        } catch (IOException e) {
+            out.close();
+            throw e;
+        }
+        BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        return new JacksonSink<>(writer, outputFile);
+    }
+
+    private static final class JacksonSink<T> implements Sink<T> {
+        private final BufferedWriter writer;
+        private final File outputFile;
+        private int count;
+
+        private JacksonSink(BufferedWriter writer, File outputFile) {
+            this.writer = writer;
+            this.outputFile = outputFile;
+        }
 
-            for (T obj : data) {
+        @Override
+        public void accept(T obj) {
+            try {
                 writer.write(OBJECT_WRITER.writeValueAsString(obj));
                 writer.write('\n');
+                count++;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public int getCount() {
+            return count;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try (writer) {
+                writer.flush();
             }
-            writer.flush();
-            log.info("JSONL written: {} entries -> {}", data.size(), outputFile.getAbsolutePath());
+            log.info("JSONL written: {} entries -> {}", count, outputFile.getAbsolutePath());
         }
     }
 }
@@ -0,0 +1,185 @@
+package com.myorg.usbparser.service.implementation;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.myorg.usbparser.config.StorageProperties;
+import com.myorg.usbparser.model.ParseJob;
+import com.myorg.usbparser.util.AtomicFiles;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Job-scoped storage: every job gets {@code <base-path>/jobs/<job-id>/} for its upload and
+ * outputs, so concurrent parses never share a file. A finished job is marked by its
+ * {@code job.json} manifest; retention keeps the newest directories within
+ * {@code storage.max-jobs} and {@code storage.max-disk-mb}.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class JobStorage {
+
+    public static final String INPUT_FILE = "input.pdf";
+    public static final String MANIFEST_FILE = "job.json";
+
+    private static final Pattern JOB_ID = Pattern.compile("^[0-9a-fA-F-]{36}$");
+
+    private final StorageProperties storageProperties;
+    private final ObjectMapper objectMapper;
+
+    public Path jobsRoot() {
+        return Path.of(storageProperties.getBasePath()).toAbsolutePath().normalize().resolve("jobs");
+    }
+
+    public Path createJobDir(String jobId) throws IOException {
+        return Files.createDirectories(resolve(jobId));
+    }
+
+    /**
+     * Directory of an existing job; empty for unknown or malformed ids.
+     */
+    public Optional<Path> findJobDir(String jobId) {
+        if (jobId == null || !JOB_ID.matcher(jobId).matches()) return Optional.empty();
+        Path dir = resolve(jobId);
+        return Files.isDirectory(dir) ? Optional.of(dir) : Optional.empty();
+    }
+
+    /**
+     * Most recently finished job that succeeded on the whole document, used by the legacy
+     * {@code /results/*} endpoints and as the baseline of incremental parses.
+     */
+    public Optional<Path> latestSucceededJobDir() {
+        return listJobDirs().stream()
+                .filter(dir -> isSucceededFullParse(dir.resolve(MANIFEST_FILE)))
+                .max(Comparator.comparing(dir -> lastModified(dir.resolve(MANIFEST_FILE))));
+    }
+
+    /**
+     * Persist the job's final state; its presence marks the directory as finished.
+     */
+    public void writeManifest(ParseJob job, Path jobDir) throws IOException {
+        Path target = jobDir.resolve(MANIFEST_FILE);
+        Path temp = AtomicFiles.tempFor(target);
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(temp.toFile(), job);
+        AtomicFiles.publish(temp, target);
+    }
+
+    /**
+     * Delete the oldest job directories until both the count and the disk cap hold.
+     * Directories of jobs still queued or running are never touched.
+     */
+    public void enforceRetention(Set<String> activeJobIds) {
+        List<Path> dirs = new ArrayList<>(listJobDirs());
+        dirs.sort(Comparator.comparing(JobStorage::lastModified));
+
+        long maxBytes = Math.max(0, storageProperties.getMaxDiskMb()) * 1024 * 1024;
+        int maxJobs = Math.max(1, storageProperties.getMaxJobs());
+        long totalBytes = 0;
+        List<Long> sizes = new ArrayList<>(dirs.size());
+        for (Path dir : dirs) {
+            long size = sizeOf(dir);
+            sizes.add(size);
+            totalBytes += size;
+        }
+
+        int remaining = dirs.size();
+        for (int i = 0; i < dirs.size() && (remaining > maxJobs || totalBytes > maxBytes); i++) {
+            Path dir = dirs.get(i);
+            if (activeJobIds.contains(dir.getFileName().toString())) continue;
+            try {
+                deleteRecursively(dir);
+                remaining--;
+                totalBytes -= sizes.get(i);
+                log.info("Retention removed job directory {}", dir);
+            } catch (IOException | UncheckedIOException e) {
+                log.warn("Could not remove job directory {}: {}", dir, e.toString());
+            }
+        }
+    }
+
+    /**
+     * Delete the directory of a job that never ran, e.g. one the queue rejected.
+     */
+    public void deleteJobDir(Path jobDir) {
+        try {
+            deleteRecursively(jobDir);
+        } catch (IOException | UncheckedIOException e) {
+            log.warn("Could not remove job directory {}: {}", jobDir, e.toString());
+        }
+    }
+
+    private Path resolve(String jobId) {
+        if (jobId == null || !JOB_ID.matcher(jobId).matches()) {
+            throw new IllegalArgumentException("Invalid job id: " + jobId);
+        }
+        return jobsRoot().resolve(jobId);
+    }
+
+    private List<Path> listJobDirs() {
+        Path root = jobsRoot();
+        if (!Files.isDirectory(root)) return List.of();
+        try (Stream<Path> s = Files.list(root)) {
+            return s.filter(Files::isDirectory)
+                    .filter(dir -> JOB_ID.matcher(dir.getFileName().toString()).matches())
+                    .toList();
+        } catch (IOException e) {
+            log.warn("Could not list job directories under {}: {}", root, e.toString());
+            return List.of();
+        }
+    }
+
+    private boolean isSucceededFullParse(Path manifest) {
+        if (!Files.isRegularFile(manifest)) return false;
+        try {
+            JsonNode job = objectMapper.readTree(manifest.toFile());
+            return ParseJob.Status.SUCCEEDED.name().equals(job.path("status").asText())
+                    && !job.hasNonNull("section_filter");
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static FileTime lastModified(Path p) {
+        try {
+            return Files.getLastModifiedTime(p);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    private static long sizeOf(Path dir) {
+        try (Stream<Path> s = Files.walk(dir)) {
+            return s.filter(Files::isRegularFile).mapToLong(p -> {
+                try {
+                    return Files.size(p);
+                } catch (IOException e) {
+                    return 0L;
+                }
+            }).sum();
+        } catch (IOException e) {
+            return 0L;
+        }
+    }
+
+    static void deleteRecursively(Path dir) throws IOException {
+        try (Stream<Path> s = Files.walk(dir)) {
+            for (Path p : s.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(p);
+            }
+        }
+    }
+}
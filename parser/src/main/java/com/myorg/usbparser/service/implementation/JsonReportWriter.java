@@ -0,0 +1,22 @@
+package com.myorg.usbparser.service.implementation;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.myorg.usbparser.model.ValidationResult;
+import com.myorg.usbparser.service.ReportWriter;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Validation report as the JSON form of {@link ValidationResult} (snake_case, nulls omitted).
+ */
+public class JsonReportWriter implements ReportWriter {
+
+    private static final ObjectWriter WRITER = new ObjectMapper().writerWithDefaultPrettyPrinter();
+
+    @Override
+    public void write(ValidationResult result, File outputFile) throws IOException {
+        WRITER.writeValue(outputFile, result);
+    }
+}
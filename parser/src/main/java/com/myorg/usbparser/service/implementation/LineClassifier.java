@@ -0,0 +1,578 @@
+package com.myorg.usbparser.service.implementation;
+
+/**
+ * Hand-written line classifier for the ToC and section extractors.
+ *
+ * Each method scans the line once, without regex compilation or intermediate strings, and
+ * reproduces the match of the regular expression noted on it exactly (kept as the oracle in
+ * {@code LineClassifierTest}). Character classes follow the java.util.regex defaults:
+ * {@code \s} is {@code [ \t\n\x0B\f\r]}, {@code \d} is {@code [0-9]} and {@code .} matches
+ * anything but the line terminators {@code \n \r \u0085 \u2028 \u2029}.
+ */
+final class LineClassifier {
+
+    /** Line shapes, in the order the ToC extractor tries them. */
+    enum Kind { NONE, DOT_LEADER, TITLE_PAGE, NUMBER_TITLE, HEADING }
+
+    private static final String PAGE = "page";
+    private static final String[] FURNITURE_LINES = {
+            "universal serial bus power delivery specification", "revision history"};
+    private static final String[] NUMBERED_CAPTIONS = {"figure", "table"};
+    private static final String[] IGNORED_HEADINGS = {"list of figures", "list of tables", "revision history"};
+
+    private LineClassifier() {}
+
+    /**
+     * Spans of the last successful classification. Reusable across lines, so the per-line
+     * cost is the scan itself; strings are only cut when a caller asks for them.
+     */
+    static final class Line {
+        private CharSequence text;
+        private Kind kind = Kind.NONE;
+        private int idStart;
+        private int idEnd;
+        private int titleStart;
+        private int titleEnd;
+        private int pageStart;
+        private int pageEnd;
+
+        Kind kind() {
+            return kind;
+        }
+
+        String sectionId() {
+            return text.subSequence(idStart, idEnd).toString();
+        }
+
+        /** Title span as the regex group captured it (not trimmed). */
+        String title() {
+            return text.subSequence(titleStart, titleEnd).toString();
+        }
+
+        boolean hasDotLeader() {
+            return kind == Kind.DOT_LEADER;
+        }
+
+        boolean hasPage() {
+            return pageEnd > pageStart;
+        }
+
+        /** Trailing page number, or -1 when the line has none. */
+        int page() {
+            return hasPage() ? parseDigits(text, pageStart, pageEnd) : -1;
+        }
+
+        private Line set(CharSequence text, Kind kind, int idStart, int idEnd, int titleStart, int titleEnd,
+                         int pageStart, int pageEnd) {
+            this.text = text;
+            this.kind = kind;
+            this.idStart = idStart;
+            this.idEnd = idEnd;
+            this.titleStart = titleStart;
+            this.titleEnd = titleEnd;
+            this.pageStart = pageStart;
+            this.pageEnd = pageEnd;
+            return this;
+        }
+    }
+
+    // ===== Headings and ToC entries =====
+
+    /**
+     * Section heading: {@code ^\s*(\d+(?:\.\d+)*)\s+(?=.+[A-Za-z])(.+?)\s*$}.
+     */
+    static boolean heading(CharSequence s, Line out) {
+        int n = s.length();
+        int idStart = skipWhitespace(s, 0, n);
+        int idEnd = scanId(s, idStart, n);
+        if (idEnd == idStart) return false;
+        int b = skipWhitespace(s, idEnd, n);
+        if (b == idEnd) return false;
+        int w = whitespaceStart(s, n);
+
+        // the title starts after the whole gap; the greedy \s+ then gives it back one char at a time
+        for (int t = b; t > idEnd; t--) {
+            if (t >= n) continue;
+            int e = Math.max(t + 1, w);
+            if (firstTerminator(s, t, e) < e || !letterAhead(s, t)) continue;
+            out.set(s, Kind.HEADING, idStart, idEnd, t, e, 0, 0);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * ToC entry, trying in order:
+     * {@code ^\s*(\d+(?:\.\d+)*)\s+(.+?)\s*\.{2,}\s*(\d{1,4})\s*$} (dot leader),
+     * {@code ^\s*(\d+(?:\.\d+)*)\s+(.+?)\s+(\d{1,4})\s*$} (title and page) and
+     * {@code ^\s*(\d+(?:\.\d+)*)\s+(.+?)\s*$} (number and title).
+     */
+    static Kind toc(CharSequence s, Line out) {
+        int n = s.length();
+        int idStart = skipWhitespace(s, 0, n);
+        int idEnd = scanId(s, idStart, n);
+        if (idEnd == idStart) return Kind.NONE;
+        int b = skipWhitespace(s, idEnd, n);
+        if (b == idEnd) return Kind.NONE;
+
+        // suffix: [pageStart, w) are the page digits, followed only by whitespace
+        int w = whitespaceStart(s, n);
+        int pageStart = digitsStart(s, w);
+        boolean page = w - pageStart >= 1 && w - pageStart <= 4;
+
+        if (page) {
+            int dotsEnd = whitespaceStart(s, pageStart);
+            int dotsStart = dotsStart(s, dotsEnd);
+            if (dotsEnd - dotsStart >= 2) {
+                int leaderStart = whitespaceStart(s, dotsStart);
+                for (int t = b; t > idEnd; t--) {
+                    if (t >= n) continue;
+                    int e = Math.max(t + 1, leaderStart);
+                    if (e > dotsEnd - 2 || firstTerminator(s, t, e) < e) continue;
+                    out.set(s, Kind.DOT_LEADER, idStart, idEnd, t, e, pageStart, w);
+                    return Kind.DOT_LEADER;
+                }
+            }
+
+            int gapStart = whitespaceStart(s, pageStart);
+            if (gapStart < pageStart) {
+                for (int t = b; t > idEnd; t--) {
+                    if (t >= n) continue;
+                    int e = Math.max(t + 1, gapStart);
+                    if (e >= pageStart || firstTerminator(s, t, e) < e) continue;
+                    out.set(s, Kind.TITLE_PAGE, idStart, idEnd, t, e, pageStart, w);
+                    return Kind.TITLE_PAGE;
+                }
+            }
+        }
+
+        for (int t = b; t > idEnd; t--) {
+            if (t >= n) continue;
+            int e = Math.max(t + 1, w);
+            if (firstTerminator(s, t, e) < e) continue;
+            out.set(s, Kind.NUMBER_TITLE, idStart, idEnd, t, e, 0, 0);
+            return Kind.NUMBER_TITLE;
+        }
+        return Kind.NONE;
+    }
+
+    /**
+     * Page number glued to a ToC title: {@code (.+?)\s*\.*\s*(\d{1,4})\s*$}.
+     * The title span is group 1 and the page is group 2.
+     */
+    static boolean trailingPageInTitle(CharSequence s, Line out) {
+        int n = s.length();
+        int w = whitespaceStart(s, n);
+        int digits = digitsStart(s, w);
+        if (digits == w) return false;
+
+        int e;
+        if (w - digits <= 4) {
+            // the title ends where \s*\.*\s* before the digits begins
+            int sep = whitespaceStart(s, dotsStart(s, whitespaceStart(s, digits)));
+            e = Math.max(1, sep);
+        } else {
+            e = w - 4;
+        }
+        if (e > w - 1 || firstTerminator(s, 0, e) < e) return false;
+        out.set(s, Kind.NONE, 0, 0, 0, e, Math.max(e, digits), w);
+        return true;
+    }
+
+    // ===== Whole-line tests =====
+
+    /** {@code ^\d+(?:\.\d+)*$} over the whole string. */
+    static boolean isSectionId(CharSequence s) {
+        return isSectionId(s, 0, s.length());
+    }
+
+    static boolean isSectionId(CharSequence s, int from, int to) {
+        return to > from && scanId(s, from, to) == to;
+    }
+
+    /** A section number alone on its line: {@code ^\s*(\d+(?:\.\d+)*)\s*$}. */
+    static boolean isSectionIdLine(CharSequence s) {
+        int n = s.length();
+        int idStart = skipWhitespace(s, 0, n);
+        int idEnd = scanId(s, idStart, n);
+        return idEnd > idStart && skipWhitespace(s, idEnd, n) == n;
+    }
+
+    /** {@code \d{1,4}} over the whole string. */
+    static boolean isPageNumber(CharSequence s) {
+        return isPageNumber(s, 0, s.length());
+    }
+
+    static boolean isPageNumber(CharSequence s, int from, int to) {
+        return to - from >= 1 && to - from <= 4 && digitsStart(s, to) <= from;
+    }
+
+    /** ToC line ending in a dot leader and page: {@code .*\.{2,}\s*\d+\s*$} (whole line). */
+    static boolean endsWithDotLeaderPage(CharSequence s) {
+        int w = whitespaceStart(s, s.length());
+        int digits = digitsStart(s, w);
+        if (digits == w) return false;
+        int dotsEnd = whitespaceStart(s, digits);
+        int dotsStart = dotsStart(s, dotsEnd);
+        return dotsEnd - dotsStart >= 2 && firstTerminator(s, 0, dotsStart) == dotsStart;
+    }
+
+    /** Dot leader whose page number is on the next line: {@code \.{2,}\s*$} (find). */
+    static boolean endsWithDotLeader(CharSequence s) {
+        int end = s.length();
+        // "$" may also sit before a final terminator that \s* cannot absorb
+        if (end > 0 && isUnicodeTerminator(s.charAt(end - 1))) end--;
+        int dotsEnd = whitespaceStart(s, end);
+        return dotsEnd - dotsStart(s, dotsEnd) >= 2;
+    }
+
+    /**
+     * Printed page number closing a page: {@code .*\b(\d{1,4})\s*$} (whole line).
+     *
+     * @return the number, or -1 when the line does not end in one
+     */
+    static int printedPageAtLineEnd(CharSequence s) {
+        int w = whitespaceStart(s, s.length());
+        int digits = digitsStart(s, w);
+        if (w - digits < 1 || w - digits > 4) return -1;
+        if (isWordCharBefore(s, digits) || firstTerminator(s, 0, digits) < digits) return -1;
+        return parseDigits(s, digits, w);
+    }
+
+    /**
+     * Running header or footer:
+     * {@code (?i)^(page\s+\d+|universal serial bus power delivery specification|revision history)$} (find).
+     */
+    static boolean isPageFurniture(CharSequence s) {
+        for (String furniture : FURNITURE_LINES) {
+            if (startsWithIgnoreCase(s, furniture) && isEndAnchor(s, furniture.length())) return true;
+        }
+        if (!startsWithIgnoreCase(s, PAGE)) return false;
+        int digits = skipWhitespace(s, PAGE.length(), s.length());
+        if (digits == PAGE.length()) return false;
+        int end = skipDigits(s, digits, s.length());
+        return end > digits && isEndAnchor(s, end);
+    }
+
+    /**
+     * Caption or list heading that is not section content:
+     * {@code (?i)^(Figure\s+\d+|Table\s+\d+|List of Figures|List of Tables|Revision History)\b} (find).
+     */
+    static boolean isIgnoredContent(CharSequence s) {
+        int n = s.length();
+        for (String caption : NUMBERED_CAPTIONS) {
+            if (!startsWithIgnoreCase(s, caption)) continue;
+            int digits = skipWhitespace(s, caption.length(), n);
+            if (digits == caption.length()) continue;
+            int end = skipDigits(s, digits, n);
+            if (end > digits && !isWordCharAt(s, end)) return true;
+        }
+        for (String heading : IGNORED_HEADINGS) {
+            if (startsWithIgnoreCase(s, heading) && !isWordCharAt(s, heading.length())) return true;
+        }
+        return false;
+    }
+
+    /** Lower-cased page label: {@code ^page\s+\d+\b.*} (whole line). */
+    static boolean isPageLabel(CharSequence s) {
+        int n = s.length();
+        if (n < PAGE.length() || !PAGE.contentEquals(s.subSequence(0, PAGE.length()))) return false;
+        int digits = skipWhitespace(s, PAGE.length(), n);
+        if (digits == PAGE.length()) return false;
+        int end = skipDigits(s, digits, n);
+        return end > digits && !isWordCharAt(s, end) && firstTerminator(s, end, n) == n;
+    }
+
+    // ===== Title clean-up =====
+
+    /**
+     * Section heading title clean-up, equivalent to trimming and then
+     * {@code replaceAll("\\.{2,}\\s*\\d+$", "")}, {@code replaceAll("\\s+\\d+$", "")} and
+     * {@code replaceAll("[\\.\\s]{2,}", " ")}, trimming after each step.
+     */
+    static String cleanHeadingTitle(String title) {
+        String t = title.trim();
+
+        // dot leader and page
+        int end = endAnchor(t);
+        int digits = digitsStart(t, end);
+        if (digits < end) {
+            int dotsEnd = whitespaceStart(t, digits);
+            int dotsStart = dotsStart(t, dotsEnd);
+            if (dotsEnd - dotsStart >= 2) t = cut(t, dotsStart, end).trim();
+        }
+
+        // page number after whitespace
+        end = endAnchor(t);
+        digits = digitsStart(t, end);
+        if (digits < end) {
+            int gap = whitespaceStart(t, digits);
+            if (gap < digits) t = cut(t, gap, end).trim();
+        }
+
+        return collapseRuns(t, true).trim();
+    }
+
+    /**
+     * ToC title clean-up, equivalent to trimming and then
+     * {@code replaceFirst("^\\s*\\d+(?:\\.\\d+)*\\s+", "")}, {@code replaceAll("\\.{2,}", " ")},
+     * {@code replaceAll("\\s+\\d{1,4}$", "")}, {@code replaceAll("[\\p{Punct}\\s]+$", "")},
+     * {@code replaceAll("\\s{2,}", " ")} and a final trim.
+     */
+    static String cleanTocTitle(String raw) {
+        if (raw == null) return "";
+        String t = raw.trim();
+
+        // leading section id that sneaked into the title
+        int idStart = skipWhitespace(t, 0, t.length());
+        int idEnd = scanId(t, idStart, t.length());
+        if (idEnd > idStart) {
+            int b = skipWhitespace(t, idEnd, t.length());
+            if (b > idEnd) t = t.substring(b);
+        }
+
+        t = collapseDotRuns(t);
+
+        // trailing page number
+        int end = endAnchor(t);
+        int digits = digitsStart(t, end);
+        if (end - digits >= 1 && end - digits <= 4) {
+            int gap = whitespaceStart(t, digits);
+            if (gap < digits) t = cut(t, gap, end);
+        }
+
+        // stray punctuation at the end
+        end = t.length();
+        if (end > 0 && isUnicodeTerminator(t.charAt(end - 1))) end--;
+        int tail = end;
+        while (tail > 0 && (isPunct(t.charAt(tail - 1)) || isWhitespace(t.charAt(tail - 1)))) tail--;
+        if (tail < end) t = cut(t, tail, end);
+
+        return collapseRuns(t, false).trim();
+    }
+
+    /** {@code replaceAll("\\d{1,4}$", "")}. */
+    static String stripTrailingPageDigits(String s) {
+        int end = endAnchor(s);
+        int digits = digitsStart(s, end);
+        if (digits == end) return s;
+        return cut(s, Math.max(digits, end - 4), end);
+    }
+
+    // ===== Tokens =====
+
+    /** Number of levels in a well-formed section id ("6.4.1" -> 3). */
+    static int level(CharSequence sectionId) {
+        int level = 1;
+        for (int i = 0; i < sectionId.length(); i++) {
+            if (sectionId.charAt(i) == '.') level++;
+        }
+        return level;
+    }
+
+    /** Index of the first {@code \s} character, or the length when there is none. */
+    static int firstWhitespace(CharSequence s) {
+        int n = s.length();
+        for (int i = 0; i < n; i++) {
+            if (isWhitespace(s.charAt(i))) return i;
+        }
+        return n;
+    }
+
+    /** Start of the last whitespace-separated token. */
+    static int lastTokenStart(CharSequence s) {
+        int i = s.length();
+        while (i > 0 && !isWhitespace(s.charAt(i - 1))) i--;
+        return i;
+    }
+
+    static int skipWhitespace(CharSequence s, int from, int to) {
+        int i = from;
+        while (i < to && isWhitespace(s.charAt(i))) i++;
+        return i;
+    }
+
+    /** Value of an all-digit span of at most nine digits. */
+    static int parseDigits(CharSequence s, int from, int to) {
+        int v = 0;
+        for (int i = from; i < to; i++) v = v * 10 + (s.charAt(i) - '0');
+        return v;
+    }
+
+    // ===== Scanning primitives =====
+
+    static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isTerminator(char c) {
+        return c == '\n' || c == '\r' || isUnicodeTerminator(c);
+    }
+
+    // terminators that are not \s
+    private static boolean isUnicodeTerminator(char c) {
+        return c == '\u0085' || c == '\u2028' || c == '\u2029';
+    }
+
+    private static boolean isAsciiLetter(char c) {
+        return (c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z');
+    }
+
+    // \p{Punct}
+    private static boolean isPunct(char c) {
+        return (c >= '!' && c <= '/') || (c >= ':' && c <= '@') || (c >= '[' && c <= '`') || (c >= '{' && c <= '~');
+    }
+
+    /** End of the greedy {@code \d+(?:\.\d+)*} at {@code from}; {@code from} when there is none. */
+    private static int scanId(CharSequence s, int from, int to) {
+        int i = skipDigits(s, from, to);
+        if (i == from) return from;
+        while (i + 1 < to && s.charAt(i) == '.' && isDigit(s.charAt(i + 1))) {
+            i = skipDigits(s, i + 1, to);
+        }
+        return i;
+    }
+
+    private static int skipDigits(CharSequence s, int from, int to) {
+        int i = from;
+        while (i < to && isDigit(s.charAt(i))) i++;
+        return i;
+    }
+
+    // start of the run of whitespace / digits / dots ending at 'end'
+    private static int whitespaceStart(CharSequence s, int end) {
+        int i = end;
+        while (i > 0 && isWhitespace(s.charAt(i - 1))) i--;
+        return i;
+    }
+
+    private static int digitsStart(CharSequence s, int end) {
+        int i = end;
+        while (i > 0 && isDigit(s.charAt(i - 1))) i--;
+        return i;
+    }
+
+    private static int dotsStart(CharSequence s, int end) {
+        int i = end;
+        while (i > 0 && s.charAt(i - 1) == '.') i--;
+        return i;
+    }
+
+    private static int firstTerminator(CharSequence s, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (isTerminator(s.charAt(i))) return i;
+        }
+        return to;
+    }
+
+    // the heading lookahead (?=.+[A-Za-z]) at 'from'
+    private static boolean letterAhead(CharSequence s, int from) {
+        for (int i = from; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (isTerminator(c)) return false;
+            if (i > from && isAsciiLetter(c)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Where {@code $} can match right after a digit: the end of input, or just before a single
+     * final line terminator ({@code \r\n} counts as one).
+     */
+    private static int endAnchor(CharSequence s) {
+        int n = s.length();
+        if (n >= 2 && s.charAt(n - 2) == '\r' && s.charAt(n - 1) == '\n') return n - 2;
+        if (n >= 1 && isTerminator(s.charAt(n - 1))) return n - 1;
+        return n;
+    }
+
+    private static boolean isEndAnchor(CharSequence s, int i) {
+        int n = s.length();
+        if (i == n) return true;
+        if (i == n - 2) return s.charAt(i) == '\r' && s.charAt(i + 1) == '\n';
+        if (i != n - 1) return false;
+        char c = s.charAt(i);
+        return c == '\n' ? i == 0 || s.charAt(i - 1) != '\r' : isTerminator(c);
+    }
+
+    private static boolean startsWithIgnoreCase(CharSequence s, String lowerAscii) {
+        if (s.length() < lowerAscii.length()) return false;
+        for (int i = 0; i < lowerAscii.length(); i++) {
+            char c = s.charAt(i);
+            if (c >= 'A' && c <= 'Z') c += 'a' - 'A';
+            if (c != lowerAscii.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    // \b word characters (Java 17): letters, digits, '_', and combining marks on a letter or digit
+    private static boolean isWordCharBefore(CharSequence s, int i) {
+        if (i <= 0) return false;
+        int cp = Character.codePointBefore(s, i);
+        return isWordCodePoint(cp) || (Character.getType(cp) == Character.NON_SPACING_MARK && hasBase(s, i - 1));
+    }
+
+    private static boolean isWordCharAt(CharSequence s, int i) {
+        if (i >= s.length()) return false;
+        int cp = Character.codePointAt(s, i);
+        return isWordCodePoint(cp) || (Character.getType(cp) == Character.NON_SPACING_MARK && hasBase(s, i));
+    }
+
+    private static boolean isWordCodePoint(int cp) {
+        return cp == '_' || Character.isLetterOrDigit(cp);
+    }
+
+    private static boolean hasBase(CharSequence s, int i) {
+        for (int x = i; x >= 0; x--) {
+            int cp = Character.codePointAt(s, x);
+            if (Character.isLetterOrDigit(cp)) return true;
+            if (Character.getType(cp) != Character.NON_SPACING_MARK) return false;
+        }
+        return false;
+    }
+
+    private static String cut(String s, int from, int to) {
+        return s.substring(0, from) + s.substring(to);
+    }
+
+    // every maximal run of two or more dots -> " "
+    private static String collapseDotRuns(String s) {
+        if (s.indexOf("..") < 0) return s;
+        StringBuilder out = new StringBuilder(s.length());
+        int n = s.length();
+        for (int i = 0; i < n; ) {
+            int j = i;
+            while (j < n && s.charAt(j) == '.') j++;
+            if (j - i >= 2) {
+                out.append(' ');
+                i = j;
+            } else {
+                out.append(s.charAt(i++));
+            }
+        }
+        return out.toString();
+    }
+
+    // every maximal run of two or more whitespace (or, with dots, [.\s]) characters -> " "
+    private static String collapseRuns(String s, boolean dots) {
+        int n = s.length();
+        StringBuilder out = null;
+        int copied = 0;
+        for (int i = 0; i < n; ) {
+            int j = i;
+            while (j < n && (isWhitespace(s.charAt(j)) || (dots && s.charAt(j) == '.'))) j++;
+            if (j - i >= 2) {
+                if (out == null) out = new StringBuilder(n);
+                out.append(s, copied, i).append(' ');
+                copied = j;
+            }
+            i = j > i ? j : i + 1;
+        }
+        if (out == null) return s;
+        return out.append(s, copied, n).toString();
+    }
+}
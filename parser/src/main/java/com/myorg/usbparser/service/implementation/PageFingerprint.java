@@ -0,0 +1,152 @@
+package com.myorg.usbparser.service.implementation;
+
+import org.apache.pdfbox.cos.COSArray;
+import org.apache.pdfbox.cos.COSBase;
+import org.apache.pdfbox.cos.COSBoolean;
+import org.apache.pdfbox.cos.COSDictionary;
+import org.apache.pdfbox.cos.COSFloat;
+import org.apache.pdfbox.cos.COSInteger;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.cos.COSObject;
+import org.apache.pdfbox.cos.COSStream;
+import org.apache.pdfbox.cos.COSString;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDResources;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Content fingerprint of every page, computed from the PDF objects rather than extracted text,
+ * so pages can be compared across uploads without stripping them.
+ *
+ * A page's hash covers everything text extraction reads: its content streams, the (inherited)
+ * resources with fonts and form XObjects, media/crop box, rotation and article beads. Image
+ * data is skipped (only the image dictionary counts) and {@code /Parent} / {@code /P} back
+ * references are not followed. Shared objects such as fonts are hashed once per document.
+ */
+final class PageFingerprint {
+
+    private static final COSName BEADS = COSName.getPDFName("B");
+    private static final Set<COSName> SKIPPED_KEYS = Set.of(COSName.PARENT, COSName.P);
+    private static final byte[] CYCLE = {'C'};
+
+    private final Map<COSBase, byte[]> digests = new IdentityHashMap<>();
+    private final Set<COSBase> inProgress = Collections.newSetFromMap(new IdentityHashMap<>());
+    private final byte[] copyBuffer = new byte[64 * 1024];
+
+    private PageFingerprint() {}
+
+    /**
+     * Hex SHA-256 per page, 1-based (index 0 is unused).
+     */
+    static String[] of(PDDocument document) throws IOException {
+        PageFingerprint fingerprint = new PageFingerprint();
+        int pages = document.getNumberOfPages();
+        String[] hashes = new String[pages + 1];
+        for (int p = 1; p <= pages; p++) {
+            hashes[p] = fingerprint.page(document.getPage(p - 1));
+        }
+        return hashes;
+    }
+
+    private String page(PDPage page) throws IOException {
+        MessageDigest md = sha256();
+        COSDictionary dict = page.getCOSObject();
+        update(md, dict.getItem(COSName.CONTENTS));
+        PDResources resources = page.getResources();
+        update(md, resources == null ? null : resources.getCOSObject());
+        update(md, page.getMediaBox().getCOSArray());
+        update(md, page.getCropBox().getCOSArray());
+        md.update(ByteBuffer.allocate(4).putInt(page.getRotation()).array());
+        update(md, dict.getItem(BEADS));
+        return HexFormat.of().formatHex(md.digest());
+    }
+
+    private void update(MessageDigest md, COSBase base) throws IOException {
+        if (base instanceof COSObject indirect) base = indirect.getObject();
+        if (base == null) {
+            md.update((byte) 'Z');
+        } else if (base instanceof COSName name) {
+            md.update((byte) 'N');
+            md.update(name.getName().getBytes(StandardCharsets.UTF_8));
+            md.update((byte) 0);
+        } else if (base instanceof COSString str) {
+            byte[] bytes = str.getBytes();
+            md.update((byte) 'T');
+            md.update(ByteBuffer.allocate(4).putInt(bytes.length).array());
+            md.update(bytes);
+        } else if (base instanceof COSInteger i) {
+            md.update((byte) 'I');
+            md.update(ByteBuffer.allocate(8).putLong(i.longValue()).array());
+        } else if (base instanceof COSFloat f) {
+            md.update((byte) 'F');
+            md.update(ByteBuffer.allocate(4).putFloat(f.floatValue()).array());
+        } else if (base instanceof COSBoolean b) {
+            md.update((byte) (b.getValue() ? '1' : '0'));
+        } else if (base instanceof COSDictionary || base instanceof COSArray) {
+            md.update(digest(base));
+        } else {
+            md.update((byte) 'Z');
+        }
+    }
+
+    /**
+     * Digest of a container object, memoized by identity; a reference back into an object
+     * that is still being hashed contributes a fixed marker.
+     */
+    private byte[] digest(COSBase container) throws IOException {
+        byte[] known = digests.get(container);
+        if (known != null) return known;
+        if (!inProgress.add(container)) return CYCLE;
+        try {
+            MessageDigest md = sha256();
+            if (container instanceof COSArray array) {
+                md.update((byte) 'A');
+                for (int i = 0; i < array.size(); i++) update(md, array.get(i));
+            } else {
+                COSDictionary dict = (COSDictionary) container;
+                md.update((byte) (dict instanceof COSStream ? 'S' : 'D'));
+                List<COSName> keys = new ArrayList<>(dict.keySet());
+                keys.sort(Comparator.comparing(COSName::getName));
+                for (COSName key : keys) {
+                    if (SKIPPED_KEYS.contains(key)) continue;
+                    update(md, key);
+                    update(md, dict.getItem(key));
+                }
+                if (dict instanceof COSStream stream && !COSName.IMAGE.equals(stream.getCOSName(COSName.SUBTYPE))) {
+                    try (InputStream in = stream.createRawInputStream()) {
+                        int n;
+                        while ((n = in.read(copyBuffer)) > 0) md.update(copyBuffer, 0, n);
+                    }
+                }
+            }
+            byte[] digest = md.digest();
+            digests.put(container, digest);
+            return digest;
+        } finally {
+            inProgress.remove(container);
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
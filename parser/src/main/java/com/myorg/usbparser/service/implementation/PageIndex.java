@@ -0,0 +1,223 @@
+package com.myorg.usbparser.service.implementation;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Sidecar of {@code usb_pd_sections.jsonl}: every page's {@link PageFingerprint} hash and its
+ * {@link PageScan}, under the extractor fingerprint. A later parse reads the hash table alone and
+ * decodes the scans of the pages whose hash it finds, one at a time as the extractor asks for them.
+ *
+ * <pre>
+ * header   int magic, byte version, UTF extractor fingerprint
+ * records  per page: deflated JSON of its scan
+ * footer   int page count, per page: UTF hash, long record offset, int record length
+ * trailer  long footer offset, int magic
+ * </pre>
+ */
+@Slf4j
+final class PageIndex {
+
+    static final String FILE = "usb_pd_sections.pages.idx";
+
+    private static final int MAGIC = 0x55534250; // "USBP"
+    private static final int VERSION = 2;
+    private static final int TRAILER_BYTES = Long.BYTES + Integer.BYTES;
+
+    // classes whose behaviour shapes the stored scans; any change to them invalidates old indexes
+    private static final List<Class<?>> SCAN_CLASSES = List.of(
+            PdfBoxSectionExtractor.class,
+            PageScan.class,
+            PageFingerprint.class,
+            LineClassifier.class,
+            PageTextCache.class,
+            DualOrderTextStripper.class,
+            PdfBoxParseSession.class,
+            ParallelPageExtractor.class);
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final ObjectReader SCAN_READER = MAPPER.readerFor(PageScan.class);
+    private static final ObjectWriter SCAN_WRITER = MAPPER.writerFor(PageScan.class);
+
+    private PageIndex() {}
+
+    static String fingerprint(String docTitle) {
+        return ResultCache.fingerprint(docTitle, SCAN_CLASSES);
+    }
+
+    /**
+     * The hash table of an index written under the same extractor fingerprint; empty when the file
+     * is missing, is not a page index of this version or was written by different extractor code.
+     * No scan is read until {@link Baseline#scan(String)} asks for it.
+     */
+    static Optional<Baseline> open(Path file, String fingerprint) throws IOException {
+        if (!Files.isRegularFile(file)) return Optional.empty();
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            if (size < 5 + TRAILER_BYTES) return closeEmpty(channel);
+            ByteBuffer trailer = read(channel, size - TRAILER_BYTES, TRAILER_BYTES);
+            long footer = trailer.getLong();
+            if (trailer.getInt() != MAGIC || footer < 5 || footer > size - TRAILER_BYTES) return closeEmpty(channel);
+
+            DataInputStream header = new DataInputStream(Channels.newInputStream(channel.position(0)));
+            if (header.readInt() != MAGIC || header.readByte() != VERSION
+                    || !fingerprint.equals(header.readUTF())) {
+                return closeEmpty(channel);
+            }
+
+            DataInputStream in = new DataInputStream(new BufferedInputStream(
+                    Channels.newInputStream(channel.position(footer))));
+            int pages = in.readInt();
+            // an entry takes at least 14 bytes (empty hash, offset, length)
+            if (pages < 0 || pages > (size - footer) / 14) return closeEmpty(channel);
+            Map<String, long[]> records = new HashMap<>(Math.max(16, pages * 2));
+            for (int i = 0; i < pages; i++) {
+                String hash = in.readUTF();
+                long offset = in.readLong();
+                int length = in.readInt();
+                records.putIfAbsent(hash, new long[]{offset, length});
+            }
+            return Optional.of(new Baseline(channel, records));
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private static Optional<Baseline> closeEmpty(FileChannel channel) throws IOException {
+        channel.close();
+        return Optional.empty();
+    }
+
+    private static ByteBuffer read(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) throw new EOFException("Truncated page index");
+        }
+        return buffer.flip();
+    }
+
+    static Sink create(Path file, String fingerprint) throws IOException {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 1 << 16));
+        Sink sink = new Sink(out);
+        try {
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+            out.writeUTF(fingerprint);
+            sink.position = out.size();
+        } catch (IOException e) {
+            sink.out.close();
+            throw e;
+        }
+        return sink;
+    }
+
+    /**
+     * The page index of an earlier parse, open for reading scans by page hash.
+     */
+    static final class Baseline implements Closeable {
+        private final FileChannel channel;
+        private final Map<String, long[]> records; // hash -> {offset, length}
+
+        private Baseline(FileChannel channel, Map<String, long[]> records) {
+            this.channel = channel;
+            this.records = records;
+        }
+
+        boolean contains(String hash) {
+            return records.containsKey(hash);
+        }
+
+        /**
+         * The stored scan of a page with this hash, or null; also null, so the page is extracted
+         * again, when its record cannot be read.
+         */
+        PageScan scan(String hash) {
+            long[] record = records.get(hash);
+            if (record == null) return null;
+            try (InputStream in = new InflaterInputStream(new ByteArrayInputStream(
+                    read(channel, record[0], (int) record[1]).array()))) {
+                return SCAN_READER.readValue(in);
+            } catch (IOException | RuntimeException e) {
+                log.warn("Unreadable page index record for hash {}, extracting the page again: {}", hash, e.toString());
+                return null;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+
+    /**
+     * Writes page entries in page order, and the hash table on close. I/O failures surface as
+     * {@link UncheckedIOException}.
+     */
+    static final class Sink implements Closeable {
+        private final DataOutputStream out;
+        private final ByteArrayOutputStream record = new ByteArrayOutputStream();
+        private final ByteArrayOutputStream table = new ByteArrayOutputStream();
+        private final DataOutputStream tableOut = new DataOutputStream(table);
+        private long position;
+        private int pages;
+
+        private Sink(DataOutputStream out) {
+            this.out = out;
+        }
+
+        void write(String hash, PageScan scan) {
+            try {
+                record.reset();
+                try (DeflaterOutputStream deflated = new DeflaterOutputStream(record)) {
+                    SCAN_WRITER.writeValue(deflated, scan);
+                }
+                tableOut.writeUTF(hash);
+                tableOut.writeLong(position);
+                tableOut.writeInt(record.size());
+                record.writeTo(out);
+                position += record.size();
+                pages++;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            try (DataOutputStream o = out) {
+                o.writeInt(pages);
+                table.writeTo(o);
+                o.writeLong(position);
+                o.writeInt(MAGIC);
+            }
+        }
+    }
+}
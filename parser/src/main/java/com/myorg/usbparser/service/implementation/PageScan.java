@@ -0,0 +1,55 @@
+package com.myorg.usbparser.service.implementation;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * What {@link PdfBoxSectionExtractor} takes from one page: the printed page number candidate,
+ * the content that continues the section open at the top of the page, and every heading
+ * starting on the page with the content that follows it on that page.
+ *
+ * Content fragments are already cleaned and space-terminated, so joining them in page order
+ * reproduces the section content exactly.
+ */
+@Getter
+@NoArgsConstructor
+public final class PageScan {
+
+    @JsonProperty("printed")
+    private int printed;
+
+    @JsonProperty("lead")
+    private String lead = "";
+
+    @JsonProperty("heads")
+    private List<Head> heads = List.of();
+
+    public PageScan(int printed, String lead, List<Head> heads) {
+        this.printed = printed;
+        this.lead = lead == null ? "" : lead;
+        this.heads = heads == null ? List.of() : List.copyOf(heads);
+    }
+
+    @Getter
+    @NoArgsConstructor
+    public static final class Head {
+
+        @JsonProperty("section_id")
+        private String sectionId;
+
+        @JsonProperty("title")
+        private String title;
+
+        @JsonProperty("content")
+        private String content = "";
+
+        public Head(String sectionId, String title, String content) {
+            this.sectionId = sectionId;
+            this.title = title;
+            this.content = content == null ? "" : content;
+        }
+    }
+}
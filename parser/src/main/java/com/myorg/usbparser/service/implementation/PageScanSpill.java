@@ -0,0 +1,90 @@
+package com.myorg.usbparser.service.implementation;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * First-in first-out store of page scans between the two passes of {@link PdfBoxSectionExtractor}:
+ * the first pass scans every page once and adds it, the second replays the scans in the same order.
+ * On disk (one JSON line per scan in a temp file, deleted on close) the heap holds no scan beyond
+ * the one being replayed; in memory it holds them all.
+ */
+final class PageScanSpill implements Closeable {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final ObjectReader READER = MAPPER.readerFor(PageScan.class);
+    private static final ObjectWriter WRITER = MAPPER.writerFor(PageScan.class);
+
+    private final Path file;
+    private final Deque<PageScan> memory;
+    private BufferedWriter out;
+    private BufferedReader in;
+
+    private PageScanSpill(Path file) {
+        this.file = file;
+        this.memory = file == null ? new ArrayDeque<>() : null;
+    }
+
+    static PageScanSpill inMemory() {
+        return new PageScanSpill(null);
+    }
+
+    static PageScanSpill onDisk() throws IOException {
+        PageScanSpill spill = new PageScanSpill(Files.createTempFile("usbpd-scans", ".jsonl"));
+        try {
+            spill.out = Files.newBufferedWriter(spill.file, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            spill.close();
+            throw e;
+        }
+        return spill;
+    }
+
+    /** Append a scan; only valid before the first {@link #next()}. */
+    void add(PageScan scan) throws IOException {
+        if (memory != null) {
+            memory.addLast(scan);
+            return;
+        }
+        if (in != null) throw new IllegalStateException("Spill is already being replayed");
+        out.write(WRITER.writeValueAsString(scan));
+        out.write('\n');
+    }
+
+    /** The next scan in the order they were added. */
+    PageScan next() throws IOException {
+        if (memory != null) {
+            PageScan scan = memory.pollFirst();
+            if (scan == null) throw new IllegalStateException("Spill exhausted");
+            return scan;
+        }
+        if (in == null) {
+            out.close();
+            in = Files.newBufferedReader(file, StandardCharsets.UTF_8);
+        }
+        String line = in.readLine();
+        if (line == null) throw new IllegalStateException("Spill exhausted");
+        return READER.readValue(line);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (file == null) return;
+        try (Closeable w = out; Closeable r = in) {
+            // closes both streams, suppressing a second failure
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
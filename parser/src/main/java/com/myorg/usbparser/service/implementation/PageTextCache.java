@@ -0,0 +1,142 @@
+package com.myorg.usbparser.service.implementation;
+
+import java.io.IOException;
+import java.text.Normalizer;
+
+/**
+ * Per-page line store: each page is stripped and normalized exactly once
+ * (NFC, non-breaking spaces and whitespace runs collapsed to a single space)
+ * and kept as an array of trimmed lines.
+ *
+ * Trailing blank lines are dropped and every blank line shares the same
+ * empty string instance to keep the store compact for 1,000+ page documents.
+ *
+ * The first {@code unsortedPages} pages (the ToC window) are also kept as raw text in
+ * content-stream order, taken from the same extraction as their sorted lines.
+ */
+public final class PageTextCache {
+
+    private static final String[] NO_LINES = new String[0];
+
+    /** Strips the raw text of a single 1-based page, in content-stream order too when asked for. */
+    @FunctionalInterface
+    public interface PageStripper {
+        PageText strip(int page, boolean withUnsorted) throws IOException;
+    }
+
+    /** Raw stripper output of one page; {@code unsorted} is null unless it was asked for. */
+    public record PageText(String sorted, String unsorted) {}
+
+    private final PageStripper stripper;
+    private final String[][] lines; // 1-based, null = not extracted yet
+    private final String[] unsorted; // 1-based over the ToC window, null = not extracted yet
+    private long linesExtracted;
+
+    public PageTextCache(int pageCount, int unsortedPages, PageStripper stripper) {
+        this.stripper = stripper;
+        this.lines = new String[pageCount + 1][];
+        this.unsorted = new String[Math.min(pageCount, Math.max(0, unsortedPages)) + 1];
+    }
+
+    public int getPageCount() {
+        return lines.length - 1;
+    }
+
+    /**
+     * Normalized, trimmed lines of a page. The returned array is shared —
+     * callers that need to rewrite lines must copy it first.
+     */
+    public String[] getLines(int page) throws IOException {
+        checkPage(page);
+        if (lines[page] == null) fill(page);
+        return lines[page];
+    }
+
+    /**
+     * Raw text of a page in content-stream order (not sorted by position). Pages of the ToC window
+     * are cached with their lines; a page stripped before for its lines alone is stripped again.
+     */
+    public String getUnsortedText(int page) throws IOException {
+        checkPage(page);
+        if (page >= unsorted.length) return stripper.strip(page, true).unsorted();
+        if (unsorted[page] == null) fill(page);
+        return unsorted[page];
+    }
+
+    /**
+     * Number of leading pages whose content-stream order text is cached with their lines.
+     */
+    public int getUnsortedPages() {
+        return unsorted.length - 1;
+    }
+
+    /**
+     * Lines stored so far, counting pages again when they are re-extracted after {@link #release(int)}.
+     */
+    public long getLinesExtracted() {
+        return linesExtracted;
+    }
+
+    public boolean isLoaded(int page) {
+        checkPage(page);
+        return lines[page] != null;
+    }
+
+    /**
+     * Drop a page's lines; the next {@link #getLines(int)} extracts it again.
+     */
+    public void release(int page) {
+        checkPage(page);
+        lines[page] = null;
+        if (page < unsorted.length) unsorted[page] = null;
+    }
+
+    /**
+     * Store lines produced elsewhere (e.g. by a parallel worker) with {@link #toLines(String)}, with
+     * the raw content-stream order text for a page of the ToC window (else null).
+     */
+    void put(int page, String[] pageLines, String unsortedText) {
+        checkPage(page);
+        lines[page] = pageLines == null ? NO_LINES : pageLines;
+        linesExtracted += lines[page].length;
+        if (page < unsorted.length) unsorted[page] = unsortedText;
+    }
+
+    private void fill(int page) throws IOException {
+        PageText text = stripper.strip(page, page < unsorted.length);
+        put(page, toLines(text.sorted()), text.unsorted());
+    }
+
+    /**
+     * Normalize and split raw stripper output into the cached line form.
+     */
+    static String[] toLines(String rawText) {
+        return split(normalize(rawText));
+    }
+
+    private void checkPage(int page) {
+        if (page < 1 || page > getPageCount()) {
+            throw new IllegalArgumentException("Page out of range: " + page + " (1.." + getPageCount() + ")");
+        }
+    }
+
+    private static String[] split(String text) {
+        if (text.isEmpty()) return NO_LINES;
+        String[] raw = text.split("\\r?\\n");
+        int n = raw.length;
+        while (n > 0 && raw[n - 1].isBlank()) n--;
+        String[] out = new String[n];
+        for (int i = 0; i < n; i++) {
+            String t = raw[i].trim();
+            out[i] = t.isEmpty() ? "" : t;
+        }
+        return out;
+    }
+
+    static String normalize(String s) {
+        if (s == null) return "";
+        return Normalizer.normalize(s, Normalizer.Form.NFC)
+                .replace('\u00A0', ' ')
+                .replaceAll("[ \\t\\x0B\\f\\r]+", " ");
+    }
+}
@@ -0,0 +1,178 @@
+package com.myorg.usbparser.service.implementation;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.pdmodel.PDDocument;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Fills a session's {@link PageTextCache} in parallel.
+ *
+ * The page range is split recursively on a fork-join pool; every leaf task
+ * strips its range with the {@link PDDocument} and stripper of the thread running it (PDFBox is not
+ * thread-safe), loaded under the session's memory policy on the thread's first leaf and closed when
+ * the whole range is done, and returns the normalized lines of its range. Results are merged back
+ * into the cache in page order on the calling thread, so heading detection sees exactly what the
+ * sequential path would produce.
+ */
+@Slf4j
+public class ParallelPageExtractor {
+
+    private final ForkJoinPool pool;
+    private final int pagesPerTask;
+    private final MemoryUsageSetting memoryUsage;
+
+    public ParallelPageExtractor(ForkJoinPool pool, int pagesPerTask) {
+        this(pool, pagesPerTask, MemoryUsageSetting.setupMainMemoryOnly());
+    }
+
+    public ParallelPageExtractor(ForkJoinPool pool, int pagesPerTask, MemoryUsageSetting memoryUsage) {
+        this.pool = Objects.requireNonNull(pool, "pool must not be null");
+        this.pagesPerTask = Math.max(1, pagesPerTask);
+        this.memoryUsage = Objects.requireNonNull(memoryUsage, "memoryUsage must not be null");
+    }
+
+    /**
+     * Extract every page of the session that is not cached yet.
+     */
+    public void extract(PdfBoxParseSession session) throws IOException {
+        extract(session, 1, session.getPageCount());
+    }
+
+    /**
+     * Extract pages {@code from..to} (1-based, inclusive) that are not cached yet.
+     */
+    public void extract(PdfBoxParseSession session, int from, int to) throws IOException {
+        PageTextCache cache = session.getPageTextCache();
+        int first = Math.max(1, from);
+        int last = Math.min(cache.getPageCount(), to);
+        while (first <= last && cache.isLoaded(first)) first++;
+        while (last >= first && cache.isLoaded(last)) last--;
+        if (first > last) return;
+
+        Extracted[] pages;
+        int documents;
+        try (Workers workers = new Workers(session.getSourceFile(), memoryUsage)) {
+            pages = pool.invoke(new RangeTask(workers, first, last, pagesPerTask, cache.getUnsortedPages()));
+            documents = workers.byThread.size();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        for (int i = 0; i < pages.length; i++) {
+            int page = first + i;
+            if (!cache.isLoaded(page)) cache.put(page, pages[i].lines(), pages[i].unsorted());
+        }
+        log.debug("Extracted pages {}..{} of {} with parallelism {} ({} documents loaded)",
+                first, last, session.getSourceFile().getName(), pool.getParallelism(), documents);
+    }
+
+    /** Cached line form of a page, plus its content-stream order text inside the ToC window (else null). */
+    private record Extracted(String[] lines, String unsorted) {}
+
+    /** A thread's own copy of the document, with the stripper reading it. */
+    private record Worker(PDDocument document, DualOrderTextStripper stripper) {}
+
+    /**
+     * The workers of one extraction, one per thread running its leaf tasks: the document is loaded
+     * once per thread rather than once per leaf.
+     */
+    private static final class Workers implements Closeable {
+        private final File pdfFile;
+        private final MemoryUsageSetting memoryUsage;
+        private final Map<Thread, Worker> byThread = new ConcurrentHashMap<>();
+
+        private Workers(File pdfFile, MemoryUsageSetting memoryUsage) {
+            this.pdfFile = pdfFile;
+            this.memoryUsage = memoryUsage;
+        }
+
+        /** The calling thread's worker, loaded on its first use. */
+        Worker current() throws IOException {
+            Worker worker = byThread.get(Thread.currentThread());
+            if (worker == null) {
+                PDDocument document = PDDocument.load(pdfFile, memoryUsage);
+                try {
+                    worker = new Worker(document, PdfBoxParseSession.newStripper());
+                } catch (IOException | RuntimeException e) {
+                    document.close();
+                    throw e;
+                }
+                byThread.put(Thread.currentThread(), worker);
+            }
+            return worker;
+        }
+
+        @Override
+        public void close() throws IOException {
+            IOException failure = null;
+            for (Worker worker : byThread.values()) {
+                try {
+                    worker.document().close();
+                } catch (IOException e) {
+                    if (failure == null) failure = e;
+                    else failure.addSuppressed(e);
+                }
+            }
+            if (failure != null) throw failure;
+        }
+    }
+
+    private static final class RangeTask extends RecursiveTask<Extracted[]> {
+        private final Workers workers;
+        private final int from;
+        private final int to;
+        private final int pagesPerTask;
+        private final int unsortedPages;
+
+        private RangeTask(Workers workers, int from, int to, int pagesPerTask, int unsortedPages) {
+            this.workers = workers;
+            this.from = from;
+            this.to = to;
+            this.pagesPerTask = pagesPerTask;
+            this.unsortedPages = unsortedPages;
+        }
+
+        @Override
+        protected Extracted[] compute() {
+            int count = to - from + 1;
+            if (count <= pagesPerTask) {
+                return strip();
+            }
+            int mid = from + count / 2;
+            RangeTask left = new RangeTask(workers, from, mid - 1, pagesPerTask, unsortedPages);
+            RangeTask right = new RangeTask(workers, mid, to, pagesPerTask, unsortedPages);
+            left.fork();
+            Extracted[] rightPages = right.compute();
+            Extracted[] leftPages = left.join();
+
+            Extracted[] merged = new Extracted[count];
+            System.arraycopy(leftPages, 0, merged, 0, leftPages.length);
+            System.arraycopy(rightPages, 0, merged, leftPages.length, rightPages.length);
+            return merged;
+        }
+
+        private Extracted[] strip() {
+            Extracted[] out = new Extracted[to - from + 1];
+            try {
+                Worker worker = workers.current();
+                for (int page = from; page <= to; page++) {
+                    PageTextCache.PageText text = worker.stripper().strip(worker.document(), page, page <= unsortedPages);
+                    out[page - from] = new Extracted(PageTextCache.toLines(text.sorted()), text.unsorted());
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to extract pages " + from + ".." + to, e);
+            }
+            return out;
+        }
+    }
+}
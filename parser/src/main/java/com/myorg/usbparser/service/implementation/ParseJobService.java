@@ -0,0 +1,190 @@
+package com.myorg.usbparser.service.implementation;
+
+import com.myorg.usbparser.config.JobProperties;
+import com.myorg.usbparser.exception.JobRejectedException;
+import com.myorg.usbparser.metrics.PipelineMetrics;
+import com.myorg.usbparser.model.ParseJob;
+import com.myorg.usbparser.util.VirtualThreads;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs parse jobs on a bounded, queue-backed executor and keeps their status for polling.
+ * When every worker is busy and the queue is full, submissions are rejected with
+ * {@link JobRejectedException} (429) instead of piling up.
+ * With {@code spring.threads.virtual.enabled} on Java 21 the workers are virtual threads (the pool still
+ * bounds how many jobs run at once); the pipeline then moves the CPU-bound extraction onto platform threads.
+ */
+@Slf4j
+@Service
+public class ParseJobService {
+
+    private final ParsePipeline pipeline;
+    private final JobStorage jobStorage;
+    private final JobProperties jobProperties;
+    private final PipelineMetrics metrics;
+    private final ThreadPoolExecutor executor;
+    private final Map<String, ParseJob> jobs = new ConcurrentHashMap<>();
+    private final Deque<String> submissionOrder = new ConcurrentLinkedDeque<>();
+
+    public ParseJobService(ParsePipeline pipeline, JobStorage jobStorage, JobProperties jobProperties,
+                           PipelineMetrics metrics, Environment environment) {
+        this.pipeline = pipeline;
+        this.jobStorage = jobStorage;
+        this.jobProperties = jobProperties;
+        this.metrics = metrics;
+
+        int workers = Math.max(1, jobProperties.getWorkerThreads());
+        this.executor = new ThreadPoolExecutor(
+                workers, workers,
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, jobProperties.getQueueCapacity())),
+                workerThreads(environment),
+                new ThreadPoolExecutor.AbortPolicy());
+        metrics.bindJobQueue(executor.getQueue());
+    }
+
+    private static ThreadFactory workerThreads(Environment environment) {
+        if (environment.getProperty("spring.threads.virtual.enabled", Boolean.class, false)) {
+            if (VirtualThreads.isSupported()) return VirtualThreads.factory("parse-job-");
+            log.warn("spring.threads.virtual.enabled needs Java 21; parse jobs run on platform threads");
+        }
+        AtomicInteger threadNo = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, "parse-job-" + threadNo.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+
+    /**
+     * Fail fast before an upload is persisted when no worker or queue slot is free.
+     */
+    public void ensureCapacity() {
+        if (executor.getActiveCount() >= executor.getMaximumPoolSize()
+                && executor.getQueue().remainingCapacity() == 0) {
+            metrics.countJob("rejected");
+            throw new JobRejectedException("Parse queue is full, retry later.");
+        }
+    }
+
+    public ParseJob create(String fileName) {
+        ParseJob job = new ParseJob(UUID.randomUUID().toString(), fileName);
+        jobs.put(job.getId(), job);
+        submissionOrder.addLast(job.getId());
+        evictFinishedJobs();
+        return job;
+    }
+
+    /**
+     * Queue the job; its status moves to RUNNING when a worker picks it up. A rejected job is
+     * forgotten and its directory, upload included, deleted.
+     */
+    public ParseJob submit(ParseJob job, Path pdfPath, Path outDir) {
+        try {
+            executor.execute(() -> execute(job, pdfPath, outDir));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.getId());
+            submissionOrder.remove(job.getId());
+            jobStorage.deleteJobDir(outDir);
+            metrics.countJob("rejected");
+            throw new JobRejectedException("Parse queue is full, retry later.", e);
+        }
+        log.info("Job {} queued for {} (queued={}, active={})",
+                job.getId(), job.getFileName(), executor.getQueue().size(), executor.getActiveCount());
+        return job;
+    }
+
+    public Optional<ParseJob> find(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId));
+    }
+
+    /**
+     * Ids of jobs that are queued or running; their directories must survive retention.
+     */
+    public Set<String> activeJobIds() {
+        Set<String> active = new HashSet<>();
+        jobs.forEach((id, job) -> {
+            if (!job.isFinished()) active.add(id);
+        });
+        return active;
+    }
+
+    private void execute(ParseJob job, Path pdfPath, Path outDir) {
+        job.markRunning();
+        metrics.jobStarted();
+        String outcome = "failed";
+        try {
+            pipeline.run(job, pdfPath, outDir);
+            job.markSucceeded();
+            outcome = "succeeded";
+            log.info("Job {} succeeded: {}", job.getId(), job.getStageMillis());
+        } catch (Exception ex) {
+            log.error("Job {} failed for {}: {}", job.getId(), job.getFileName(), ex.getMessage(), ex);
+            job.markFailed(ex);
+        } catch (Error err) {
+            // e.g. OutOfMemoryError or a StackOverflowError in PDFBox: the job must not stay RUNNING,
+            // which would report success to waiters and keep its directory from retention forever
+            log.error("Job {} failed for {}: {}", job.getId(), job.getFileName(), err.toString(), err);
+            job.markFailed(err);
+            throw err;
+        } finally {
+            metrics.jobFinished(outcome);
+            finish(job, outDir);
+        }
+    }
+
+    private void finish(ParseJob job, Path outDir) {
+        try {
+            jobStorage.writeManifest(job, outDir);
+        } catch (IOException e) {
+            log.warn("Could not write manifest for job {}: {}", job.getId(), e.toString());
+        }
+        jobStorage.enforceRetention(activeJobIds());
+        job.complete();
+    }
+
+    /**
+     * Keep at most {@code jobs.retained-jobs} entries, dropping the oldest finished ones.
+     */
+    private void evictFinishedJobs() {
+        int excess = jobs.size() - Math.max(1, jobProperties.getRetainedJobs());
+        Iterator<String> it = submissionOrder.iterator();
+        while (excess > 0 && it.hasNext()) {
+            String id = it.next();
+            ParseJob job = jobs.get(id);
+            if (job == null || job.isFinished()) {
+                it.remove();
+                if (job != null) {
+                    jobs.remove(id);
+                    excess--;
+                }
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,493 @@
+package com.myorg.usbparser.service.implementation;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.myorg.usbparser.config.ParserProperties;
+import com.myorg.usbparser.config.ParserProperties.Compression;
+import com.myorg.usbparser.config.PdfBoxProperties;
+import com.myorg.usbparser.config.ReportProperties;
+import com.myorg.usbparser.metrics.PipelineMetrics;
+import com.myorg.usbparser.model.ParseJob;
+import com.myorg.usbparser.model.Section;
+import com.myorg.usbparser.service.JsonlWriter;
+import com.myorg.usbparser.service.ParseSession;
+import com.myorg.usbparser.service.ReportWriter;
+import com.myorg.usbparser.service.TocExtractor;
+import com.myorg.usbparser.service.Validator;
+import com.myorg.usbparser.util.AtomicFiles;
+import com.myorg.usbparser.util.VirtualThreads;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.MemoryUsage;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.function.Consumer;
+
+/**
+ * The parse job itself: ToC, sections, JSONL output and validation report for one uploaded PDF,
+ * written into the job's own directory. Outputs are written to temp files and renamed into place.
+ * With {@code parser.incremental}, pages whose content fingerprint appears in the page index of the
+ * latest successful job are not extracted again; their stored scans are reused. A job with a section
+ * filter extracts only the pages of the selected sections, located through the ToC, and bypasses the
+ * result cache and the page index. The doc title of every entry is the job's own title (set by a batch
+ * manifest), else the PDF's metadata title, else {@code parser.default-doc-title}.
+ * Every stage is timed into the job, logged to the "performance" logger and recorded in {@link PipelineMetrics}.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ParsePipeline {
+
+    public static final String TOC_FILE = "usb_pd_toc.jsonl";
+    public static final String SECTIONS_FILE = "usb_pd_sections.jsonl";
+    // PDFBox spill space of the job in mixed / temp-file memory mode, removed when the document closes
+    static final String SCRATCH_DIR = "scratch";
+    // page scans carry no doc title, so one index serves documents of any title
+    private static final String PAGE_INDEX_FINGERPRINT = PageIndex.fingerprint("page-scans");
+    private static final Logger PerfLogger = LoggerFactory.getLogger("performance");
+    private static final ObjectReader FIRST_ENTRY_READER = new ObjectMapper().reader();
+
+    private final ParserProperties parserProperties;
+    private final PdfBoxProperties pdfBoxProperties;
+    private final ReportProperties reportProperties;
+    private final ForkJoinPool extractionPool;
+    private final ThreadPoolExecutor cpuExecutor;
+    private final ResultCache resultCache;
+    private final JobStorage jobStorage;
+    private final SectionQueryService sectionQueries;
+    private final PipelineMetrics metrics;
+
+    public void run(ParseJob job, Path pdfPath, Path outDir) throws Exception {
+        long jobStart = System.nanoTime();
+        parse(job, pdfPath, outDir, extractionPool);
+        buildQueryIndex(job, outDir);
+        recordTotal(job, jobStart);
+    }
+
+    /**
+     * Batch variant: page ranges are extracted on the batch's own pool (from inside one of its tasks, so
+     * they are forked onto that worker's queue and stolen by idle workers), and no query index is built,
+     * since batch outputs are not served by the job endpoints.
+     */
+    public void run(ParseJob job, Path pdfPath, Path outDir, ForkJoinPool pool) throws Exception {
+        long jobStart = System.nanoTime();
+        parse(job, pdfPath, outDir, pool);
+        recordTotal(job, jobStart);
+    }
+
+    private void parse(ParseJob job, Path pdfPath, Path outDir, ForkJoinPool pool) throws Exception {
+        long jobStart = System.nanoTime();
+        Files.createDirectories(outDir);
+
+        // Targeted parse of a subset of sections, e.g. "6.4.*"
+        SectionSelector selector = job.getSectionFilter() == null ? null : SectionSelector.parse(job.getSectionFilter());
+
+        // Identical upload under the same extractor configuration: reuse the stored outputs
+        String cacheKey = selector == null && job.getContentSha256() != null && resultCache.isEnabled()
+                ? resultCache.keyFor(job.getContentSha256(), job.getDocTitle())
+                : null;
+        Map<String, String> outputFiles = outputFiles();
+        if (cacheKey != null && restoreFromCache(job, cacheKey, outputFiles, outDir, jobStart)) return;
+
+        PerfLogger.info("Parsing started: {}", job.getFileName());
+
+        JsonlWriter<Section> writer = new JacksonJsonlWriter<>();
+        // precompressed copies of the JSONL files, served to clients that accept gzip
+        JsonlWriter<Section> compressedWriter = parserProperties.getCompression() == Compression.NONE ? null
+                : new JacksonJsonlWriter<>(parserProperties.getCompression(), parserProperties.getFrameKb() * 1024);
+        Path tocPath = outDir.resolve(TOC_FILE);
+        Path sectionsPath = outDir.resolve(SECTIONS_FILE);
+        Path reportPath = outDir.resolve(outputFiles.get("validation"));
+        // validation only needs id/title/page, so section content is never kept in memory
+        List<Section> sectionHeads = new ArrayList<>();
+        // full-text postings, built while the sections stream past (ordinal = JSONL line)
+        SearchIndex.Builder searchIndex = new SearchIndex.Builder();
+
+        // Load the PDF once; both extractors share the document and its page text.
+        // Everything up to the published sections is CPU-bound, see onCpu
+        Path scratchDir = outDir.resolve(SCRATCH_DIR);
+        if (pdfBoxProperties.usesScratch()) Files.createDirectories(scratchDir);
+        MemoryUsageSetting memoryUsage = pdfBoxProperties.memoryUsageSetting(scratchDir.toFile());
+        List<Section> tocSections = onCpu(() -> {
+            long t0 = System.nanoTime();
+            List<Section> toc;
+            try (ParseSession session = PdfBoxParseSession.open(pdfPath.toFile(), memoryUsage)) {
+                stage(job, "load", "Document loaded", t0, session.getPageCount());
+                metrics.countPages(session.getPageCount());
+                int pageCount = session.getPageCount();
+                if (job.getDocTitle() == null) {
+                    job.setDocTitle(session.getDocumentTitle() != null
+                            ? session.getDocumentTitle() : parserProperties.getDefaultDocTitle());
+                }
+                String docTitle = job.getDocTitle();
+
+                // Incremental mode: fingerprint every page and open the page index of the latest successful
+                // job; only its hash table is read, a scan is decoded when its page is reached
+                String[] pageHashes = null;
+                if (parserProperties.isIncremental() && selector == null) {
+                    t0 = System.nanoTime();
+                    pageHashes = PageFingerprint.of(PdfBoxParseSession.of(session).getDocument());
+                }
+                try (PageIndex.Baseline baseline = pageHashes == null ? null : baseline(job, pageHashes)) {
+                    if (pageHashes != null) stage(job, "fingerprint", "Pages fingerprinted", t0, pageCount);
+
+                    // Optional parallel page-range text extraction (from the first to the last page without
+                    // a reusable scan); otherwise, and for targeted parses, pages are stripped lazily
+                    if (pool.getParallelism() > 1 && selector == null) {
+                        t0 = System.nanoTime();
+                        int first = 1;
+                        int last = pageCount;
+                        if (baseline != null) {
+                            while (first <= last && baseline.contains(pageHashes[first])) first++;
+                            while (last >= first && baseline.contains(pageHashes[last])) last--;
+                        }
+                        new ParallelPageExtractor(pool, parserProperties.getPagesPerTask(), memoryUsage)
+                                .extract(PdfBoxParseSession.of(session), first, last);
+                        stage(job, "pages", "Pages extracted", t0, Math.max(0, last - first + 1));
+                    }
+
+                    // ToC extraction
+                    t0 = System.nanoTime();
+                    TocExtractor tocExtractor = new PdfBoxTocExtractor(docTitle);
+                    toc = tocExtractor.parse(session);
+                    stage(job, "toc", "ToC extracted", t0, toc.size());
+                    metrics.countTocEntries(toc.size());
+
+                    // ToC JSONL writing
+                    t0 = System.nanoTime();
+                    writer.write(AtomicFiles.tempFor(tocPath).toFile(), toc);
+                    publish(job, "toc", tocPath);
+                    if (compressedWriter != null) {
+                        Path compressedToc = compressedPath(tocPath);
+                        compressedWriter.write(AtomicFiles.tempFor(compressedToc).toFile(), toc);
+                        if (Files.exists(AtomicFiles.tempFor(compressedToc))) {
+                            AtomicFiles.publish(AtomicFiles.tempFor(compressedToc), compressedToc);
+                        }
+                    }
+                    stage(job, "jsonl", "JSONL written", t0, toc.size());
+
+                    // Sections extraction, streamed straight into the sections JSONL as each heading closes
+                    t0 = System.nanoTime();
+                    PdfBoxSectionExtractor sectionExtractor = new PdfBoxSectionExtractor(docTitle);
+                    Path indexPath = outDir.resolve(PageIndex.FILE);
+                    Path binaryPath = outDir.resolve(BinarySectionWriter.FILE);
+                    Path compressedSections = compressedPath(sectionsPath);
+                    try (JsonlWriter.Sink<Section> sink = writer.open(AtomicFiles.tempFor(sectionsPath).toFile());
+                         JsonlWriter.Sink<Section> compressed = compressedWriter == null ? null
+                                 : compressedWriter.open(AtomicFiles.tempFor(compressedSections).toFile());
+                         JsonlWriter.Sink<Section> binary = parserProperties.isBinaryOutput()
+                                 ? new BinarySectionWriter().open(AtomicFiles.tempFor(binaryPath).toFile())
+                                 : null) {
+                        Consumer<Section> out = section -> {
+                            sink.accept(section);
+                            if (compressed != null) compressed.accept(section);
+                            if (binary != null) binary.accept(section);
+                            searchIndex.add(section);
+                            sectionHeads.add(withoutContent(section));
+                        };
+                        if (selector != null) {
+                            sectionExtractor.parse(session, toc, selector, out);
+                        } else if (pageHashes == null) {
+                            sectionExtractor.parse(session, out);
+                        } else {
+                            // the page index of this job makes it the baseline for the next upload
+                            String[] hashes = pageHashes;
+                            try (PageIndex.Sink index = PageIndex.create(AtomicFiles.tempFor(indexPath), PAGE_INDEX_FINGERPRINT)) {
+                                sectionExtractor.parse(session,
+                                        page -> baseline == null ? null : baseline.scan(hashes[page]),
+                                        (scan, page) -> index.write(hashes[page], scan),
+                                        out);
+                            }
+                        }
+                    } catch (UncheckedIOException e) {
+                        throw e.getCause();
+                    }
+                    publish(job, "sections", sectionsPath);
+                    publish(job, "sections_bin", binaryPath);
+                    if (compressedWriter != null) {
+                        AtomicFiles.publish(AtomicFiles.tempFor(compressedSections), compressedSections);
+                    }
+                    if (pageHashes != null) AtomicFiles.publish(AtomicFiles.tempFor(indexPath), indexPath);
+                    stage(job, "sections", "Sections extracted", t0, sectionHeads.size());
+                    metrics.countSections(sectionHeads.size());
+                    metrics.countLines(PdfBoxParseSession.of(session).getPageTextCache().getLinesExtracted());
+                }
+            } finally {
+                removeScratch(scratchDir);
+            }
+            return toc;
+        });
+
+        // Full-text search index, persisted next to the sections
+        long t0 = System.nanoTime();
+        Path searchPath = outDir.resolve(SearchIndex.FILE);
+        SearchIndex search = searchIndex.build();
+        search.write(AtomicFiles.tempFor(searchPath));
+        AtomicFiles.publish(AtomicFiles.tempFor(searchPath), searchPath);
+        stage(job, "search", "Search index written", t0, search.size());
+
+        // Validation report (streamed xlsx, csv or json)
+        t0 = System.nanoTime();
+        Validator validator = new ExcelValidator(AtomicFiles.tempFor(reportPath).toFile(), reportWriter());
+        validator.validate(selector == null ? tocSections : tocSections.stream()
+                .filter(s -> selector.matches(s.getSectionId()))
+                .toList(), sectionHeads);
+        publish(job, "validation", reportPath);
+        stage(job, "validation", "Validation report written", t0, 1);
+
+        if (cacheKey != null) {
+            try {
+                resultCache.store(cacheKey, outDir, cachedFiles(outputFiles));
+            } catch (IOException e) {
+                log.warn("Could not cache results of job {}: {}", job.getId(), e.toString());
+            }
+        }
+    }
+
+    /**
+     * Run the CPU-bound part of a parse. On a virtual job thread it is handed to the platform threads of
+     * the cpu executor, so a few extractions cannot occupy every carrier thread while the job thread only
+     * waits; on a platform thread (or a batch worker) it runs in place.
+     */
+    private <T> T onCpu(Callable<T> work) throws Exception {
+        if (!VirtualThreads.isVirtual(Thread.currentThread())) return work.call();
+        try {
+            return cpuExecutor.submit(work).get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception cause) throw cause;
+            throw e;
+        }
+    }
+
+    private void recordTotal(ParseJob job, long jobStart) {
+        long totalMs = msSince(jobStart);
+        job.recordStage("total", totalMs);
+        metrics.recordStage("total", System.nanoTime() - jobStart);
+        if (job.isCacheHit()) return;
+        PerfLogger.info(
+                "Job complete: {} ms, CPU: {}%, Memory: {} MB",
+                totalMs,
+                format(cpuLoad()),
+                format(mb(usedMemoryBytes()))
+        );
+    }
+
+    private boolean restoreFromCache(ParseJob job, String cacheKey, Map<String, String> outputFiles,
+                                     Path outDir, long jobStart) throws IOException {
+        Optional<List<String>> restored = resultCache.restore(cacheKey, outDir, cachedFiles(outputFiles));
+        if (restored.isEmpty()) return false;
+
+        job.markCacheHit();
+        metrics.countCacheHit();
+        outputFiles.forEach((name, file) -> {
+            if (restored.get().contains(file)) job.recordResult(name, outDir.resolve(file).toString());
+        });
+        if (job.getDocTitle() == null) job.setDocTitle(docTitleOf(outDir.resolve(TOC_FILE)));
+        stage(job, "cache", "Results restored from cache", jobStart, restored.get().size());
+        return true;
+    }
+
+    /**
+     * The doc title of the first entry of a restored JSONL output, or null.
+     */
+    private static String docTitleOf(Path jsonl) {
+        try (BufferedReader in = Files.newBufferedReader(jsonl, StandardCharsets.UTF_8)) {
+            String line = in.readLine();
+            return line == null ? null : FIRST_ENTRY_READER.readTree(line).path("doc_title").asText(null);
+        } catch (IOException e) {
+            log.warn("Could not read doc title from {}: {}", jsonl, e.toString());
+            return null;
+        }
+    }
+
+    /**
+     * Index the job's sections for the query endpoints; a failure only defers indexing to the first query.
+     */
+    private void buildQueryIndex(ParseJob job, Path outDir) {
+        long t0 = System.nanoTime();
+        try {
+            sectionQueries.build(outDir);
+            stage(job, "index", "Section index built", t0, 1);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not index sections of job {}: {}", job.getId(), e.toString());
+        }
+    }
+
+    /**
+     * The page index of the latest successful job, open for reading scans, when this upload shares
+     * pages with it; null (full extraction) when there is no usable index or no page matches.
+     */
+    private PageIndex.Baseline baseline(ParseJob job, String[] pageHashes) throws IOException {
+        Optional<Path> baselineDir = jobStorage.latestSucceededJobDir();
+        if (baselineDir.isEmpty()) return null;
+        PageIndex.Baseline baseline;
+        try {
+            baseline = PageIndex.open(baselineDir.get().resolve(PageIndex.FILE), PAGE_INDEX_FINGERPRINT).orElse(null);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not read page index of {}, parsing every page: {}", baselineDir.get(), e.toString());
+            return null;
+        }
+        if (baseline == null) return null;
+
+        int reused = 0;
+        for (int p = 1; p < pageHashes.length; p++) {
+            if (baseline.contains(pageHashes[p])) reused++;
+        }
+        if (reused == 0) {
+            baseline.close();
+            return null;
+        }
+        job.markIncremental(baselineDir.get().getFileName().toString(), reused);
+        metrics.countPagesReused(reused);
+        return baseline;
+    }
+
+    /**
+     * Record a finished stage on the job and in the stage timer, and log it with rate, CPU and memory.
+     */
+    public void stage(ParseJob job, String stage, String label, long startNano, int items) {
+        long nanos = System.nanoTime() - startNano;
+        long ms = Duration.ofNanos(nanos).toMillis();
+        double rate = items > 0 ? items / (ms / 1000.0) : 0;
+        job.recordStage(stage, ms);
+        metrics.recordStage(stage, nanos);
+
+        PerfLogger.info(
+                "{}: {} ms (Rate/FPS: {}), CPU: {}%, Memory: {} MB, items={}",
+                label,
+                ms,
+                format(rate),
+                format(cpuLoad()),
+                format(mb(usedMemoryBytes())),
+                items
+        );
+    }
+
+    /**
+     * Rename a fully written output into place so readers never see partial files.
+     */
+    private static void publish(ParseJob job, String name, Path target) throws IOException {
+        Path temp = AtomicFiles.tempFor(target);
+        if (!Files.exists(temp)) return; // writer skipped an empty result
+        AtomicFiles.publish(temp, target);
+        job.recordResult(name, target.toString());
+    }
+
+    /**
+     * Result name -> output file, in the order the pipeline produces them.
+     */
+    Map<String, String> outputFiles() {
+        Map<String, String> files = new LinkedHashMap<>();
+        files.put("toc", TOC_FILE);
+        files.put("sections", SECTIONS_FILE);
+        if (parserProperties.isBinaryOutput()) files.put("sections_bin", BinarySectionWriter.FILE);
+        files.put("validation", reportProperties.getFormat().getFileName());
+        return Collections.unmodifiableMap(files);
+    }
+
+    /**
+     * PDFBox deletes its scratch files on close; only the empty directory is left to remove.
+     */
+    private static void removeScratch(Path scratchDir) {
+        try {
+            Files.deleteIfExists(scratchDir);
+        } catch (IOException e) {
+            log.warn("Could not remove scratch directory {}: {}", scratchDir, e.toString());
+        }
+    }
+
+    /**
+     * Gzipped sibling of a JSONL output, e.g. {@code usb_pd_sections.jsonl.gz}.
+     */
+    public static Path compressedPath(Path jsonl) {
+        return jsonl.resolveSibling(jsonl.getFileName() + Compression.SUFFIX);
+    }
+
+    /**
+     * Files kept in the result cache: the results plus their compressed copies, the page index and the search index.
+     */
+    private List<String> cachedFiles(Map<String, String> outputFiles) {
+        List<String> files = new ArrayList<>(outputFiles.values());
+        if (parserProperties.getCompression() != Compression.NONE) {
+            files.add(TOC_FILE + Compression.SUFFIX);
+            files.add(SECTIONS_FILE + Compression.SUFFIX);
+        }
+        files.add(PageIndex.FILE);
+        files.add(SearchIndex.FILE);
+        return files;
+    }
+
+    private ReportWriter reportWriter() {
+        return switch (reportProperties.getFormat()) {
+            case XLSX -> new SxssfReportWriter(reportProperties.getRowWindow());
+            case CSV -> new CsvReportWriter();
+            case JSON -> new JsonReportWriter();
+        };
+    }
+
+    private static Section withoutContent(Section s) {
+        return Section.builder()
+                .docTitle(s.getDocTitle())
+                .sectionId(s.getSectionId())
+                .title(s.getTitle())
+                .page(s.getPage())
+                .level(s.getLevel())
+                .parentId(s.getParentId())
+                .fullPath(s.getFullPath())
+                .tags(s.getTags())
+                .build();
+    }
+
+    private static long msSince(long nano) {
+        return Duration.ofNanos(System.nanoTime() - nano).toMillis();
+    }
+
+    private static long usedMemoryBytes() {
+        MemoryMXBean bean = ManagementFactory.getMemoryMXBean();
+        long used = bean.getHeapMemoryUsage().getUsed();
+        MemoryUsage non = bean.getNonHeapMemoryUsage();
+        if (non != null) used += Math.max(0, non.getUsed());
+        return used;
+    }
+
+    private static double cpuLoad() {
+        try {
+            var os = ManagementFactory.getOperatingSystemMXBean();
+            if (os instanceof com.sun.management.OperatingSystemMXBean m) {
+                double val = m.getProcessCpuLoad();
+                return val < 0 ? -1 : val * 100;
+            }
+        } catch (Exception ignored) {}
+        return -1;
+    }
+
+    private static double mb(long bytes) {
+        return bytes / (1024.0 * 1024.0);
+    }
+
+    private static String format(double v) {
+        return v < 0 ? "n/a" : String.format("%.2f", v);
+    }
+}
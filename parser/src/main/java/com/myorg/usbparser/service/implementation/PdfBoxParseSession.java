@@ -0,0 +1,121 @@
+package com.myorg.usbparser.service.implementation;
+
+import com.myorg.usbparser.service.ParseSession;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.pdmodel.PDDocument;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Objects;
+
+/**
+ * PDFBox-backed parse session: loads the {@link PDDocument} once and keeps a
+ * {@link PageTextCache} of every page stripped so far, so the ToC and section
+ * extractors share both the COS object graph and the per-page text.
+ *
+ * Not thread-safe (PDFBox documents are not).
+ */
+@Slf4j
+public class PdfBoxParseSession implements ParseSession {
+
+    private final File sourceFile;
+    private final PDDocument document;
+    private final DualOrderTextStripper stripper;
+    private final PageTextCache pageText;
+
+    private PdfBoxParseSession(File sourceFile, PDDocument document) throws IOException {
+        this.sourceFile = sourceFile;
+        this.document = document;
+        this.stripper = newStripper();
+        this.pageText = new PageTextCache(document.getNumberOfPages(),
+                PdfBoxTocExtractor.TOC_WINDOW_PAGES, this::stripPage);
+    }
+
+    public static PdfBoxParseSession open(File pdfFile) throws IOException {
+        return open(pdfFile, MemoryUsageSetting.setupMainMemoryOnly());
+    }
+
+    /**
+     * Open with an explicit PDFBox memory policy (heap only, mixed or scratch files).
+     */
+    public static PdfBoxParseSession open(File pdfFile, MemoryUsageSetting memoryUsage) throws IOException {
+        Objects.requireNonNull(pdfFile, "pdfFile must not be null");
+        Objects.requireNonNull(memoryUsage, "memoryUsage must not be null");
+        if (!pdfFile.exists()) throw new IOException("PDF file does not exist: " + pdfFile.getAbsolutePath());
+
+        PDDocument document = PDDocument.load(pdfFile, memoryUsage);
+        try {
+            PdfBoxParseSession session = new PdfBoxParseSession(pdfFile, document);
+            log.debug("Opened parse session for {} ({} pages)", pdfFile.getName(), session.getPageCount());
+            return session;
+        } catch (IOException | RuntimeException e) {
+            document.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Unwrap a generic session; PDFBox extractors need the loaded document itself.
+     */
+    public static PdfBoxParseSession of(ParseSession session) {
+        Objects.requireNonNull(session, "session must not be null");
+        if (session instanceof PdfBoxParseSession pdfBox) return pdfBox;
+        throw new IllegalArgumentException("Unsupported parse session: " + session.getClass().getName());
+    }
+
+    /**
+     * Stripper configured the way every page of a session is extracted.
+     */
+    static DualOrderTextStripper newStripper() throws IOException {
+        return new DualOrderTextStripper();
+    }
+
+    public PDDocument getDocument() {
+        return document;
+    }
+
+    @Override
+    public File getSourceFile() {
+        return sourceFile;
+    }
+
+    @Override
+    public int getPageCount() {
+        return pageText.getPageCount();
+    }
+
+    @Override
+    public String getDocumentTitle() {
+        String title = document.getDocumentInformation().getTitle();
+        return title == null || title.isBlank() ? null : title.trim();
+    }
+
+    @Override
+    public String[] getPageLines(int page) throws IOException {
+        return pageText.getLines(page);
+    }
+
+    @Override
+    public String getUnsortedPageText(int page) throws IOException {
+        return pageText.getUnsortedText(page);
+    }
+
+    @Override
+    public void releasePage(int page) {
+        pageText.release(page);
+    }
+
+    public PageTextCache getPageTextCache() {
+        return pageText;
+    }
+
+    private PageTextCache.PageText stripPage(int page, boolean withUnsorted) throws IOException {
+        return stripper.strip(document, page, withUnsorted);
+    }
+
+    @Override
+    public void close() throws IOException {
+        document.close();
+    }
+}
@@ -1,38 +1,25 @@
 package com.myorg.usbparser.service.implementation;
 
 import com.myorg.usbparser.model.Section;
+import com.myorg.usbparser.service.ParseSession;
 import com.myorg.usbparser.service.SectionExtractor;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.pdfbox.pdmodel.PDDocument;
-import org.apache.pdfbox.text.PDFTextStripper;
 
 import java.io.File;
 import java.io.IOException;
-import java.text.Normalizer;
 import java.util.*;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Splits the document into sections at numbered headings. Every page is first reduced to a
+ * {@link PageScan} (its headings and content, which depend on that page alone); the scans are
+ * then joined in page order, so scans of unchanged pages can be reused across parses.
+ */
 @Slf4j
 public class PdfBoxSectionExtractor implements SectionExtractor {
 
-    // headings like "1.2.3 Title" or "1 Title" (need at least one letter in title)
-    private static final Pattern HEADING_PATTERN = Pattern.compile(
-            "^\\s*(\\d+(?:\\.\\d+)*)\\s+(?=.+[A-Za-z])(.+?)\\s*$"
-    );
-
-    private static final Pattern IGNORE_CONTENT = Pattern.compile(
-            "^(Figure\\s+\\d+|Table\\s+\\d+|List of Figures|List of Tables|Revision History)\\b",
-            Pattern.CASE_INSENSITIVE
-    );
-
-    private static final Pattern PRINTED_PAGE_AT_LINE_END = Pattern.compile(".*\\b(\\d{1,4})\\s*$");
-
-    // typical header/footer lines to ignore (case-insensitive)
-    private static final Pattern PAGE_FURNITURE = Pattern.compile(
-            "(?i)^(page\\s+\\d+|universal serial bus power delivery specification|revision history)$"
-    );
-
     private final String docTitle;
 
     public PdfBoxSectionExtractor(String docTitle) {
@@ -44,43 +31,186 @@ public class PdfBoxSectionExtractor implements SectionExtractor {
         Objects.requireNonNull(pdfFile, "pdfFile must not be null");
         if (!pdfFile.exists()) throw new IOException("PDF file does not exist: " + pdfFile.getAbsolutePath());
 
+        try (ParseSession session = PdfBoxParseSession.open(pdfFile)) {
+            return parse(session);
+        }
+    }
+
+    @Override
+    public List<Section> parse(ParseSession session) throws IOException {
         List<Section> sections = new ArrayList<>();
+        extract(session, sections::add, false);
+        return sections;
+    }
 
-        try (PDDocument document = PDDocument.load(pdfFile)) {
-            PDFTextStripper stripper = new PDFTextStripper();
-            // Improve extraction ordering for multi-column / layouted PDFs
-            stripper.setSortByPosition(true);
+    /**
+     * Streaming variant: each section is emitted as soon as the next heading closes it. Every page is
+     * extracted and scanned once, in the first pass (which needs all printed page numbers before the
+     * first section can be emitted), and released right away; the scans are spilled to a temp file
+     * and replayed by the second pass, so memory is bounded by the largest section rather than the
+     * whole document.
+     */
+    @Override
+    public void parse(ParseSession session, Consumer<? super Section> sink) throws IOException {
+        Objects.requireNonNull(sink, "sink must not be null");
+        extract(session, sink, true);
+    }
 
-            int totalPages = document.getNumberOfPages();
-            int[] printed = new int[totalPages + 1]; // 1-based
+    /**
+     * Incremental variant of {@link #parse(ParseSession, Consumer)}: pages for which {@code reuse}
+     * returns a scan (taken from an earlier parse of identical page content) are not extracted
+     * again. Every page's scan, reused or fresh, is handed to {@code scans} in page order.
+     */
+    public void parse(ParseSession session, IntFunction<PageScan> reuse, ObjIntConsumer<PageScan> scans,
+                      Consumer<? super Section> sink) throws IOException {
+        Objects.requireNonNull(reuse, "reuse must not be null");
+        Objects.requireNonNull(scans, "scans must not be null");
+        Objects.requireNonNull(sink, "sink must not be null");
+        extract(session, reuse, scans, sink, true);
+    }
 
-            // First pass: try to detect printed page numbers from last non-empty line
+    /**
+     * ToC-guided variant: only the sections the selector matches are emitted, and only the pages from
+     * the heading of each run of selected ToC entries to the heading of the entry that follows it are
+     * extracted. Each heading is sought on its ToC page shifted by an offset learned from the printed
+     * page number of the first page read, then from every heading found; entries that cannot be found
+     * widen the range to their neighbours in the ToC. A pattern the ToC lists nothing of (a selector
+     * deeper than the ToC) is read over the range of its nearest ancestor in the ToC; when not even
+     * an ancestor is listed, as without a ToC, the whole document is scanned and filtered instead.
+     */
+    public void parse(ParseSession session, List<Section> toc, SectionSelector selector,
+                      Consumer<? super Section> sink) throws IOException {
+        Objects.requireNonNull(session, "session must not be null");
+        Objects.requireNonNull(toc, "toc must not be null");
+        Objects.requireNonNull(selector, "selector must not be null");
+        Objects.requireNonNull(sink, "sink must not be null");
+
+        int[] selected = new int[1];
+        Consumer<Section> filter = section -> {
+            if (selector.matches(section.getSectionId())) {
+                sink.accept(section);
+                selected[0]++;
+            }
+        };
+
+        // ToC entries whose range covers a pattern the ToC does not list
+        List<Integer> ancestors = new ArrayList<>();
+        for (String root : selector.roots()) {
+            if (toc.stream().map(Section::getSectionId)
+                    .anyMatch(id -> id != null && selector.matches(id) && SectionSelector.within(id, root))) {
+                continue;
+            }
+            int ancestor = nearestAncestor(toc, root);
+            if (ancestor < 0) {
+                log.info("No ToC entry of {} covers {}, scanning the whole document", session.getSourceFile().getName(), root);
+                extract(session, filter, true);
+                log.info("Extracted {} sections matching {} from {}", selected[0], selector, session.getSourceFile().getName());
+                return;
+            }
+            ancestors.add(ancestor);
+        }
+
+        int totalPages = session.getPageCount();
+        HeadingSeeker seeker = new HeadingSeeker(session);
+
+        // page ranges [from, to] of every run of consecutive selected ToC entries, in document order
+        List<int[]> ranges = new ArrayList<>();
+        for (int i = 0; i < toc.size(); i++) {
+            if (!selector.matches(toc.get(i).getSectionId())) continue;
+            int j = i;
+            while (j + 1 < toc.size() && selector.matches(toc.get(j + 1).getSectionId())) j++;
+            int from = seeker.locate(toc, i, -1);
+            int to = seeker.locate(toc, j + 1, 1);
+            ranges.add(new int[]{from, Math.max(from, to)});
+            i = j;
+        }
+        for (int ancestor : ancestors) {
+            // the ancestor's section runs until the first entry outside its subtree
+            String id = toc.get(ancestor).getSectionId();
+            int next = ancestor + 1;
+            while (next < toc.size() && toc.get(next).getSectionId() != null
+                    && SectionSelector.within(toc.get(next).getSectionId(), id)) {
+                next++;
+            }
+            int from = seeker.locate(toc, ancestor, -1);
+            int to = seeker.locate(toc, next, 1);
+            ranges.add(new int[]{from, Math.max(from, to)});
+        }
+        ranges.sort(Comparator.comparingInt(r -> r[0]));
+
+        int[] printed = new int[totalPages + 1]; // 1-based, 0 for pages never read
+        List<int[]> merged = new ArrayList<>();
+        for (int[] range : ranges) {
+            int[] last = merged.isEmpty() ? null : merged.get(merged.size() - 1);
+            if (last != null && range[0] <= last[1]) {
+                last[1] = Math.max(last[1], range[1]);
+            } else {
+                merged.add(range);
+            }
+        }
+        // ToC listings inside a range are skipped, their entries would read as headings
+        List<Integer> bodyPages = new ArrayList<>();
+        for (int[] range : merged) {
+            for (int page = range[0]; page <= range[1]; page++) {
+                printed[page] = seeker.scan(page).getPrinted();
+                if (!seeker.tocPages.contains(page)) bodyPages.add(page);
+            }
+        }
+        boolean usePrinted = printedPagesConsistent(printed, bodyPages);
+        if (!usePrinted) Arrays.fill(printed, 0);
+
+        for (int[] range : merged) {
+            Assembler assembler = new Assembler(filter, usePrinted, printed);
+            for (int page = range[0]; page <= range[1]; page++) {
+                if (!seeker.tocPages.contains(page)) assembler.page(page, seeker.scan(page));
+            }
+            assembler.finish();
+        }
+        for (int page : seeker.scans.keySet()) session.releasePage(page);
+
+        log.info("Extracted {} sections matching {} from {} ({} of {} pages read)",
+                selected[0], selector, session.getSourceFile().getName(), seeker.scans.size(), totalPages);
+    }
+
+    /**
+     * Index of the deepest ToC entry above {@code sectionId}, or -1 when the ToC lists none.
+     */
+    private static int nearestAncestor(List<Section> toc, String sectionId) {
+        int nearest = -1;
+        for (int i = 0; i < toc.size(); i++) {
+            String id = toc.get(i).getSectionId();
+            if (id == null || id.equals(sectionId) || !SectionSelector.within(sectionId, id)) continue;
+            if (nearest < 0 || id.length() > toc.get(nearest).getSectionId().length()) nearest = i;
+        }
+        return nearest;
+    }
+
+    private void extract(ParseSession session, Consumer<? super Section> sink, boolean releasePages) throws IOException {
+        extract(session, page -> null, (scan, page) -> {}, sink, releasePages);
+    }
+
+    private void extract(ParseSession session, IntFunction<PageScan> reuse, ObjIntConsumer<PageScan> scans,
+                         Consumer<? super Section> sink, boolean releasePages) throws IOException {
+        Objects.requireNonNull(session, "session must not be null");
+
+        int totalPages = session.getPageCount();
+        int[] printed = new int[totalPages + 1]; // 1-based
+        int reusedPages = 0;
+        Assembler assembler;
+
+        try (PageScanSpill spill = releasePages ? PageScanSpill.onDisk() : PageScanSpill.inMemory()) {
+            // First pass: scan every page (or take its reused scan) and keep the printed page number
+            // detected from its last non-empty line; the scan itself waits in the spill
             for (int p = 1; p <= totalPages; p++) {
-                stripper.setStartPage(p);
-                stripper.setEndPage(p);
-                String pageText = normalize(stripper.getText(document));
-                if (pageText == null) pageText = "";
-                String[] lines = pageText.split("\\r?\\n");
-                for (int i = lines.length - 1; i >= 0; i--) {
-                    String l = lines[i] == null ? "" : lines[i].trim();
-                    if (l.isEmpty()) continue;
-                    // avoid matching dotted leaders "..... 53" in section title
-                    if (l.matches(".*\\.{2,}\\s*\\d+\\s*$")) {
-                        // likely a ToC dotted leader, skip as printed page candidate
-                        break;
-                    }
-                    Matcher m = PRINTED_PAGE_AT_LINE_END.matcher(l);
-                    if (m.matches()) {
-                        try {
-                            int val = Integer.parseInt(m.group(1));
-                            if (val > 0 && val < 10000) {
-                                printed[p] = val;
-                            }
-                        } catch (NumberFormatException ignored) {
-                        }
-                    }
-                    break;
+                PageScan scan = reuse.apply(p);
+                if (scan != null) {
+                    reusedPages++;
+                } else {
+                    scan = scanPage(session.getPageLines(p));
+                    if (releasePages) session.releasePage(p);
                 }
+                printed[p] = scan.getPrinted();
+                spill.add(scan);
             }
 
             // Decide whether printed[] is reliable: check monotonic run
@@ -94,102 +224,278 @@ public class PdfBoxSectionExtractor implements SectionExtractor {
                 log.debug("Using printed page numbers detected on pages.");
             }
 
-            Section current = null;
-            StringBuilder buf = new StringBuilder();
-
+            // Second pass: replay the scans in page order
+            assembler = new Assembler(sink, usePrinted, printed);
             for (int page = 1; page <= totalPages; page++) {
-                stripper.setStartPage(page);
-                stripper.setEndPage(page);
-                String text = normalize(stripper.getText(document));
-                if (text == null) text = "";
-                String[] lines = text.split("\\r?\\n");
-
-                // merge numeric-only id lines with next line (common in broken PDFs)
-                for (int i = 0; i < lines.length; i++) {
-                    String trimmed = lines[i] == null ? "" : lines[i].trim();
-                    if (trimmed.matches("^\\d+(?:\\.\\d+)*$") && i + 1 < lines.length) {
-                        String next = lines[i + 1] == null ? "" : lines[i + 1].trim();
-                        if (next.startsWith("-")) next = next.substring(1).trim();
-                        lines[i + 1] = (trimmed + " " + next).trim();
-                        lines[i] = "";
-                    }
+                PageScan scan = spill.next();
+                scans.accept(scan, page);
+                assembler.page(page, scan);
+            }
+            assembler.finish();
+        }
+
+        if (reusedPages > 0) {
+            log.info("Extracted {} sections from {} ({} of {} pages reused)",
+                    assembler.emitted, session.getSourceFile().getName(), reusedPages, totalPages);
+        } else {
+            log.info("Extracted {} sections from {}", assembler.emitted, session.getSourceFile().getName());
+        }
+    }
+
+    /**
+     * Printed page number at the end of a page's last non-empty line, or 0 when there is none.
+     */
+    private static int printedPage(String[] lines) {
+        for (int i = lines.length - 1; i >= 0; i--) {
+            String l = lines[i];
+            if (l.isEmpty()) continue;
+            // avoid matching dotted leaders "..... 53" in section title
+            if (LineClassifier.endsWithDotLeaderPage(l)) {
+                // likely a ToC dotted leader, skip as printed page candidate
+                return 0;
+            }
+            int val = LineClassifier.printedPageAtLineEnd(l);
+            return val > 0 && val < 10000 ? val : 0;
+        }
+        return 0;
+    }
+
+    /**
+     * Headings and content of one page, independent of the pages around it: content before
+     * the first heading continues the previous page's open section.
+     */
+    static PageScan scanPage(String[] pageLines) {
+        // copy: the merge below rewrites lines and the cached array is shared
+        String[] lines = pageLines.clone();
+
+        // merge numeric-only id lines with next line (common in broken PDFs)
+        for (int i = 0; i < lines.length; i++) {
+            String trimmed = lines[i] == null ? "" : lines[i].trim();
+            if (LineClassifier.isSectionId(trimmed) && i + 1 < lines.length) {
+                String next = lines[i + 1] == null ? "" : lines[i + 1].trim();
+                if (next.startsWith("-")) next = next.substring(1).trim();
+                lines[i + 1] = (trimmed + " " + next).trim();
+                lines[i] = "";
+            }
+        }
+
+        String lead = null;
+        List<PageScan.Head> heads = new ArrayList<>();
+        String sectionId = null;
+        String title = null;
+        StringBuilder buf = new StringBuilder();
+        LineClassifier.Line heading = new LineClassifier.Line();
+
+        for (String raw : lines) {
+            if (raw == null) continue;
+            String line = raw.trim();
+            if (line.isEmpty()) continue;
+
+            // early filter of likely headers/footers
+            if (LineClassifier.isPageFurniture(line)) continue;
+
+            if (LineClassifier.heading(line, heading)) {
+                if (sectionId == null) {
+                    lead = buf.toString();
+                } else {
+                    heads.add(new PageScan.Head(sectionId, title, buf.toString()));
                 }
+                sectionId = heading.sectionId();
+                // Clean title: remove dotted leaders and trailing page numbers, collapse runs of dots/spaces
+                title = LineClassifier.cleanHeadingTitle(heading.title());
+                buf.setLength(0);
+                continue;
+            }
 
-                for (String raw : lines) {
-                    if (raw == null) continue;
-                    String line = raw.trim();
-                    if (line.isEmpty()) continue;
+            // content, appended to whichever section is open at this point
+            if (!LineClassifier.isIgnoredContent(line) && !isLikelyPageFurniture(line)) {
+                if (line.endsWith("-")) {
+                    line = line.substring(0, line.length() - 1);
+                }
+                buf.append(line).append(' ');
+            }
+        }
 
-                    // early filter of likely headers/footers
-                    if (PAGE_FURNITURE.matcher(line).find()) continue;
+        if (sectionId == null) {
+            lead = buf.toString();
+        } else {
+            heads.add(new PageScan.Head(sectionId, title, buf.toString()));
+        }
+        return new PageScan(printedPage(pageLines), lead, heads);
+    }
 
-                    Matcher m = HEADING_PATTERN.matcher(line);
-                    if (m.matches()) {
-                        // finalize previous section (immutable)
-                        if (current != null) {
-                            sections.add(finalizeSection(current, buf));
-                        }
+    /**
+     * Joins page scans into sections; a section is emitted as soon as the next heading closes it.
+     */
+    private final class Assembler {
+        private final Consumer<? super Section> sink;
+        private final boolean usePrinted;
+        private final int[] printed;
+        private final StringBuilder buf = new StringBuilder();
+        private Section current;
+        private int emitted;
+
+        private Assembler(Consumer<? super Section> sink, boolean usePrinted, int[] printed) {
+            this.sink = sink;
+            this.usePrinted = usePrinted;
+            this.printed = printed;
+        }
 
-                        String sectionId = m.group(1).trim();
-                        String title = m.group(2).trim();
-
-                        // Clean title: remove dotted leaders and trailing page numbers
-                        title = title.replaceAll("\\.{2,}\\s*\\d+$", "").trim();
-                        title = title.replaceAll("\\s+\\d+$", "").trim();
-                        // collapse runs of dots or excessive spaces
-                        title = title.replaceAll("[\\.\\s]{2,}", " ").trim();
-
-                        int level = sectionId.split("\\.").length;
-                        String parentId = sectionId.contains(".")
-                                ? sectionId.substring(0, sectionId.lastIndexOf('.'))
-                                : null;
-
-                        Integer pageToSet = null;
-                        if (usePrinted && page <= printed.length - 1 && printed[page] > 0) {
-                            pageToSet = Integer.valueOf(printed[page]);
-                        } else {
-                            // use pdf page index as fallback (but allow null if you prefer)
-                            pageToSet = Integer.valueOf(page);
-                        }
+        void page(int page, PageScan scan) {
+            // content only counts once a section is open
+            if (current != null) buf.append(scan.getLead());
 
-                        log.debug("Heading pdf#{} printed#{} -> {} {}", page,
-                                (page <= printed.length - 1 ? printed[page] : 0), sectionId, title);
-
-                        // Build a new Section (immutable)
-                        current = Section.builder()
-                                .docTitle(docTitle)
-                                .sectionId(sectionId)
-                                .title(title)
-                                .page(pageToSet)
-                                .level(level)
-                                .parentId(parentId)
-                                .fullPath(sectionId + " " + title)
-                                .tags(List.of())
-                                .content(null)
-                                .build();
-
-                        buf.setLength(0);
-                        continue;
-                    }
+            for (PageScan.Head head : scan.getHeads()) {
+                // finalize previous section (immutable)
+                if (current != null) {
+                    sink.accept(finalizeSection(current, buf));
+                    emitted++;
+                }
 
-                    // content appended if we have an active section
-                    if (current != null && !IGNORE_CONTENT.matcher(line).find() && !isLikelyPageFurniture(line)) {
-                        if (line.endsWith("-")) {
-                            line = line.substring(0, line.length() - 1);
-                        }
-                        buf.append(line).append(' ');
-                    }
+                String sectionId = head.getSectionId();
+                String title = head.getTitle();
+                int level = LineClassifier.level(sectionId);
+                String parentId = sectionId.contains(".")
+                        ? sectionId.substring(0, sectionId.lastIndexOf('.'))
+                        : null;
+
+                Integer pageToSet = null;
+                if (usePrinted && page <= printed.length - 1 && printed[page] > 0) {
+                    pageToSet = Integer.valueOf(printed[page]);
+                } else {
+                    // use pdf page index as fallback (but allow null if you prefer)
+                    pageToSet = Integer.valueOf(page);
                 }
+
+                log.debug("Heading pdf#{} printed#{} -> {} {}", page,
+                        (page <= printed.length - 1 ? printed[page] : 0), sectionId, title);
+
+                // Build a new Section (immutable)
+                current = Section.builder()
+                        .docTitle(docTitle)
+                        .sectionId(sectionId)
+                        .title(title)
+                        .page(pageToSet)
+                        .level(level)
+                        .parentId(parentId)
+                        .fullPath(sectionId + " " + title)
+                        .tags(List.of())
+                        .content(null)
+                        .build();
+
+                buf.setLength(0);
+                buf.append(head.getContent());
             }
+        }
 
+        void finish() {
             // finalize last
             if (current != null) {
-                sections.add(finalizeSection(current, buf));
+                sink.accept(finalizeSection(current, buf));
+                emitted++;
             }
         }
+    }
 
-        log.info("Extracted {} sections from {}", sections.size(), pdfFile.getName());
-        return sections;
+    /**
+     * Finds the physical page of a ToC entry's heading near its ToC page, scanning each page once.
+     * Pages of the ToC itself are skipped: their entries read like headings too.
+     */
+    private static final class HeadingSeeker {
+        // pages searched on either side of the expected page
+        private static final int WINDOW = 3;
+        // dotted-leader lines from which a page is taken for a ToC page
+        private static final int TOC_PAGE_LEADERS = 3;
+
+        private final ParseSession session;
+        private final Map<Integer, PageScan> scans = new HashMap<>();
+        private final Set<Integer> tocPages = new HashSet<>();
+        // physical page minus ToC page, once known
+        private Integer offset;
+
+        private HeadingSeeker(ParseSession session) {
+            this.session = session;
+        }
+
+        /**
+         * Page of the heading of {@code toc[index]}, or of the nearest entry in {@code step} direction
+         * whose heading can be found; the first or last page when there is none.
+         */
+        int locate(List<Section> toc, int index, int step) throws IOException {
+            for (int i = index; i >= 0 && i < toc.size(); i += step) {
+                int page = find(toc.get(i));
+                if (page > 0) return page;
+            }
+            return step < 0 ? 1 : session.getPageCount();
+        }
+
+        private int find(Section entry) throws IOException {
+            Integer tocPage = entry.getPage();
+            if (tocPage == null || tocPage <= 0) return 0;
+            if (offset == null) {
+                // printed page numbers trail the physical ones by the front matter; the last page
+                // is nearly always numbered, the entry's own page is tried when it is not
+                offset = 0;
+                for (int probe : new int[]{session.getPageCount(), Math.min(tocPage, session.getPageCount())}) {
+                    int printed = scan(probe).getPrinted();
+                    if (printed > 0) {
+                        offset = probe - printed;
+                        break;
+                    }
+                }
+            }
+            // ToC pages are printed pages, or physical ones for an outline without decimal page labels
+            for (int expected : new int[]{tocPage + offset, tocPage}) {
+                for (int d = 0; d <= WINDOW; d++) {
+                    for (int page : new int[]{expected - d, expected + d}) {
+                        if (page < 1 || page > session.getPageCount()) continue;
+                        if (hasHeading(scan(page), entry.getSectionId()) && !tocPages.contains(page)) {
+                            offset = page - tocPage;
+                            return page;
+                        }
+                    }
+                }
+            }
+            return 0;
+        }
+
+        PageScan scan(int page) throws IOException {
+            PageScan scan = scans.get(page);
+            if (scan == null) {
+                String[] lines = session.getPageLines(page);
+                scan = scanPage(lines);
+                scans.put(page, scan);
+                int leaders = 0;
+                for (String line : lines) {
+                    if (LineClassifier.endsWithDotLeaderPage(line)) leaders++;
+                }
+                if (leaders >= TOC_PAGE_LEADERS) tocPages.add(page);
+            }
+            return scan;
+        }
+
+        private static boolean hasHeading(PageScan scan, String sectionId) {
+            for (PageScan.Head head : scan.getHeads()) {
+                if (head.getSectionId().equals(sectionId)) return true;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Partial-scan counterpart of {@link #shouldUsePrintedPages}: the printed numbers of the body pages
+     * read are used when most of them carry one at a constant distance from the physical page.
+     */
+    private static boolean printedPagesConsistent(int[] printed, Collection<Integer> pages) {
+        Map<Integer, Integer> deltas = new HashMap<>();
+        int nonZero = 0;
+        for (int page : pages) {
+            if (printed[page] <= 0) continue;
+            nonZero++;
+            deltas.merge(page - printed[page], 1, Integer::sum);
+        }
+        int common = deltas.values().stream().max(Integer::compare).orElse(0);
+        return nonZero * 2 >= pages.size() && nonZero > 0 && common > 0.75 * nonZero;
     }
 
     /**
@@ -211,7 +517,7 @@ public class PdfBoxSectionExtractor implements SectionExtractor {
         return nonZero >= Math.max(6, n / 10) && ((double) monotonic / Math.max(1, nonZero - 1) > 0.75);
     }
 
-    private Section finalizeSection(Section head, StringBuilder buf) {
+    private static Section finalizeSection(Section head, StringBuilder buf) {
         String content = (buf == null) ? "" : buf.toString().trim();
         if (content.isEmpty()) {
             content = "[No extractable text — section may contain only figures/tables]";
@@ -230,20 +536,12 @@ public class PdfBoxSectionExtractor implements SectionExtractor {
                 .build();
     }
 
-    private static String normalize(String s) {
-        if (s == null) return "";
-        String n = Normalizer.normalize(s, Normalizer.Form.NFC)
-                .replace('\u00A0', ' ')
-                .replaceAll("[ \\t\\x0B\\f\\r]+", " ");
-        return n;
-    }
-
     private static boolean isLikelyPageFurniture(String line) {
         if (line == null) return false;
         String l = line.toLowerCase().trim();
         if (l.isEmpty()) return true;
         if (l.contains("universal serial bus power delivery specification")) return true;
-        if (l.matches("^page\\s+\\d+\\b.*")) return true;
+        if (LineClassifier.isPageLabel(l)) return true;
         return false;
     }
 }
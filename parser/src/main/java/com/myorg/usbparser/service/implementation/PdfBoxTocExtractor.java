@@ -1,16 +1,20 @@
 package com.myorg.usbparser.service.implementation;
 
 import com.myorg.usbparser.model.Section;
+import com.myorg.usbparser.service.ParseSession;
 import com.myorg.usbparser.service.TocExtractor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.pdfbox.cos.COSDictionary;
 import org.apache.pdfbox.pdmodel.PDDocument;
-import org.apache.pdfbox.text.PDFTextStripper;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.common.PDPageLabels;
+import org.apache.pdfbox.pdmodel.interactive.documentnavigation.outline.PDDocumentOutline;
+import org.apache.pdfbox.pdmodel.interactive.documentnavigation.outline.PDOutlineItem;
 
 import java.io.File;
 import java.io.IOException;
 import java.text.Normalizer;
 import java.util.*;
-import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 /**
@@ -23,23 +27,31 @@ import java.util.regex.Pattern;
  *  - deduplicates by sectionId (first good record kept; prefer non-zero page)
  *  - joins lines when the numeric id is on one line and title on the next
  *  - guarded against pages outside doc length
+ *
+ * Fast path: when the PDF ships a document outline (bookmarks) with enough numbered entries,
+ * the ToC is read from the outline tree instead; no page text is extracted. Missing or sparse
+ * outlines fall back to the text heuristics.
+ *
+ * Page unit: {@code page} is the printed page number the text ToC lists. Outline destinations are
+ * physical pages; they are reported as printed pages through the PDF's page labels when every
+ * destination has a decimal label, and as physical (1-based) pages otherwise.
  */
 @Slf4j
 public class PdfBoxTocExtractor implements TocExtractor {
 
-    private static final Pattern DOTS_PAGE = Pattern.compile("^\\s*(\\d+(?:\\.\\d+)*)\\s+(.+?)\\s*\\.{2,}\\s*(\\d{1,4})\\s*$");
-    private static final Pattern TITLE_PAGE = Pattern.compile("^\\s*(\\d+(?:\\.\\d+)*)\\s+(.+?)\\s+(\\d{1,4})\\s*$");
-    private static final Pattern NUMBER_TITLE = Pattern.compile("^\\s*(\\d+(?:\\.\\d+)*)\\s+(.+?)\\s*$");
-    private static final Pattern TRAILING_PAGE_IN_TITLE = Pattern.compile("(.+?)\\s*\\.*\\s*(\\d{1,4})\\s*$");
-    private static final Pattern ONLY_NUMBER = Pattern.compile("^\\s*(\\d+(?:\\.\\d+)*)\\s*$");
     private static final Pattern REVISION_KEYWORDS = Pattern.compile(
             "\\b(errata|erratum|revision|revision history|including errata|ecn|ecns|editorial changes|initial release|change log)\\b",
             Pattern.CASE_INSENSITIVE);
     private static final Pattern MONTH_WORD = Pattern.compile(
             "\\b(jan(?:uary)?|feb(?:ruary)?|mar(?:ch)?|apr(?:il)?|may|jun(?:e)?|jul(?:y)?|aug(?:ust)?|sep(?:tember)?|oct(?:ober)?|nov(?:ember)?|dec(?:ember)?)\\b",
             Pattern.CASE_INSENSITIVE);
-    private static final Pattern TRAILING_DOTS = Pattern.compile("\\.{2,}\\s*$");
-    private static final Pattern TRAILING_PAGE_NUMBER = Pattern.compile("\\s+\\d{1,4}\\s*$");
+
+    // an outline with fewer numbered entries than this, or with fewer resolvable pages, is considered sparse
+    private static final int MIN_OUTLINE_ENTRIES = 10;
+    private static final double MIN_OUTLINE_PAGED_RATIO = 0.9;
+
+    // leading pages searched for a text ToC; the session caches them in content-stream order too
+    static final int TOC_WINDOW_PAGES = 60;
 
     private final String docTitle;
 
@@ -53,18 +65,33 @@ public class PdfBoxTocExtractor implements TocExtractor {
             throw new IOException("PDF file is null or does not exist: " + (pdfFile == null ? "null" : pdfFile.getAbsolutePath()));
         }
 
+        try (ParseSession session = PdfBoxParseSession.open(pdfFile)) {
+            return parse(session);
+        }
+    }
+
+    @Override
+    public List<Section> parse(ParseSession session) throws IOException {
+        Objects.requireNonNull(session, "session must not be null");
+        File pdfFile = session.getSourceFile();
+
+        if (session instanceof PdfBoxParseSession pdfBox) {
+            List<Section> fromOutline = parseOutline(pdfBox.getDocument());
+            if (fromOutline != null) {
+                log.info("✅ Extracted {} TOC entries from {} (document outline)", fromOutline.size(), pdfFile.getName());
+                return fromOutline;
+            }
+        }
+
         Map<String, Section> byId = new LinkedHashMap<>(); // preserve order, dedupe by id preferring first valid
 
-        try (PDDocument document = PDDocument.load(pdfFile)) {
-            PDFTextStripper stripper = new PDFTextStripper();
-            int docPages = document.getNumberOfPages();
+        try {
+            int docPages = session.getPageCount();
             int currentYear = Calendar.getInstance().get(Calendar.YEAR);
 
             // Read first N pages of the document where TOC usually lives.
-            int maxTocPages = Math.min(60, Math.max(5, docPages));
-            stripper.setStartPage(1);
-            stripper.setEndPage(maxTocPages);
-            String raw = normalize(stripper.getText(document));
+            int maxTocPages = Math.min(TOC_WINDOW_PAGES, Math.max(5, docPages));
+            String raw = normalize(tocWindowText(session, Math.min(maxTocPages, docPages)));
 
             String[] lines = raw.split("\\r?\\n");
             List<String> cleanedLines = new ArrayList<>();
@@ -74,8 +101,7 @@ public class PdfBoxTocExtractor implements TocExtractor {
                 String l = lines[i].trim();
                 if (l.isEmpty()) continue;
 
-                Matcher mNumOnly = ONLY_NUMBER.matcher(l);
-                if (mNumOnly.matches() && i + 1 < lines.length) {
+                if (LineClassifier.isSectionIdLine(l) && i + 1 < lines.length) {
                     String next = lines[i + 1].trim();
                     if (!next.isEmpty()) {
                         cleanedLines.add(l + " " + next);
@@ -85,9 +111,9 @@ public class PdfBoxTocExtractor implements TocExtractor {
                 }
 
                 // If line ends with dot leaders but page on next line, join them
-                if (TRAILING_DOTS.matcher(l).find() && i + 1 < lines.length) {
+                if (LineClassifier.endsWithDotLeader(l) && i + 1 < lines.length) {
                     String next = lines[i + 1].trim();
-                    if (next.matches("^\\d{1,4}$")) {
+                    if (LineClassifier.isPageNumber(next)) {
                         cleanedLines.add(l + " " + next);
                         i++;
                         continue;
@@ -98,6 +124,8 @@ public class PdfBoxTocExtractor implements TocExtractor {
             }
 
             boolean tocStarted = false;
+            LineClassifier.Line entry = new LineClassifier.Line();
+            LineClassifier.Line trailing = new LineClassifier.Line();
 
             for (String line : cleanedLines) {
                 if (line == null || line.trim().isEmpty()) continue;
@@ -111,30 +139,14 @@ public class PdfBoxTocExtractor implements TocExtractor {
                 }
 
                 try {
-                    // 1) dotted leaders with page
-                    Matcher m = DOTS_PAGE.matcher(line);
-                    if (m.matches()) {
-                        String id = m.group(1).trim();
-                        String rawTitle = m.group(2).trim();
-                        int pg = safeParseInt(m.group(3));
-                        pg = validateCandidatePage(pg, docPages, currentYear);
-                        String title = cleanTitle(rawTitle);
+                    LineClassifier.Kind kind = LineClassifier.toc(line, entry);
 
-                        if (!tocStarted && pg > 0) tocStarted = true;
-                        if (!tocStarted) continue;
-
-                        putBest(byId, id, title, pg);
-                        continue;
-                    }
-
-                    // 2) title + page without dotted leaders
-                    m = TITLE_PAGE.matcher(line);
-                    if (m.matches()) {
-                        String id = m.group(1).trim();
-                        String rawTitle = m.group(2).trim();
-                        int pg = safeParseInt(m.group(3));
-                        pg = validateCandidatePage(pg, docPages, currentYear);
-                        String title = cleanTitle(rawTitle);
+                    // 1) dotted leaders with page, 2) title + page without dotted leaders
+                    if (kind == LineClassifier.Kind.DOT_LEADER || kind == LineClassifier.Kind.TITLE_PAGE) {
+                        String id = entry.sectionId();
+                        String rawTitle = entry.title().trim();
+                        int pg = validateCandidatePage(entry.page(), docPages, currentYear);
+                        String title = LineClassifier.cleanTocTitle(rawTitle);
 
                         if (!tocStarted && pg > 0) tocStarted = true;
                         if (!tocStarted) continue;
@@ -144,17 +156,15 @@ public class PdfBoxTocExtractor implements TocExtractor {
                     }
 
                     // 3) number + title, maybe page appended inside title (without dots)
-                    m = NUMBER_TITLE.matcher(line);
-                    if (m.matches()) {
-                        String id = m.group(1).trim();
-                        String rawTitle = m.group(2).trim();
+                    if (kind == LineClassifier.Kind.NUMBER_TITLE) {
+                        String id = entry.sectionId();
+                        String rawTitle = entry.title().trim();
                         // try to find trailing page in title
-                        Matcher trailing = TRAILING_PAGE_IN_TITLE.matcher(rawTitle);
-                        if (trailing.matches()) {
-                            String titlePart = trailing.group(1).trim();
-                            int pg = safeParseInt(trailing.group(2));
+                        if (LineClassifier.trailingPageInTitle(rawTitle, trailing)) {
+                            String titlePart = trailing.title().trim();
+                            int pg = trailing.page();
                             pg = validateCandidatePage(pg, docPages, currentYear);
-                            String title = cleanTitle(titlePart);
+                            String title = LineClassifier.cleanTocTitle(titlePart);
                             if (pg > 0) {
                                 if (!tocStarted && pg > 0) tocStarted = true;
                                 if (!tocStarted) continue;
@@ -162,15 +172,15 @@ public class PdfBoxTocExtractor implements TocExtractor {
                                 continue;
                             } else {
                                 // remove the trailing number anyway
-                                rawTitle = cleanTitle(titlePart);
+                                rawTitle = LineClassifier.cleanTocTitle(titlePart);
                             }
                         } else {
-                            rawTitle = cleanTitle(rawTitle);
+                            rawTitle = LineClassifier.cleanTocTitle(rawTitle);
                         }
 
                         if (!tocStarted) {
                             // heuristics: if this looks like TOC starter, mark started
-                            if (rawTitle.toLowerCase().matches(".*(contents|table of contents|introduction|overview).*")) {
+                            if (looksLikeTocStart(rawTitle)) {
                                 tocStarted = true;
                             } else {
                                 // skip non-TOC lines until we identify toc start
@@ -184,17 +194,17 @@ public class PdfBoxTocExtractor implements TocExtractor {
 
                     // fallback: sometimes line contains title then dots and page separated by multiple spaces
                     // attempt small heuristic: last token numeric
-                    String[] tokens = line.trim().split("\\s+");
-                    String last = tokens[tokens.length - 1];
-                    if (last.matches("\\d{1,4}")) {
+                    String trimmed = line.trim();
+                    int last = LineClassifier.lastTokenStart(trimmed);
+                    if (LineClassifier.isPageNumber(trimmed, last, trimmed.length())) {
                         // find first token that looks like section id (start of line)
-                        String[] parts = line.split("\\s+", 2);
-                        if (parts.length >= 2 && parts[0].matches("\\d+(?:\\.\\d+)*")) {
-                            String id = parts[0].trim();
-                            String rest = parts[1].trim();
-                            int pg = safeParseInt(last);
+                        int idEnd = LineClassifier.firstWhitespace(line);
+                        if (idEnd < line.length() && LineClassifier.isSectionId(line, 0, idEnd)) {
+                            String id = line.substring(0, idEnd);
+                            String rest = line.substring(LineClassifier.skipWhitespace(line, idEnd, line.length())).trim();
+                            int pg = LineClassifier.parseDigits(trimmed, last, trimmed.length());
                             pg = validateCandidatePage(pg, docPages, currentYear);
-                            String title = cleanTitle(rest.replaceAll("\\d{1,4}$", ""));
+                            String title = LineClassifier.cleanTocTitle(LineClassifier.stripTrailingPageDigits(rest));
                             if (!tocStarted && pg > 0) tocStarted = true;
                             if (!tocStarted) continue;
                             putBest(byId, id, title, pg);
@@ -221,6 +231,100 @@ public class PdfBoxTocExtractor implements TocExtractor {
         }
     }
 
+    /**
+     * ToC from the document outline: every bookmark whose title starts with a section number,
+     * depth-first in outline order, first entry per id wins. {@code null} when the outline is
+     * missing or sparse, so the caller falls back to the text heuristics.
+     */
+    private List<Section> parseOutline(PDDocument document) {
+        PDDocumentOutline outline = document.getDocumentCatalog().getDocumentOutline();
+        if (outline == null) return null;
+
+        // physical page number by page object, resolved once instead of indexOf per bookmark
+        Map<COSDictionary, Integer> pageNumbers = new IdentityHashMap<>();
+        int pageNo = 0;
+        for (PDPage page : document.getPages()) {
+            pageNumbers.put(page.getCOSObject(), ++pageNo);
+        }
+
+        Map<String, Section> byId = new LinkedHashMap<>();
+        int paged = 0;
+        Deque<PDOutlineItem> stack = new ArrayDeque<>();
+        pushChildren(stack, outline.getFirstChild());
+        Set<COSDictionary> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        while (!stack.isEmpty()) {
+            PDOutlineItem item = stack.pop();
+            if (!seen.add(item.getCOSObject())) continue; // malformed outline with a cycle
+            pushChildren(stack, item.getFirstChild());
+
+            String title = item.getTitle() == null ? "" : normalize(item.getTitle()).trim();
+            int idEnd = LineClassifier.firstWhitespace(title);
+            if (!LineClassifier.isSectionId(title, 0, idEnd)) continue;
+            String id = title.substring(0, idEnd);
+            if (byId.containsKey(id)) continue;
+
+            int page = 0;
+            try {
+                PDPage target = item.findDestinationPage(document);
+                if (target != null) page = pageNumbers.getOrDefault(target.getCOSObject(), 0);
+            } catch (IOException | RuntimeException e) {
+                log.debug("Unresolvable outline destination for '{}': {}", title, e.toString());
+            }
+            if (page > 0) paged++;
+            byId.put(id, buildSection(id, title.substring(LineClassifier.skipWhitespace(title, idEnd, title.length())), page));
+        }
+
+        if (byId.size() < MIN_OUTLINE_ENTRIES || paged < byId.size() * MIN_OUTLINE_PAGED_RATIO) {
+            log.debug("Document outline too sparse ({} numbered entries, {} with pages); using text heuristics",
+                    byId.size(), paged);
+            return null;
+        }
+        return toPrintedPages(document, new ArrayList<>(byId.values()));
+    }
+
+    /**
+     * Replace physical destination pages with the printed numbers of the PDF's page labels, so
+     * {@code page} means the same as for a text ToC. All or nothing: entries stay physical when the
+     * document has no labels or any destination's label is not a decimal number (e.g. roman front matter).
+     */
+    private List<Section> toPrintedPages(PDDocument document, List<Section> entries) {
+        String[] labels;
+        try {
+            PDPageLabels pageLabels = document.getDocumentCatalog().getPageLabels();
+            if (pageLabels == null) return entries;
+            labels = pageLabels.getLabelsByPageIndices();
+        } catch (IOException | RuntimeException e) {
+            log.debug("Unreadable page labels; outline pages stay physical: {}", e.toString());
+            return entries;
+        }
+
+        int[] printed = new int[entries.size()];
+        for (int i = 0; i < entries.size(); i++) {
+            int page = entries.get(i).getPage();
+            if (page <= 0) continue;
+            String label = page <= labels.length ? labels[page - 1] : null;
+            if (label == null || !LineClassifier.isPageNumber(label)) return entries;
+            printed[i] = Integer.parseInt(label);
+        }
+
+        List<Section> out = new ArrayList<>(entries.size());
+        for (int i = 0; i < entries.size(); i++) {
+            Section e = entries.get(i);
+            out.add(printed[i] > 0 ? buildSection(e.getSectionId(), e.getTitle(), printed[i]) : e);
+        }
+        return out;
+    }
+
+    /** Push an item and its following siblings so they pop in document order. */
+    private static void pushChildren(Deque<PDOutlineItem> stack, PDOutlineItem first) {
+        List<PDOutlineItem> siblings = new ArrayList<>();
+        Set<COSDictionary> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (PDOutlineItem it = first; it != null && seen.add(it.getCOSObject()); it = it.getNextSibling()) {
+            siblings.add(it);
+        }
+        for (int i = siblings.size() - 1; i >= 0; i--) stack.push(siblings.get(i));
+    }
+
     /** Insert or update the dedupe map, preferring the first entry with a valid page or non-empty title. */
     private void putBest(Map<String, Section> map, String sectionId, String title, int page) {
         if (sectionId == null || sectionId.isBlank()) return;
@@ -242,7 +346,7 @@ public class PdfBoxTocExtractor implements TocExtractor {
     }
 
     private Section buildSection(String sectionId, String title, int page) {
-        int level = sectionId.contains(".") ? sectionId.split("\\.").length : 1;
+        int level = LineClassifier.level(sectionId);
         String parentId = sectionId.contains(".") ? sectionId.substring(0, sectionId.lastIndexOf('.')) : null;
         String fullPath = (sectionId + " " + (title == null ? "" : title)).trim();
         return Section.builder()
@@ -257,15 +361,6 @@ public class PdfBoxTocExtractor implements TocExtractor {
                 .build();
     }
 
-    private static int safeParseInt(String raw) {
-        if (raw == null) return 0;
-        try {
-            return Integer.parseInt(raw.trim());
-        } catch (Exception e) {
-            return 0;
-        }
-    }
-
     private static int validateCandidatePage(int candidate, int docPages, int currentYear) {
         if (candidate <= 0) return 0;
         // if candidate looks like a year, ignore it
@@ -275,20 +370,21 @@ public class PdfBoxTocExtractor implements TocExtractor {
         return candidate;
     }
 
-    private static String cleanTitle(String raw) {
-        if (raw == null) return "";
-        String t = raw.trim();
-        // remove any leading section id that sneaked into title
-        t = t.replaceFirst("^\\s*\\d+(?:\\.\\d+)*\\s+", "");
-        // remove dot leaders like "......" and replace with single space
-        t = t.replaceAll("\\.{2,}", " ");
-        // remove trailing page numbers (e.g. "Title 34" -> "Title")
-        t = t.replaceAll("\\s+\\d{1,4}$", "");
-        // remove stray punctuation at end
-        t = t.replaceAll("[\\p{Punct}\\s]+$", "");
-        // normalize multiple spaces
-        t = t.replaceAll("\\s{2,}", " ").trim();
-        return t;
+    private static boolean looksLikeTocStart(String title) {
+        String t = title.toLowerCase();
+        return t.contains("contents") || t.contains("introduction") || t.contains("overview");
+    }
+
+    /**
+     * Text of pages 1..lastPage in content-stream order, as the text heuristics were tuned on
+     * (one unsorted stripper pass); served by the session's page cache with the sorted lines.
+     */
+    private static String tocWindowText(ParseSession session, int lastPage) throws IOException {
+        StringBuilder text = new StringBuilder();
+        for (int p = 1; p <= lastPage; p++) {
+            text.append(session.getUnsortedPageText(p));
+        }
+        return text.toString();
     }
 
     private static String normalize(String s) {
@@ -0,0 +1,282 @@
+package com.myorg.usbparser.service.implementation;
+
+import com.myorg.usbparser.config.CacheProperties;
+import com.myorg.usbparser.config.ParserProperties;
+import com.myorg.usbparser.config.ReportProperties;
+import com.myorg.usbparser.config.StorageProperties;
+import com.myorg.usbparser.model.Section;
+import com.myorg.usbparser.util.AtomicFiles;
+import com.myorg.usbparser.util.FramedGzip;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * Content-addressed cache of parse outputs under {@code <base-path>/cache/<key>/}.
+ *
+ * The key combines the SHA-256 of the uploaded PDF with a fingerprint of the extractor
+ * configuration (the bytecode of the heuristic classes, the default doc title, the report format and
+ * the binary and compressed output settings), so cached results are invalidated automatically when the
+ * heuristics change. Entries are evicted least-recently-used first once {@code cache.max-mb} is exceeded.
+ */
+@Slf4j
+@Component
+public class ResultCache {
+
+    // classes whose behaviour shapes the outputs; any change to them changes the key
+    private static final List<Class<?>> HEURISTIC_CLASSES = List.of(
+            PdfBoxTocExtractor.class,
+            PdfBoxSectionExtractor.class,
+            PageScan.class,
+            Section.class,
+            LineClassifier.class,
+            PageTextCache.class,
+            DualOrderTextStripper.class,
+            PdfBoxParseSession.class,
+            ParallelPageExtractor.class,
+            ParsePipeline.class,
+            PageFingerprint.class,
+            PageIndex.class,
+            SearchIndex.class,
+            BinarySectionWriter.class,
+            ExcelValidator.class,
+            SxssfReportWriter.class,
+            CsvReportWriter.class,
+            JsonReportWriter.class,
+            JacksonJsonlWriter.class,
+            FramedGzip.class);
+
+    private final CacheProperties cacheProperties;
+    private final Path root;
+    private final String configFingerprint;
+
+    // key -> entry size in bytes, in access order (eldest = least recently used)
+    private final LinkedHashMap<String, Long> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+    // guards the entries and the cache directory; a lock rather than a monitor, since file I/O is done
+    // while holding it and a virtual thread blocked inside synchronized would pin its carrier
+    private final ReentrantLock lock = new ReentrantLock();
+
+    public ResultCache(CacheProperties cacheProperties, StorageProperties storageProperties,
+                       ReportProperties reportProperties, ParserProperties parserProperties) {
+        this.cacheProperties = cacheProperties;
+        this.root = Path.of(storageProperties.getBasePath()).toAbsolutePath().normalize().resolve("cache");
+        this.configFingerprint = fingerprint(parserProperties.getDefaultDocTitle() + "|" + reportProperties.getFormat()
+                + "|binary=" + parserProperties.isBinaryOutput()
+                + "|compression=" + parserProperties.getCompression() + "/" + parserProperties.getFrameKb(), HEURISTIC_CLASSES);
+        loadIndex();
+    }
+
+    public boolean isEnabled() {
+        return cacheProperties.isEnabled();
+    }
+
+    /**
+     * Cache key for an upload with the given content hash under the current extractor configuration.
+     */
+    public String keyFor(String contentSha256) {
+        return contentSha256 + "-" + configFingerprint;
+    }
+
+    /**
+     * Cache key for an upload parsed under an explicit doc title (null = the PDF's own title).
+     */
+    public String keyFor(String contentSha256, String docTitle) {
+        if (docTitle == null) return keyFor(contentSha256);
+        return contentSha256 + "-" + fingerprint(configFingerprint + "|title=" + docTitle, List.of());
+    }
+
+    /**
+     * Link (or copy) a cached entry's files into {@code targetDir}; empty when there is no entry.
+     * Cached files are never modified in place, so sharing them by hard link is safe.
+     */
+    public Optional<List<String>> restore(String key, Path targetDir, List<String> fileNames) throws IOException {
+        if (!isEnabled()) return Optional.empty();
+        lock.lock();
+        try {
+            return restoreLocked(key, targetDir, fileNames);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Optional<List<String>> restoreLocked(String key, Path targetDir, List<String> fileNames) throws IOException {
+        if (!entries.containsKey(key)) return Optional.empty();
+        Path entry = root.resolve(key);
+        if (!Files.isDirectory(entry)) {
+            forget(key);
+            return Optional.empty();
+        }
+
+        List<String> restored = new ArrayList<>();
+        for (String name : fileNames) {
+            Path cached = entry.resolve(name);
+            if (!Files.isRegularFile(cached)) continue;
+            Path target = targetDir.resolve(name);
+            Path temp = AtomicFiles.tempFor(target);
+            Files.deleteIfExists(temp);
+            try {
+                Files.createLink(temp, cached);
+            } catch (IOException | UnsupportedOperationException e) {
+                Files.copy(cached, temp, StandardCopyOption.REPLACE_EXISTING);
+            }
+            AtomicFiles.publish(temp, target);
+            restored.add(name);
+        }
+        Files.setLastModifiedTime(entry, FileTime.fromMillis(System.currentTimeMillis()));
+        log.info("Result cache hit {} ({} files)", key, restored.size());
+        return Optional.of(restored);
+    }
+
+    /**
+     * Store a finished job's outputs, then evict least-recently-used entries beyond the size cap.
+     */
+    public void store(String key, Path sourceDir, List<String> fileNames) throws IOException {
+        if (!isEnabled()) return;
+        lock.lock();
+        try {
+            storeLocked(key, sourceDir, fileNames);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void storeLocked(String key, Path sourceDir, List<String> fileNames) throws IOException {
+        if (entries.containsKey(key)) return;
+        Files.createDirectories(root);
+
+        Path staging = Files.createTempDirectory(root, ".staging-");
+        long size = 0;
+        try {
+            for (String name : fileNames) {
+                Path source = sourceDir.resolve(name);
+                if (!Files.isRegularFile(source)) continue;
+                Files.copy(source, staging.resolve(name));
+                size += Files.size(source);
+            }
+            try {
+                Files.move(staging, root.resolve(key), StandardCopyOption.ATOMIC_MOVE);
+            } catch (FileAlreadyExistsException e) {
+                deleteRecursively(staging);
+            }
+        } catch (IOException e) {
+            deleteRecursively(staging);
+            throw e;
+        }
+
+        entries.put(key, size);
+        totalBytes += size;
+        evict();
+    }
+
+    private void evict() {
+        long maxBytes = Math.max(0, cacheProperties.getMaxMb()) * 1024 * 1024;
+        var it = entries.entrySet().iterator();
+        while (totalBytes > maxBytes && it.hasNext()) {
+            Map.Entry<String, Long> eldest = it.next();
+            try {
+                deleteRecursively(root.resolve(eldest.getKey()));
+            } catch (IOException e) {
+                log.warn("Could not evict cache entry {}: {}", eldest.getKey(), e.toString());
+                continue;
+            }
+            totalBytes -= eldest.getValue();
+            it.remove();
+            log.info("Result cache evicted {}", eldest.getKey());
+        }
+    }
+
+    private void forget(String key) {
+        Long size = entries.remove(key);
+        if (size != null) totalBytes -= size;
+    }
+
+    /**
+     * Rebuild the LRU index from disk, oldest access (directory mtime) first.
+     */
+    private void loadIndex() {
+        if (!Files.isDirectory(root)) return;
+        try (Stream<Path> s = Files.list(root)) {
+            s.filter(Files::isDirectory)
+                    .filter(p -> !p.getFileName().toString().startsWith("."))
+                    .sorted(Comparator.comparing(ResultCache::lastModified))
+                    .forEach(p -> {
+                        long size = sizeOf(p);
+                        entries.put(p.getFileName().toString(), size);
+                        totalBytes += size;
+                    });
+        } catch (IOException e) {
+            log.warn("Could not index result cache {}: {}", root, e.toString());
+        }
+    }
+
+    /**
+     * Short SHA-256 over the settings string and the bytecode of the given classes.
+     */
+    static String fingerprint(String settings, List<Class<?>> classes) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            md.update(settings.getBytes(StandardCharsets.UTF_8));
+            for (Class<?> c : classes) digest(md, c);
+            return HexFormat.of().formatHex(md.digest()).substring(0, 16);
+        } catch (NoSuchAlgorithmException | IOException e) {
+            throw new IllegalStateException("Could not fingerprint extractor configuration", e);
+        }
+    }
+
+    /**
+     * Adds the bytecode of a class and, recursively, of its nested classes (by binary name, e.g.
+     * {@code PdfBoxSectionExtractor$Assembler.class}).
+     */
+    private static void digest(MessageDigest md, Class<?> c) throws IOException {
+        String file = c.getName().substring(c.getPackageName().length() + 1) + ".class";
+        try (InputStream in = c.getResourceAsStream(file)) {
+            if (in != null) md.update(in.readAllBytes());
+        }
+        for (Class<?> nested : c.getDeclaredClasses()) digest(md, nested);
+    }
+
+    private static FileTime lastModified(Path p) {
+        try {
+            return Files.getLastModifiedTime(p);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    private static long sizeOf(Path dir) {
+        try (Stream<Path> s = Files.walk(dir)) {
+            return s.filter(Files::isRegularFile).mapToLong(p -> p.toFile().length()).sum();
+        } catch (IOException e) {
+            return 0L;
+        }
+    }
+
+    private static void deleteRecursively(Path dir) throws IOException {
+        if (!Files.exists(dir)) return;
+        try (Stream<Path> s = Files.walk(dir)) {
+            for (Path p : s.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(p);
+            }
+        }
+    }
+}
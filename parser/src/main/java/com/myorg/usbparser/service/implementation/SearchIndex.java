@@ -0,0 +1,496 @@
+package com.myorg.usbparser.service.implementation;
+
+import com.myorg.usbparser.model.Section;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * Full-text inverted index over section titles and content, persisted next to the sections JSONL
+ * as {@code usb_pd_sections.search.bin}. Every token maps to a posting list of section ordinals
+ * (line numbers of the JSONL) with term frequencies and token positions, all kept in flat int arrays.
+ *
+ * Tokens are maximal runs of letters, digits and underscores, lower-cased, so {@code Source_Capabilities}
+ * stays one token; the indexed text of a section is its title followed by its content. Queries rank
+ * sections by BM25 over their terms; quoted phrases must also occur at consecutive positions.
+ */
+public final class SearchIndex {
+
+    public static final String FILE = "usb_pd_sections.search.bin";
+
+    private static final int MAGIC = 0x55534253; // "USBS"
+    private static final int VERSION = 1;
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    // per section ordinal
+    private final String[] sectionIds;
+    private final String[] titles;
+    private final int[] pages;      // 0 when the section has no page
+    private final int[] lengths;    // tokens
+    private final double avgLength;
+
+    private final Map<String, Integer> termIds;
+    private final int[] termStart;  // postings of term t: termStart[t] until termStart[t + 1]
+    private final int[] postDoc;    // section ordinal, ascending within a term
+    private final int[] postFreq;
+    private final int[] postPos;    // positions of posting p: positions[postPos[p]] until positions[postPos[p + 1]]
+    private final int[] positions;
+
+    private SearchIndex(String[] sectionIds, String[] titles, int[] pages, int[] lengths, String[] terms,
+                        int[] termStart, int[] postDoc, int[] postFreq, int[] postPos, int[] positions) {
+        this.sectionIds = sectionIds;
+        this.titles = titles;
+        this.pages = pages;
+        this.lengths = lengths;
+        this.avgLength = Math.max(1.0, Arrays.stream(lengths).average().orElse(1.0));
+        this.termIds = new HashMap<>(Math.max(16, terms.length * 2));
+        for (int t = 0; t < terms.length; t++) termIds.put(terms[t], t);
+        this.termStart = termStart;
+        this.postDoc = postDoc;
+        this.postFreq = postFreq;
+        this.postPos = postPos;
+        this.positions = positions;
+    }
+
+    /**
+     * One ranked section; {@code positions} are the token positions of the query terms in it, ascending.
+     */
+    public record Hit(int ordinal, double score, int[] positions) {}
+
+    public record Ranking(int totalHits, List<Hit> hits) {}
+
+    /**
+     * Text a section is indexed by; snippets are cut from the same text.
+     */
+    public static String text(Section section) {
+        String title = section.getTitle() == null ? "" : section.getTitle();
+        String content = section.getContent() == null ? "" : section.getContent();
+        return title + "\n" + content;
+    }
+
+    public int size() {
+        return sectionIds.length;
+    }
+
+    public String sectionId(int ordinal) {
+        return sectionIds[ordinal];
+    }
+
+    public String title(int ordinal) {
+        return titles[ordinal];
+    }
+
+    public Integer page(int ordinal) {
+        return pages[ordinal] > 0 ? pages[ordinal] : null;
+    }
+
+    /**
+     * Best {@code limit} sections for the query, highest score first.
+     */
+    public Ranking search(String query, int limit) {
+        List<String[]> phrases = new ArrayList<>();
+        Set<String> words = new LinkedHashSet<>();
+        parseQuery(query, words, phrases);
+
+        int n = sectionIds.length;
+        double[] scores = new double[n];
+        List<Integer> queryTerms = new ArrayList<>();
+        for (String word : words) {
+            Integer t = termIds.get(word);
+            if (t == null) continue;
+            queryTerms.add(t);
+            int df = termStart[t + 1] - termStart[t];
+            double idf = Math.log(1 + (n - df + 0.5) / (df + 0.5));
+            for (int p = termStart[t]; p < termStart[t + 1]; p++) {
+                int doc = postDoc[p];
+                int tf = postFreq[p];
+                double norm = K1 * (1 - B + B * lengths[doc] / avgLength);
+                scores[doc] += idf * tf * (K1 + 1) / (tf + norm);
+            }
+        }
+
+        int[][] phraseTerms = new int[phrases.size()][];
+        for (int i = 0; i < phrases.size(); i++) {
+            String[] phrase = phrases.get(i);
+            phraseTerms[i] = new int[phrase.length];
+            for (int j = 0; j < phrase.length; j++) {
+                Integer t = termIds.get(phrase[j]);
+                if (t == null) return new Ranking(0, List.of()); // a phrase term that never occurs
+                phraseTerms[i][j] = t;
+            }
+        }
+
+        // min-heap of the best `limit` ordinals
+        PriorityQueue<Integer> best = new PriorityQueue<>((a, b) -> scores[a] != scores[b]
+                ? Double.compare(scores[a], scores[b])
+                : Integer.compare(b, a));
+        int total = 0;
+        for (int doc = 0; doc < n; doc++) {
+            if (scores[doc] <= 0 || !containsPhrases(doc, phraseTerms)) continue;
+            total++;
+            best.add(doc);
+            if (best.size() > Math.max(1, limit)) best.poll();
+        }
+
+        Hit[] hits = new Hit[best.size()];
+        for (int i = hits.length - 1; i >= 0; i--) {
+            int doc = best.poll();
+            hits[i] = new Hit(doc, scores[doc], positionsOf(doc, queryTerms));
+        }
+        return new Ranking(total, List.of(hits));
+    }
+
+    /**
+     * About {@code window} tokens of {@code text} around the densest run of {@code hit} positions, with
+     * every query term wrapped in {@code <em>...</em>}.
+     */
+    public static String snippet(String text, Hit hit, String query, int window) {
+        Set<String> words = new LinkedHashSet<>();
+        parseQuery(query, words, new ArrayList<>());
+
+        // window start: the position after which most hit positions fall within `window` tokens
+        int[] pos = hit.positions();
+        int from = 0;
+        int bestCount = 0;
+        for (int i = 0, j = 0; i < pos.length; i++) {
+            while (j < pos.length && pos[j] < pos[i] + window) j++;
+            if (j - i > bestCount) {
+                bestCount = j - i;
+                from = pos[i];
+            }
+        }
+        int first = Math.max(0, from - window / 4);
+        int last = first + window; // exclusive
+
+        StringBuilder out = new StringBuilder();
+        int[] token = {0};
+        int[] copied = {-1};   // text offset copied up to; -1 before the first token of the window
+        tokenize(text, (term, start, end) -> {
+            int t = token[0]++;
+            if (t < first || t >= last) return;
+            if (copied[0] < 0) {
+                if (t > 0) out.append('\u2026');
+                copied[0] = start;
+            }
+            out.append(text, copied[0], start);
+            boolean match = words.contains(term);
+            if (match) out.append("<em>");
+            out.append(text, start, end);
+            if (match) out.append("</em>");
+            copied[0] = end;
+        });
+        if (token[0] > last) {
+            out.append('\u2026');
+        } else if (copied[0] >= 0) {
+            out.append(text, copied[0], text.length());
+        }
+        return out.toString().replace('\n', ' ').trim();
+    }
+
+    // ===== Persistence =====
+
+    public void write(Path file) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(sectionIds.length);
+            for (int i = 0; i < sectionIds.length; i++) {
+                writeString(out, sectionIds[i]);
+                writeString(out, titles[i]);
+                out.writeInt(pages[i]);
+                out.writeInt(lengths[i]);
+            }
+            // postings as varints: per term its document frequency, then per posting the section delta,
+            // the frequency and the position deltas
+            String[] terms = new String[termIds.size()];
+            termIds.forEach((term, t) -> terms[t] = term);
+            out.writeInt(terms.length);
+            out.writeInt(positions.length);
+            for (int t = 0; t < terms.length; t++) {
+                writeString(out, terms[t]);
+                writeVarint(out, termStart[t + 1] - termStart[t]);
+                int doc = 0;
+                for (int p = termStart[t]; p < termStart[t + 1]; p++) {
+                    writeVarint(out, postDoc[p] - doc);
+                    doc = postDoc[p];
+                    writeVarint(out, postFreq[p]);
+                    int pos = 0;
+                    for (int k = postPos[p]; k < postPos[p + 1]; k++) {
+                        writeVarint(out, positions[k] - pos);
+                        pos = positions[k];
+                    }
+                }
+            }
+        }
+    }
+
+    public static SearchIndex read(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Unsupported search index: " + file);
+            }
+            int n = in.readInt();
+            String[] sectionIds = new String[n];
+            String[] titles = new String[n];
+            int[] pages = new int[n];
+            int[] lengths = new int[n];
+            for (int i = 0; i < n; i++) {
+                sectionIds[i] = readString(in);
+                titles[i] = readString(in);
+                pages[i] = in.readInt();
+                lengths[i] = in.readInt();
+            }
+            String[] terms = new String[in.readInt()];
+            int[] positions = new int[in.readInt()];
+            int[] termStart = new int[terms.length + 1];
+            IntList postDoc = new IntList();
+            IntList postFreq = new IntList();
+            IntList postPos = new IntList();
+            int q = 0;
+            for (int t = 0; t < terms.length; t++) {
+                terms[t] = readString(in);
+                termStart[t] = postDoc.size;
+                int df = readVarint(in);
+                int doc = 0;
+                for (int i = 0; i < df; i++) {
+                    doc += readVarint(in);
+                    int freq = readVarint(in);
+                    postDoc.add(doc);
+                    postFreq.add(freq);
+                    postPos.add(q);
+                    int pos = 0;
+                    for (int k = 0; k < freq; k++) {
+                        pos += readVarint(in);
+                        positions[q++] = pos;
+                    }
+                }
+            }
+            termStart[terms.length] = postDoc.size;
+            postPos.add(q);
+            return new SearchIndex(sectionIds, titles, pages, lengths, terms,
+                    termStart, postDoc.toArray(), postFreq.toArray(), postPos.toArray(), positions);
+        }
+    }
+
+    /**
+     * Collects sections in JSONL order; ordinals are assigned by the order of {@link #add}.
+     */
+    public static final class Builder {
+        private final List<String> sectionIds = new ArrayList<>();
+        private final List<String> titles = new ArrayList<>();
+        private final IntList pages = new IntList();
+        private final IntList lengths = new IntList();
+        private final Map<String, Postings> postings = new HashMap<>();
+
+        public void add(Section section) {
+            int doc = sectionIds.size();
+            sectionIds.add(section.getSectionId());
+            titles.add(section.getTitle());
+            pages.add(section.getPage() == null ? 0 : section.getPage());
+
+            Map<String, IntList> docTerms = new HashMap<>();
+            int[] count = {0};
+            tokenize(text(section), (term, start, end) ->
+                    docTerms.computeIfAbsent(term, k -> new IntList()).add(count[0]++));
+            lengths.add(count[0]);
+            docTerms.forEach((term, pos) -> postings.computeIfAbsent(term, k -> new Postings()).add(doc, pos));
+        }
+
+        public SearchIndex build() {
+            String[] terms = postings.keySet().toArray(new String[0]);
+            Arrays.sort(terms);
+            int postingCount = 0;
+            int positionCount = 0;
+            for (Postings p : postings.values()) {
+                postingCount += p.docs.size;
+                positionCount += p.positions.size;
+            }
+
+            int[] termStart = new int[terms.length + 1];
+            int[] postDoc = new int[postingCount];
+            int[] postFreq = new int[postingCount];
+            int[] postPos = new int[postingCount + 1];
+            int[] positions = new int[positionCount];
+            int p = 0;
+            int q = 0;
+            for (int t = 0; t < terms.length; t++) {
+                termStart[t] = p;
+                Postings list = postings.get(terms[t]);
+                for (int i = 0; i < list.docs.size; i++, p++) {
+                    postDoc[p] = list.docs.values[i];
+                    postFreq[p] = list.freqs.values[i];
+                    postPos[p] = q;
+                    System.arraycopy(list.positions.values, list.starts.values[i], positions, q, postFreq[p]);
+                    q += postFreq[p];
+                }
+            }
+            termStart[terms.length] = p;
+            postPos[postingCount] = q;
+            return new SearchIndex(sectionIds.toArray(new String[0]), titles.toArray(new String[0]),
+                    pages.toArray(), lengths.toArray(), terms, termStart, postDoc, postFreq, postPos, positions);
+        }
+    }
+
+    // ===== Internals =====
+
+    interface TokenConsumer {
+        void accept(String term, int start, int end);
+    }
+
+    static void tokenize(String text, TokenConsumer consumer) {
+        int n = text.length();
+        int i = 0;
+        while (i < n) {
+            while (i < n && !isTokenChar(text.charAt(i))) i++;
+            int start = i;
+            while (i < n && isTokenChar(text.charAt(i))) i++;
+            if (i > start) consumer.accept(text.substring(start, i).toLowerCase(Locale.ROOT), start, i);
+        }
+    }
+
+    private static boolean isTokenChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '_';
+    }
+
+    /**
+     * Words of the query (all of them, phrase words included) and its quoted phrases.
+     */
+    private static void parseQuery(String query, Set<String> words, List<String[]> phrases) {
+        String[] parts = (query == null ? "" : query).split("\"", -1);
+        for (int i = 0; i < parts.length; i++) {
+            List<String> tokens = new ArrayList<>();
+            tokenize(parts[i], (term, start, end) -> tokens.add(term));
+            words.addAll(tokens);
+            // odd parts sit between quotes
+            if (i % 2 == 1 && tokens.size() > 1) phrases.add(tokens.toArray(new String[0]));
+        }
+    }
+
+    private boolean containsPhrases(int doc, int[][] phraseTerms) {
+        for (int[] phrase : phraseTerms) {
+            if (!containsPhrase(doc, phrase)) return false;
+        }
+        return true;
+    }
+
+    private boolean containsPhrase(int doc, int[] phrase) {
+        int[] postings = new int[phrase.length];
+        for (int j = 0; j < phrase.length; j++) {
+            postings[j] = posting(phrase[j], doc);
+            if (postings[j] < 0) return false;
+        }
+        for (int k = postPos[postings[0]]; k < postPos[postings[0] + 1]; k++) {
+            int first = positions[k];
+            boolean all = true;
+            for (int j = 1; j < phrase.length && all; j++) {
+                all = Arrays.binarySearch(positions, postPos[postings[j]], postPos[postings[j] + 1], first + j) >= 0;
+            }
+            if (all) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Index of term {@code t}'s posting for section {@code doc}, or -1.
+     */
+    private int posting(int t, int doc) {
+        int p = Arrays.binarySearch(postDoc, termStart[t], termStart[t + 1], doc);
+        return p >= 0 ? p : -1;
+    }
+
+    private int[] positionsOf(int doc, List<Integer> terms) {
+        IntList out = new IntList();
+        for (int t : terms) {
+            int p = posting(t, doc);
+            if (p < 0) continue;
+            for (int k = postPos[p]; k < postPos[p + 1]; k++) out.add(positions[k]);
+        }
+        int[] sorted = out.toArray();
+        Arrays.sort(sorted);
+        return sorted;
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        if (s == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int len = in.readInt();
+        if (len < 0) return null;
+        byte[] bytes = new byte[len];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // unsigned LEB128: 7 bits per byte, high bit set on all but the last
+    private static void writeVarint(DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static int readVarint(DataInputStream in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+        throw new IOException("Malformed varint in search index");
+    }
+
+    /**
+     * Posting list of one term while building: per section its frequency and where its positions start.
+     */
+    private static final class Postings {
+        private final IntList docs = new IntList();
+        private final IntList freqs = new IntList();
+        private final IntList starts = new IntList();
+        private final IntList positions = new IntList();
+
+        void add(int doc, IntList pos) {
+            docs.add(doc);
+            freqs.add(pos.size);
+            starts.add(positions.size);
+            for (int i = 0; i < pos.size; i++) positions.add(pos.values[i]);
+        }
+    }
+
+    private static final class IntList {
+        private int[] values = new int[4];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) values = Arrays.copyOf(values, size * 2);
+            values[size++] = value;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
@@ -0,0 +1,318 @@
+package com.myorg.usbparser.service.implementation;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.myorg.usbparser.model.Section;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * Read-only lookup structures over one job's {@code usb_pd_sections.jsonl}, built in one pass over
+ * the file. Only ids, pages, levels and the byte range of every line are kept in memory; matching
+ * sections are read back from the file by position.
+ *
+ * <ul>
+ *   <li>a trie over the id components, for exact ids and id prefixes ({@code 6.4} and below)</li>
+ *   <li>an interval tree over the pages each section spans, from its heading page to the next heading's</li>
+ *   <li>a parent id to children map</li>
+ * </ul>
+ * Results are section ordinals in document order. A section id may occur more than once (e.g. a ToC
+ * listing read as headings); every occurrence is indexed.
+ */
+public final class SectionIndex {
+
+    private static final ObjectReader READER = new ObjectMapper().readerFor(Section.class);
+    private static final int[] NONE = new int[0];
+
+    private final Path file;
+    private final String[] ids;
+    private final int[] levels;
+    private final int[] firstPages;
+    private final int[] lastPages;
+    private final long[] offsets;
+    private final int[] lengths;
+    private final Node root = new Node();
+    private final Map<String, int[]> children;
+
+    // interval tree: ordinals with a page, sorted by first page; maxEnd[i] is the largest last page
+    // in the implicit subtree rooted at i (midpoint recursion over the sorted array)
+    private final int[] byStart;
+    private final int[] starts;
+    private final int[] ends;
+    private final int[] maxEnd;
+
+    private SectionIndex(Path file, List<Section> heads, long[] offsets, int[] lengths) {
+        this.file = file;
+        int n = heads.size();
+        this.ids = new String[n];
+        this.levels = new int[n];
+        this.offsets = offsets;
+        this.lengths = lengths;
+
+        int[] firstPage = this.firstPages = new int[n];
+        Map<String, List<Integer>> kids = new HashMap<>();
+        for (int i = 0; i < n; i++) {
+            Section s = heads.get(i);
+            ids[i] = s.getSectionId();
+            levels[i] = s.getLevel() == null ? 0 : s.getLevel();
+            firstPage[i] = s.getPage() == null ? 0 : s.getPage();
+            if (ids[i] != null && LineClassifier.isSectionId(ids[i])) root.insert(ids[i], i);
+            if (s.getParentId() != null) kids.computeIfAbsent(s.getParentId(), k -> new ArrayList<>()).add(i);
+        }
+        this.children = new HashMap<>(Math.max(16, kids.size() * 2));
+        kids.forEach((parent, list) -> children.put(parent, list.stream().mapToInt(Integer::intValue).toArray()));
+
+        // a section runs until the next heading, which may sit further down the same page
+        int[] lastPage = this.lastPages = new int[n];
+        int next = 0;
+        for (int i = n - 1; i >= 0; i--) {
+            lastPage[i] = next >= firstPage[i] ? next : firstPage[i];
+            if (firstPage[i] > 0) next = firstPage[i];
+        }
+        this.byStart = IntStream.range(0, n)
+                .filter(i -> firstPage[i] > 0)
+                .boxed()
+                .sorted((a, b) -> firstPage[a] != firstPage[b] ? Integer.compare(firstPage[a], firstPage[b]) : Integer.compare(a, b))
+                .mapToInt(Integer::intValue)
+                .toArray();
+        this.starts = new int[byStart.length];
+        this.ends = new int[byStart.length];
+        for (int i = 0; i < byStart.length; i++) {
+            starts[i] = firstPage[byStart[i]];
+            ends[i] = lastPage[byStart[i]];
+        }
+        this.maxEnd = new int[byStart.length];
+        buildMaxEnd(0, byStart.length - 1);
+    }
+
+    /**
+     * Index a sections JSONL file: one line per section, UTF-8, {@code \n}-terminated.
+     */
+    public static SectionIndex build(Path file) throws IOException {
+        Lines lines = new Lines();
+        ByteArrayOutputStream line = new ByteArrayOutputStream(4096);
+        byte[] chunk = new byte[1 << 16];
+        long position = 0;  // file offset of chunk[0]
+        long lineStart = 0;
+        try (InputStream in = Files.newInputStream(file)) {
+            int read;
+            while ((read = in.read(chunk)) >= 0) {
+                int from = 0;
+                for (int i = 0; i < read; i++) {
+                    if (chunk[i] != '\n') continue;
+                    line.write(chunk, from, i - from);
+                    lines.add(line, lineStart);
+                    from = i + 1;
+                    lineStart = position + from;
+                }
+                line.write(chunk, from, read - from);
+                position += read;
+            }
+            lines.add(line, lineStart);
+        }
+        int n = lines.heads.size();
+        return new SectionIndex(file, lines.heads, Arrays.copyOf(lines.offsets, n), Arrays.copyOf(lines.lengths, n));
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    /**
+     * Every occurrence of a section id.
+     */
+    public int[] byId(String sectionId) {
+        Node node = root.find(sectionId);
+        return node == null ? NONE : node.ordinals();
+    }
+
+    /**
+     * A section and every section below it, e.g. {@code 6.4} matches 6.4, 6.4.1 and 6.4.1.2 but not 6.40.
+     */
+    public int[] byPrefix(String prefix) {
+        Node node = root.find(prefix);
+        if (node == null) return NONE;
+        IntList out = new IntList();
+        node.collect(out);
+        return out.sorted();
+    }
+
+    public int[] children(String sectionId) {
+        return children.getOrDefault(sectionId, NONE);
+    }
+
+    /**
+     * Sections whose page span overlaps {@code from..to} (inclusive).
+     */
+    public int[] byPages(int from, int to) {
+        IntList out = new IntList();
+        overlapping(0, byStart.length - 1, from, to, out);
+        return out.sorted();
+    }
+
+    public int[] byLevel(int level) {
+        IntList out = new IntList();
+        for (int i = 0; i < levels.length; i++) {
+            if (levels[i] == level) out.add(i);
+        }
+        return out.toArray();
+    }
+
+    public int[] all() {
+        return IntStream.range(0, ids.length).toArray();
+    }
+
+    public String sectionId(int ordinal) {
+        return ids[ordinal];
+    }
+
+    public int level(int ordinal) {
+        return levels[ordinal];
+    }
+
+    public boolean overlapsPages(int ordinal, int from, int to) {
+        return firstPages[ordinal] > 0 && firstPages[ordinal] <= to && lastPages[ordinal] >= from;
+    }
+
+    /**
+     * Read the given sections back from the file, in the given order.
+     */
+    public List<Section> read(int[] ordinals) throws IOException {
+        List<Section> out = new ArrayList<>(ordinals.length);
+        if (ordinals.length == 0) return out;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            for (int ordinal : ordinals) {
+                ByteBuffer buf = ByteBuffer.allocate(lengths[ordinal]);
+                long pos = offsets[ordinal];
+                while (buf.hasRemaining()) {
+                    if (channel.read(buf, pos + buf.position()) < 0) {
+                        throw new IOException("Sections file " + file + " is shorter than its index");
+                    }
+                }
+                out.add(READER.readValue(buf.array()));
+            }
+        }
+        return out;
+    }
+
+    private void buildMaxEnd(int lo, int hi) {
+        if (lo > hi) return;
+        int mid = (lo + hi) >>> 1;
+        buildMaxEnd(lo, mid - 1);
+        buildMaxEnd(mid + 1, hi);
+        int max = ends[mid];
+        if (lo <= mid - 1) max = Math.max(max, maxEnd[(lo + mid - 1) >>> 1]);
+        if (mid + 1 <= hi) max = Math.max(max, maxEnd[(mid + 1 + hi) >>> 1]);
+        maxEnd[mid] = max;
+    }
+
+    private void overlapping(int lo, int hi, int from, int to, IntList out) {
+        if (lo > hi) return;
+        int mid = (lo + hi) >>> 1;
+        if (maxEnd[mid] < from) return; // nothing in this subtree reaches the range
+        overlapping(lo, mid - 1, from, to, out);
+        if (starts[mid] > to) return;   // neither this node nor anything to its right starts in time
+        if (ends[mid] >= from) out.add(byStart[mid]);
+        overlapping(mid + 1, hi, from, to, out);
+    }
+
+    /**
+     * Trie node for one id component; holds the ordinals of the sections with exactly this id.
+     * Components are kept as written: a heading number may have any number of digits.
+     */
+    private static final class Node {
+        private Map<String, Node> next;
+        private int[] ordinals = NONE;
+
+        void insert(String sectionId, int ordinal) {
+            Node node = this;
+            int start = 0;
+            while (start <= sectionId.length()) {
+                int dot = sectionId.indexOf('.', start);
+                int end = dot < 0 ? sectionId.length() : dot;
+                if (node.next == null) node.next = new HashMap<>();
+                node = node.next.computeIfAbsent(sectionId.substring(start, end), c -> new Node());
+                start = end + 1;
+            }
+            node.ordinals = Arrays.copyOf(node.ordinals, node.ordinals.length + 1);
+            node.ordinals[node.ordinals.length - 1] = ordinal;
+        }
+
+        Node find(String sectionId) {
+            if (sectionId == null || !LineClassifier.isSectionId(sectionId)) return null;
+            Node node = this;
+            int start = 0;
+            while (node != null && start <= sectionId.length()) {
+                int dot = sectionId.indexOf('.', start);
+                int end = dot < 0 ? sectionId.length() : dot;
+                node = node.next == null ? null : node.next.get(sectionId.substring(start, end));
+                start = end + 1;
+            }
+            return node;
+        }
+
+        int[] ordinals() {
+            return ordinals.clone();
+        }
+
+        void collect(IntList out) {
+            for (int ordinal : ordinals) out.add(ordinal);
+            if (next != null) next.values().forEach(child -> child.collect(out));
+        }
+    }
+
+    /**
+     * Parsed lines of the file being indexed, with the byte range of each.
+     */
+    private static final class Lines {
+        private final List<Section> heads = new ArrayList<>();
+        private long[] offsets = new long[1024];
+        private int[] lengths = new int[1024];
+
+        void add(ByteArrayOutputStream line, long offset) throws IOException {
+            if (line.size() == 0) return;
+            int n = heads.size();
+            if (n == offsets.length) {
+                offsets = Arrays.copyOf(offsets, n * 2);
+                lengths = Arrays.copyOf(lengths, n * 2);
+            }
+            offsets[n] = offset;
+            lengths[n] = line.size();
+            heads.add(READER.readValue(line.toByteArray()));
+            line.reset();
+        }
+    }
+
+    private static final class IntList {
+        private int[] values = new int[16];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) values = Arrays.copyOf(values, size * 2);
+            values[size++] = value;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+
+        int[] sorted() {
+            int[] out = toArray();
+            Arrays.sort(out);
+            return out;
+        }
+    }
+}
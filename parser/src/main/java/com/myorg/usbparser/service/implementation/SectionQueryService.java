@@ -0,0 +1,182 @@
+package com.myorg.usbparser.service.implementation;
+
+import com.myorg.usbparser.config.QueryProperties;
+import com.myorg.usbparser.model.SearchHit;
+import com.myorg.usbparser.model.SearchResult;
+import com.myorg.usbparser.model.Section;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Section lookups and full-text search for the query endpoints. Each job's {@link SectionIndex} is built
+ * when the job finishes (or on the first query after a restart); its {@link SearchIndex} is loaded from
+ * the file the pipeline persisted. The most recently used ones are kept in memory, up to
+ * {@code query.cached-indexes} each; an index is reloaded when its file changes.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SectionQueryService {
+
+    private final QueryProperties queryProperties;
+
+    // snippet length in tokens
+    private static final int SNIPPET_TOKENS = 24;
+
+    // job directory -> index, in access order (eldest = least recently used)
+    private final LinkedHashMap<Path, Cached<SectionIndex>> indexes = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<Path, Cached<SearchIndex>> searchIndexes = new LinkedHashMap<>(16, 0.75f, true);
+
+    private record Cached<T>(FileTime modified, T index) {}
+
+    private interface Loader<T> {
+        T load(Path file) throws IOException;
+    }
+
+    /**
+     * Index the sections of a finished job ahead of the first query.
+     */
+    public void build(Path jobDir) throws IOException {
+        index(jobDir);
+    }
+
+    /**
+     * The body occurrence of a section: when an id occurs more than once (e.g. also on a ToC page
+     * read as headings), the last occurrence is returned.
+     */
+    public Optional<Section> find(Path jobDir, String sectionId) throws IOException {
+        Optional<SectionIndex> index = index(jobDir);
+        if (index.isEmpty()) return Optional.empty();
+        int[] ordinals = index.get().byId(sectionId);
+        if (ordinals.length == 0) return Optional.empty();
+        return Optional.of(index.get().read(new int[]{ordinals[ordinals.length - 1]}).get(0));
+    }
+
+    public Optional<List<Section>> children(Path jobDir, String sectionId) throws IOException {
+        Optional<SectionIndex> index = index(jobDir);
+        if (index.isEmpty()) return Optional.empty();
+        return Optional.of(index.get().read(index.get().children(sectionId)));
+    }
+
+    /**
+     * Sections matching every given filter (null = not filtered), in document order. The most selective
+     * structure supplies the candidates; the remaining filters are checked per candidate.
+     */
+    public Optional<List<Section>> query(Path jobDir, String prefix, Integer level,
+                                         Integer fromPage, Integer toPage) throws IOException {
+        Optional<SectionIndex> found = index(jobDir);
+        if (found.isEmpty()) return Optional.empty();
+        SectionIndex index = found.get();
+
+        boolean byPages = fromPage != null && toPage != null;
+        int[] candidates;
+        if (prefix != null) {
+            candidates = index.byPrefix(prefix);
+        } else if (byPages) {
+            candidates = index.byPages(fromPage, toPage);
+        } else if (level != null) {
+            candidates = index.byLevel(level);
+        } else {
+            candidates = index.all();
+        }
+
+        int[] matches = Arrays.stream(candidates)
+                .filter(i -> level == null || index.level(i) == level)
+                .filter(i -> !byPages || index.overlapsPages(i, fromPage, toPage))
+                .toArray();
+        return Optional.of(index.read(matches));
+    }
+
+    /**
+     * Sections ranked by BM25 for {@code q}, each with a highlighted snippet of its text.
+     */
+    public Optional<SearchResult> search(Path jobDir, String q, int limit) throws IOException {
+        Optional<SectionIndex> sections = index(jobDir);
+        if (sections.isEmpty()) return Optional.empty();
+        SearchIndex search = searchIndex(jobDir, sections.get());
+
+        long t0 = System.nanoTime();
+        SearchIndex.Ranking ranking = search.search(q, limit);
+        long tookMicros = (System.nanoTime() - t0) / 1_000;
+
+        int[] ordinals = ranking.hits().stream().mapToInt(SearchIndex.Hit::ordinal).toArray();
+        List<Section> texts = sections.get().read(ordinals);
+        List<SearchHit> hits = new ArrayList<>(ordinals.length);
+        for (int i = 0; i < ordinals.length; i++) {
+            SearchIndex.Hit hit = ranking.hits().get(i);
+            hits.add(SearchHit.builder()
+                    .sectionId(search.sectionId(hit.ordinal()))
+                    .title(search.title(hit.ordinal()))
+                    .page(search.page(hit.ordinal()))
+                    .score(hit.score())
+                    .snippet(SearchIndex.snippet(SearchIndex.text(texts.get(i)), hit, q, SNIPPET_TOKENS))
+                    .build());
+        }
+        return Optional.of(SearchResult.builder()
+                .query(q)
+                .totalHits(ranking.totalHits())
+                .tookMicros(tookMicros)
+                .hits(hits)
+                .build());
+    }
+
+    private Optional<SectionIndex> index(Path jobDir) throws IOException {
+        Path file = jobDir.resolve(ParsePipeline.SECTIONS_FILE);
+        if (!Files.isRegularFile(file)) return Optional.empty();
+        return Optional.of(cached(indexes, jobDir, file, f -> {
+            long t0 = System.nanoTime();
+            SectionIndex index = SectionIndex.build(f);
+            log.info("Indexed {} sections of {} in {} ms", index.size(), jobDir.getFileName(),
+                    (System.nanoTime() - t0) / 1_000_000);
+            return index;
+        }));
+    }
+
+    /**
+     * The persisted search index; jobs written before it existed get one built from their sections.
+     */
+    private SearchIndex searchIndex(Path jobDir, SectionIndex sections) throws IOException {
+        Path file = jobDir.resolve(SearchIndex.FILE);
+        if (Files.isRegularFile(file)) return cached(searchIndexes, jobDir, file, SearchIndex::read);
+        return cached(searchIndexes, jobDir, jobDir.resolve(ParsePipeline.SECTIONS_FILE), f -> {
+            SearchIndex.Builder builder = new SearchIndex.Builder();
+            sections.read(sections.all()).forEach(builder::add);
+            return builder.build();
+        });
+    }
+
+    private <T> T cached(LinkedHashMap<Path, Cached<T>> cache, Path jobDir, Path file, Loader<T> loader)
+            throws IOException {
+        FileTime modified = Files.getLastModifiedTime(file);
+        synchronized (cache) {
+            Cached<T> cached = cache.get(jobDir);
+            if (cached != null && cached.modified().equals(modified)) return cached.index();
+        }
+
+        T index = loader.load(file);
+
+        synchronized (cache) {
+            cache.put(jobDir, new Cached<>(modified, index));
+            int excess = cache.size() - Math.max(1, queryProperties.getCachedIndexes());
+            Iterator<Map.Entry<Path, Cached<T>>> it = cache.entrySet().iterator();
+            while (excess-- > 0 && it.hasNext()) {
+                it.next();
+                it.remove();
+            }
+        }
+        return index;
+    }
+}
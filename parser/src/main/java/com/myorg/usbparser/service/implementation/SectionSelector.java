@@ -0,0 +1,76 @@
+package com.myorg.usbparser.service.implementation;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Section ids requested for a targeted parse, e.g. {@code "6.4.*"} or {@code "2.1, 6.4.*"}.
+ *
+ * Patterns are comma separated: {@code 6.4} selects that section alone, {@code 6.4.*} selects
+ * 6.4 and every section below it.
+ */
+public final class SectionSelector {
+
+    private final String expression;
+    private final List<String> exact = new ArrayList<>();
+    private final List<String> subtrees = new ArrayList<>();
+
+    private SectionSelector(String expression) {
+        this.expression = expression;
+    }
+
+    /**
+     * @throws IllegalArgumentException when a pattern is not a section id, optionally followed by {@code .*}
+     */
+    public static SectionSelector parse(String expression) {
+        if (expression == null || expression.isBlank()) {
+            throw new IllegalArgumentException("Section selector is empty");
+        }
+        SectionSelector selector = new SectionSelector(expression.trim());
+        for (String part : expression.split(",")) {
+            String pattern = part.trim();
+            if (pattern.isEmpty()) continue;
+            boolean subtree = pattern.endsWith(".*");
+            String id = subtree ? pattern.substring(0, pattern.length() - 2) : pattern;
+            if (!LineClassifier.isSectionId(id)) {
+                throw new IllegalArgumentException("Not a section id pattern: " + pattern);
+            }
+            (subtree ? selector.subtrees : selector.exact).add(id);
+        }
+        if (selector.exact.isEmpty() && selector.subtrees.isEmpty()) {
+            throw new IllegalArgumentException("Section selector is empty");
+        }
+        return selector;
+    }
+
+    public boolean matches(String sectionId) {
+        if (sectionId == null) return false;
+        if (exact.contains(sectionId)) return true;
+        for (String root : subtrees) {
+            if (within(sectionId, root)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Section ids the patterns name, those of single sections and subtree roots alike.
+     */
+    List<String> roots() {
+        List<String> roots = new ArrayList<>(exact);
+        roots.addAll(subtrees);
+        return roots;
+    }
+
+    /**
+     * Whether {@code sectionId} is {@code root} or a section below it.
+     */
+    static boolean within(String sectionId, String root) {
+        return sectionId.startsWith(root)
+                && (sectionId.length() == root.length() || sectionId.charAt(root.length()) == '.');
+    }
+
+    @Override
+    public String toString() {
+        return expression;
+    }
+}
@@ -0,0 +1,149 @@
+package com.myorg.usbparser.service.implementation;
+
+import com.myorg.usbparser.model.ValidationResult;
+import com.myorg.usbparser.service.ReportWriter;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Font;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Excel validation report written through POI's streaming SXSSF workbook: only the last
+ * {@code rowWindow} rows of a sheet stay in memory, older rows are flushed to a temp file.
+ *
+ * Flushed rows can no longer be measured, so column widths are computed from the cell text
+ * up front instead of with {@code autoSizeColumn}.
+ */
+public class SxssfReportWriter implements ReportWriter {
+
+    private static final String SUMMARY_SHEET = "Summary";
+    private static final String MISSING_SHEET = "Missing Sections";
+    private static final String EXTRA_SHEET = "Extra Sections";
+    private static final String TABLES_SHEET = "Table Counts";
+
+    private static final String[] LIST_HEADER = {"section_id", "title | page | full_path"};
+    private static final int MAX_WIDTH = 255 * 256; // Excel's column width limit, in 1/256 of a character
+
+    private final int rowWindow;
+
+    public SxssfReportWriter() {
+        this(100);
+    }
+
+    public SxssfReportWriter(int rowWindow) {
+        this.rowWindow = Math.max(1, rowWindow);
+    }
+
+    @Override
+    public void write(ValidationResult result, File outputFile) throws IOException {
+        SXSSFWorkbook workbook = new SXSSFWorkbook(rowWindow);
+        try (OutputStream out = new FileOutputStream(outputFile)) {
+            CellStyle header = workbook.createCellStyle();
+            Font bold = workbook.createFont();
+            bold.setBold(true);
+            header.setFont(bold);
+
+            Map<String, Integer> tables = result.getTableCounts();
+            List<String> missing = result.getMissingSections();
+            List<String> extra = result.getExtraSections();
+
+            String[][] summary = {
+                    {"Metric", "Value"},
+                    {"TOC Sections", String.valueOf(result.getTocSectionCount())},
+                    {"Parsed Sections", String.valueOf(result.getParsedSectionCount())},
+                    {"Missing Sections", String.valueOf(result.getMissingCount())},
+                    {"Extra Sections", String.valueOf(result.getExtraCount())},
+                    {"Tables (TOC total)", String.valueOf(val(tables, "toc_tables_total"))},
+                    {"Tables (Parsed total)", String.valueOf(val(tables, "parsed_tables_total"))},
+                    null,
+                    {"Missing sample (top 5)", String.join(" || ", missing.subList(0, Math.min(5, missing.size())))},
+                    {"Extra sample (top 5)", String.join(" || ", extra.subList(0, Math.min(5, extra.size())))}
+            };
+            writeTable(workbook.createSheet(SUMMARY_SHEET), summary, header);
+
+            writeSectionList(workbook.createSheet(MISSING_SHEET), missing, header);
+            writeSectionList(workbook.createSheet(EXTRA_SHEET), extra, header);
+
+            String[][] tableCounts = {
+                    {"Source", "Tables Total"},
+                    {"ToC", String.valueOf(val(tables, "toc_tables_total"))},
+                    {"Parsed", String.valueOf(val(tables, "parsed_tables_total"))}
+            };
+            writeTable(workbook.createSheet(TABLES_SHEET), tableCounts, header);
+
+            workbook.write(out);
+        } finally {
+            workbook.dispose();
+            workbook.close();
+        }
+    }
+
+    /**
+     * Small fixed sheet; the first row is the header, {@code null} rows are left empty.
+     */
+    private static void writeTable(Sheet sheet, String[][] rows, CellStyle header) {
+        int[] widths = new int[2];
+        for (int i = 0; i < rows.length; i++) {
+            if (rows[i] == null) continue;
+            addRow(sheet, i, rows[i][0], rows[i][1], i == 0 ? header : null);
+            widths[0] = Math.max(widths[0], rows[i][0].length());
+            widths[1] = Math.max(widths[1], rows[i][1].length());
+        }
+        setWidths(sheet, widths);
+    }
+
+    private static void writeSectionList(Sheet sheet, List<String> lines, CellStyle header) {
+        int[] widths = {LIST_HEADER[0].length(), LIST_HEADER[1].length()};
+        for (String line : lines) {
+            widths[0] = Math.max(widths[0], column(line, 0).length());
+            widths[1] = Math.max(widths[1], column(line, 1).length());
+        }
+        setWidths(sheet, widths);
+
+        addRow(sheet, 0, LIST_HEADER[0], LIST_HEADER[1], header);
+        for (int i = 0; i < lines.size(); i++) {
+            addRow(sheet, i + 1, column(lines.get(i), 0), column(lines.get(i), 1), null);
+        }
+    }
+
+    private static void addRow(Sheet sheet, int rowIndex, String key, String value, CellStyle style) {
+        Row row = sheet.createRow(rowIndex);
+        Cell k = row.createCell(0);
+        k.setCellValue(key);
+        Cell v = row.createCell(1);
+        v.setCellValue(value);
+        if (style != null) {
+            k.setCellStyle(style);
+            v.setCellStyle(style);
+        }
+    }
+
+    private static void setWidths(Sheet sheet, int[] chars) {
+        for (int c = 0; c < chars.length; c++) {
+            sheet.setColumnWidth(c, Math.min(MAX_WIDTH, (chars[c] + 2) * 256));
+        }
+    }
+
+    /**
+     * Column of a "id | title | page=N" report line, as shown in the section sheets.
+     */
+    private static String column(String reportLine, int col) {
+        if (reportLine == null) return "";
+        String[] parts = reportLine.split("\\|", 3);
+        return col < parts.length ? parts[col].trim() : "";
+    }
+
+    private static int val(Map<String, Integer> m, String k) {
+        Integer v = m.get(k);
+        return v == null ? 0 : v;
+    }
+}
@@ -3,22 +3,42 @@ package com.myorg.usbparser.service.processing;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.myorg.usbparser.model.Section;
+import com.myorg.usbparser.util.FramedGzip;
 
 import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileWriter;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
+/**
+ * Writes sections as UTF-8 JSONL; a {@code .gz} file name gets line-aligned framed gzip (see {@link FramedGzip}).
+ */
 public final class JsonlWriter {
     private static final ObjectMapper mapper = new ObjectMapper()
             .findAndRegisterModules()
             .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
 
+    /** Uncompressed text per gzip frame when none is given; the default of {@code parser.frame-kb}. */
+    public static final int DEFAULT_FRAME_BYTES = 256 * 1024;
+
     private JsonlWriter() {}
 
     public static void writeJsonl(List<Section> sections, File outFile) throws IOException {
-        try (BufferedWriter w = new BufferedWriter(new FileWriter(outFile))) {
+        writeJsonl(sections, outFile, DEFAULT_FRAME_BYTES);
+    }
+
+    /**
+     * @param frameBytes uncompressed text per frame of a {@code .gz} output
+     */
+    public static void writeJsonl(List<Section> sections, File outFile, int frameBytes) throws IOException {
+        // the file is a resource of its own: it is closed even when the gzip wrapper cannot be created
+        try (OutputStream file = new FileOutputStream(outFile);
+             OutputStream out = outFile.getName().endsWith(".gz") ? FramedGzip.output(file, frameBytes) : file;
+             BufferedWriter w = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8))) {
             for (Section s : sections) {
                 String json = mapper.writeValueAsString(s);
                 w.write(json);
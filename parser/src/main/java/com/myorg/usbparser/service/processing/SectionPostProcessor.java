@@ -2,103 +2,272 @@ package com.myorg.usbparser.service.processing;
 
 import com.myorg.usbparser.model.Section;
 
-import java.util.*;
-import java.util.stream.Collectors;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 /**
- * Simple post-processor for Sections:
- *  1) deduplicate sections by section_id (keep the "best" entry)
- *  2) set missing parentId when parent can be inferred from sectionId
- *  3) sort result by page then sectionId
+ * Post-processor for Sections, fed one section at a time:
+ *  1) deduplicate sections by section_id, keeping the "best" entry as they arrive
+ *  2) set missing parentId when the parent can be inferred from sectionId
+ *  3) emit the result sorted by page, then section id in numeric order (6.2 before 6.10)
+ *
+ * Dotted numeric ids of up to {@value #MAX_DEPTH} components below {@value #MAX_COMPONENT} are packed
+ * into a {@code long} (component + 1 in 10 bits each, first component highest, so packed keys sort like
+ * the ids) and deduplicated in an open-addressing table; other ids, and sections without an id (keyed by
+ * full path and page), go through a plain map and sort after the numeric ids of their page.
  */
-public final class SectionPostProcessor {
+public final class SectionPostProcessor implements Consumer<Section> {
 
-    private SectionPostProcessor() {}
+    static final int MAX_DEPTH = 6;
+    static final int MAX_COMPONENT = 1022;
+    private static final int BITS = 10;
+    private static final long MASK = (1L << BITS) - 1;
+    private static final long NOT_PACKABLE = -1;
+
+    // packed id -> winner ordinal; a key of 0 marks a free slot (a packed id is never 0)
+    private long[] keys = new long[1024];
+    private int[] slots = new int[1024];
+    private int packedCount;
+    private final Map<String, Integer> other = new HashMap<>();
+
+    private Section[] winners = new Section[256];
+    private long[] winnerKeys = new long[256];
+    private int count;
 
     /**
-     * Clean sections: dedupe and infer parentId.
+     * Clean sections: dedupe, infer parentId and sort.
      */
     public static List<Section> cleanSections(List<Section> sections) {
         if (sections == null || sections.isEmpty()) return Collections.emptyList();
+        SectionPostProcessor processor = new SectionPostProcessor();
+        sections.forEach(processor);
+        return processor.result();
+    }
+
+    @Override
+    public void accept(Section s) {
+        if (s == null) return;
+        long key = pack(s.getSectionId());
+        int ordinal = key == NOT_PACKABLE ? otherOrdinal(s) : packedOrdinal(key);
+        if (ordinal < count) {
+            if (better(s, winners[ordinal])) winners[ordinal] = s;
+            return;
+        }
+        if (count == winners.length) {
+            winners = Arrays.copyOf(winners, count * 2);
+            winnerKeys = Arrays.copyOf(winnerKeys, count * 2);
+        }
+        winners[count] = s;
+        winnerKeys[count] = key;
+        count++;
+    }
 
-        // 1) Group by sectionId (null/empty ids kept but deduped by content length)
-        Map<String, List<Section>> byId = sections.stream()
-                .collect(Collectors.groupingBy(s -> s.getSectionId() == null ? "" : s.getSectionId()));
-
-        // choose best section for each id
-        Map<String, Section> best = new HashMap<>();
-        for (Map.Entry<String, List<Section>> e : byId.entrySet()) {
-            String id = e.getKey();
-            List<Section> list = e.getValue();
-
-            // pick the Section with the longest non-placeholder content; tie-breaker: lowest page
-            Section winner = list.stream().max(Comparator.comparingInt((Section s) -> {
-                        String c = s.getContent() == null ? "" : s.getContent().trim();
-                        // penalize placeholder marker so real content wins
-                        int placeholderPenalty = c.startsWith("[No extractable text") ? 0 : c.length();
-                        return placeholderPenalty;
-                    }).thenComparingInt(s -> s.getPage() == null ? Integer.MAX_VALUE : -s.getPage()) // prefer lower page
-            ).orElse(list.get(0));
-
-            best.put(id, winner);
+    /**
+     * The deduplicated sections with inferred parents, sorted.
+     */
+    public List<Section> result() {
+        // order: packed ids in numeric order, then the other ids by string, each group under its page
+        long[] sortedKeys = new long[packedCount];
+        int[] others = new int[count - packedCount];
+        for (int i = 0, p = 0, o = 0; i < count; i++) {
+            if (winnerKeys[i] == NOT_PACKABLE) others[o++] = i;
+            else sortedKeys[p++] = winnerKeys[i];
+        }
+        Arrays.sort(sortedKeys);
+        int[] rank = new int[count];
+        for (int r = 0; r < sortedKeys.length; r++) rank[packedOrdinal(sortedKeys[r], false)] = r;
+        Integer[] byId = new Integer[others.length];
+        for (int o = 0; o < others.length; o++) byId[o] = others[o];
+        Arrays.sort(byId, Comparator.comparing(i -> winners[i].getSectionId() == null ? "" : winners[i].getSectionId()));
+        for (int o = 0; o < byId.length; o++) rank[byId[o]] = packedCount + o;
+
+        long[] order = new long[count];
+        for (int i = 0; i < count; i++) {
+            Integer page = winners[i].getPage();
+            order[i] = (long) (page == null ? Integer.MAX_VALUE : page) << 32 | rank[i];
         }
+        Arrays.sort(order);
+        int[] byRank = new int[count];
+        for (int i = 0; i < count; i++) byRank[rank[i]] = i;
 
-        // 2) Infer parentId when missing and numeric parent exists
-        // Build id->section map for lookups
-        Map<String, Section> idMap = new HashMap<>(best);
-        List<Section> output = new ArrayList<>();
-
-        for (Section s : best.values()) {
-            String sid = s.getSectionId();
-            String parentId = s.getParentId();
-
-            if ((parentId == null || parentId.trim().isEmpty()) && sid != null && sid.contains(".")) {
-                // attempt to infer: remove last dot segment
-                String inferred = sid.substring(0, sid.lastIndexOf('.'));
-                if (idMap.containsKey(inferred)) {
-                    parentId = inferred;
-                } else {
-                    // sometimes TOC split leads to e.g. "1.0 1.0 Initial..." - try trimming trailing zeros
-                    String trimmed = tryTrimTrailingZeros(inferred);
-                    if (trimmed != null && idMap.containsKey(trimmed)) {
-                        parentId = trimmed;
-                    } // else keep null
-                }
+        List<Section> output = new ArrayList<>(count);
+        for (long o : order) {
+            int i = byRank[(int) o];
+            output.add(withParent(winners[i], winnerKeys[i]));
+        }
+        return output;
+    }
+
+    /**
+     * Pack a dotted numeric id, or {@link #NOT_PACKABLE}.
+     */
+    static long pack(String id) {
+        if (id == null || id.isEmpty()) return NOT_PACKABLE;
+        long key = 0;
+        int depth = 0;
+        int component = -1;
+        for (int i = 0, n = id.length(); i <= n; i++) {
+            char c = i < n ? id.charAt(i) : '.';
+            if (c >= '0' && c <= '9') {
+                if (component == 0) return NOT_PACKABLE; // leading zero: "06" must not become "6"
+                component = (component < 0 ? 0 : component * 10) + (c - '0');
+                if (component > MAX_COMPONENT) return NOT_PACKABLE;
+            } else if (c == '.' && component >= 0 && depth < MAX_DEPTH) {
+                key |= (component + 1L) << (BITS * (MAX_DEPTH - 1 - depth));
+                depth++;
+                component = -1;
+            } else {
+                return NOT_PACKABLE;
             }
+        }
+        return key;
+    }
+
+    private static int depth(long key) {
+        int depth = MAX_DEPTH;
+        while (depth > 0 && (key >>> (BITS * (MAX_DEPTH - depth)) & MASK) == 0) depth--;
+        return depth;
+    }
 
-            // build a new Section object (Section is immutable-ish via builder)
-            Section fixed = Section.builder()
-                    .docTitle(s.getDocTitle())
-                    .sectionId(s.getSectionId())
-                    .title(s.getTitle())
-                    .page(s.getPage())
-                    .level(s.getLevel())
-                    .parentId(parentId)
-                    .fullPath(s.getFullPath())
-                    .tags(s.getTags() == null ? List.of() : s.getTags())
-                    .content(s.getContent())
-                    .build();
-
-            output.add(fixed);
+    private static long component(long key, int index) {
+        return (key >>> (BITS * (MAX_DEPTH - 1 - index)) & MASK) - 1;
+    }
+
+    private static long truncate(long key, int depth) {
+        return depth == 0 ? 0 : key & (-1L << (BITS * (MAX_DEPTH - depth)));
+    }
+
+    private static String unpack(long key) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0, depth = depth(key); i < depth; i++) {
+            if (i > 0) sb.append('.');
+            sb.append(component(key, i));
         }
+        return sb.toString();
+    }
 
-        // 3) Sort by page (nulls at end) then sectionId lexicographically
-        output.sort(Comparator
-                .comparing((Section s) -> s.getPage() == null ? Integer.MAX_VALUE : s.getPage())
-                .thenComparing(s -> s.getSectionId() == null ? "" : s.getSectionId()));
+    private Section withParent(Section s, long key) {
+        if (s.getParentId() != null && !s.getParentId().trim().isEmpty()) return s;
+        String parentId = key == NOT_PACKABLE ? inferParent(s.getSectionId()) : inferParent(key);
+        if (parentId == null) return s;
+        return Section.builder()
+                .docTitle(s.getDocTitle())
+                .sectionId(s.getSectionId())
+                .title(s.getTitle())
+                .page(s.getPage())
+                .level(s.getLevel())
+                .parentId(parentId)
+                .fullPath(s.getFullPath())
+                .tags(s.getTags())
+                .content(s.getContent())
+                .build();
+    }
 
-        return output;
+    // the id without its last component, when present; otherwise that id without trailing ".0"s
+    // (a ToC split can yield e.g. "1.0 1.0 Initial...")
+    private String inferParent(long key) {
+        int depth = depth(key);
+        if (depth < 2) return null;
+        long parent = truncate(key, depth - 1);
+        if (contains(parent)) return unpack(parent);
+        int d = depth - 1;
+        while (d > 1 && component(parent, d - 1) == 0) d--;
+        return d < depth - 1 && contains(truncate(parent, d)) ? unpack(truncate(parent, d)) : null;
+    }
+
+    private String inferParent(String sid) {
+        if (sid == null || !sid.contains(".")) return null;
+        String inferred = sid.substring(0, sid.lastIndexOf('.'));
+        if (contains(inferred)) return inferred;
+        String trimmed = inferred;
+        while (trimmed.endsWith(".0")) trimmed = trimmed.substring(0, trimmed.length() - 2);
+        return !trimmed.equals(inferred) && !trimmed.isEmpty() && contains(trimmed) ? trimmed : null;
+    }
+
+    private boolean contains(String id) {
+        long key = pack(id);
+        return key == NOT_PACKABLE ? other.containsKey(id) : contains(key);
+    }
+
+    private boolean contains(long key) {
+        return packedOrdinal(key, false) >= 0;
+    }
+
+    /**
+     * Winner ordinal for a packed id; a new id is given ordinal {@code count}.
+     */
+    private int packedOrdinal(long key) {
+        return packedOrdinal(key, true);
+    }
+
+    private int packedOrdinal(long key, boolean insert) {
+        int mask = keys.length - 1;
+        for (int i = mix(key) & mask; ; i = (i + 1) & mask) {
+            if (keys[i] == key) return slots[i];
+            if (keys[i] == 0) {
+                if (!insert) return -1;
+                keys[i] = key;
+                slots[i] = count;
+                if (++packedCount * 2 > keys.length) grow();
+                return count;
+            }
+        }
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        int[] oldSlots = slots;
+        keys = new long[oldKeys.length * 2];
+        slots = new int[oldKeys.length * 2];
+        int mask = keys.length - 1;
+        for (int j = 0; j < oldKeys.length; j++) {
+            if (oldKeys[j] == 0) continue;
+            int i = mix(oldKeys[j]) & mask;
+            while (keys[i] != 0) i = (i + 1) & mask;
+            keys[i] = oldKeys[j];
+            slots[i] = oldSlots[j];
+        }
+    }
+
+    private static int mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        return (int) key;
     }
 
-    private static String tryTrimTrailingZeros(String id) {
-        // e.g. "1.0.1.0" -> "1.0.1" or "1.0" -> "1"
-        String cur = id;
-        while (cur.contains(".")) {
-            if (cur.endsWith(".0")) {
-                cur = cur.substring(0, cur.length() - 2);
-            } else break;
-            if (!cur.contains(".")) break;
+    private int otherOrdinal(Section s) {
+        String id = s.getSectionId();
+        if (id == null) {
+            // no id: one entry per full path and page
+            id = (s.getFullPath() == null ? "" : s.getFullPath()) + "@p" + (s.getPage() == null ? "0" : s.getPage());
         }
-        return cur.isEmpty() ? null : cur;
+        return other.computeIfAbsent(id, k -> count);
+    }
+
+    /**
+     * Whether {@code candidate} beats the current winner: longer content, where the "[No extractable text"
+     * placeholder counts as none, then a lower page; the first seen wins ties.
+     */
+    private static boolean better(Section candidate, Section current) {
+        int candidateLength = contentLength(candidate.getContent());
+        int currentLength = contentLength(current.getContent());
+        if (candidateLength != currentLength) return candidateLength > currentLength;
+        Integer candidatePage = candidate.getPage();
+        Integer currentPage = current.getPage();
+        if (candidatePage == null) return false;
+        return currentPage == null || candidatePage < currentPage;
+    }
+
+    private static int contentLength(String c) {
+        if (c == null) return 0;
+        String trimmed = c.trim();
+        return trimmed.startsWith("[No extractable text") ? 0 : trimmed.length();
     }
 }
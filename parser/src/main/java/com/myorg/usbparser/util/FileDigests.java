@@ -0,0 +1,41 @@
+package com.myorg.usbparser.util;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Content hashes of files read through memory-mapped windows, so the bytes go from the
+ * page cache into the digest without an intermediate heap buffer.
+ */
+public final class FileDigests {
+
+    private static final long WINDOW = 64L * 1024 * 1024;
+
+    private FileDigests() {}
+
+    /**
+     * Hex SHA-256 of the file's content.
+     */
+    public static String sha256(Path file) throws IOException {
+        MessageDigest md;
+        try {
+            md = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            for (long pos = 0; pos < size; pos += WINDOW) {
+                MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, pos, Math.min(WINDOW, size - pos));
+                md.update(window);
+            }
+        }
+        return HexFormat.of().formatHex(md.digest());
+    }
+}
@@ -0,0 +1,221 @@
+package com.myorg.usbparser.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Gzip that can be split at line boundaries for parallel reading, while staying one ordinary gzip
+ * stream to every other reader (including HTTP clients that decode only the first gzip member).
+ *
+ * <pre>
+ * member 1   all the text, deflated with a full flush at the first line end after every
+ *            {@code frameBytes} of input; each flush point starts a frame that inflates on its own
+ * member 2   empty, its header extra subfield {@code "JL"} holds the frame table:
+ *            int count, int[count + 1] frame offsets (the last is the end of member 1's deflate data),
+ *            int length of member 2
+ * </pre>
+ * All integers are little-endian. {@link #frames(Path)} finds the table from the end of the file.
+ */
+public final class FramedGzip {
+
+    private static final byte SI1 = 'J';
+    private static final byte SI2 = 'L';
+    private static final int GZIP_HEADER = 10;
+    private static final int MAX_FRAMES = (0xFFFF - 4 - 12) / 4;                // frame table fits XLEN
+    private static final byte[] EMPTY_FINAL_BLOCK = {0x03, 0x00};                 // fixed-Huffman, BFINAL
+    private static final byte[] EMPTY_STORED_FINAL_BLOCK = {0x01, 0x00, 0x00, (byte) 0xFF, (byte) 0xFF};
+    private static final int TAIL = 4 + EMPTY_FINAL_BLOCK.length + 8;             // member 2 length, deflate, trailer
+
+    public record Frame(long offset, int length) {}
+
+    private FramedGzip() {}
+
+    public static OutputStream output(OutputStream out, int frameBytes) throws IOException {
+        return new FramedOutputStream(out, frameBytes);
+    }
+
+    /**
+     * Offsets and compressed sizes of the frames, from the frame table alone.
+     *
+     * @throws IOException when the file does not end with a frame table
+     */
+    public static List<Frame> frames(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < GZIP_HEADER + TAIL) throw new IOException("Not a framed gzip file: " + file);
+            ByteBuffer tail = read(channel, size - TAIL, TAIL);
+            int memberLength = tail.getInt(0);
+            if (tail.get(4) != EMPTY_FINAL_BLOCK[0] || tail.get(5) != EMPTY_FINAL_BLOCK[1]
+                    || tail.getLong(6) != 0 || memberLength < GZIP_HEADER + 2 + 4 + TAIL || memberLength > size) {
+                throw new IOException("Not a framed gzip file: " + file);
+            }
+            ByteBuffer member = read(channel, size - memberLength, memberLength - TAIL + 4);
+            if ((member.getShort(0) & 0xFFFF) != 0x8B1F || (member.get(3) & 0x04) == 0
+                    || member.get(12) != SI1 || member.get(13) != SI2) {
+                throw new IOException("Corrupt framed gzip table: " + file);
+            }
+            int count = member.getInt(16);
+            if (count < 0 || count > MAX_FRAMES || (member.getShort(14) & 0xFFFF) != 4 * (count + 3)) {
+                throw new IOException("Corrupt framed gzip table: " + file);
+            }
+            List<Frame> frames = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                int start = member.getInt(20 + 4 * i);
+                int end = member.getInt(24 + 4 * i);
+                frames.add(new Frame(start, end - start));
+            }
+            return frames;
+        }
+    }
+
+    /**
+     * The decompressed text of one frame; it starts on a line.
+     */
+    public static InputStream open(Path file, Frame frame) throws IOException {
+        byte[] bytes;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            // a frame ends on a full flush, so an empty final block completes it as a deflate stream
+            bytes = new byte[frame.length() + EMPTY_STORED_FINAL_BLOCK.length];
+            read(channel, frame.offset(), frame.length()).get(bytes, 0, frame.length());
+        }
+        System.arraycopy(EMPTY_STORED_FINAL_BLOCK, 0, bytes, frame.length(), EMPTY_STORED_FINAL_BLOCK.length);
+        Inflater inflater = new Inflater(true);
+        return new InflaterInputStream(new ByteArrayInputStream(bytes), inflater, 1 << 16) {
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                } finally {
+                    inflater.end();
+                }
+            }
+        };
+    }
+
+    private static ByteBuffer read(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+        while (buf.hasRemaining()) {
+            if (channel.read(buf, position + buf.position()) < 0) throw new IOException("Unexpected end of file");
+        }
+        return buf.flip();
+    }
+
+    private static final class FramedOutputStream extends OutputStream {
+        private final OutputStream out;
+        private final int frameBytes;
+        private final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        private final CRC32 crc = new CRC32();
+        private final byte[] chunk = new byte[1 << 16];
+        private final List<Integer> frameStarts = new ArrayList<>();
+        private long position;
+        private long inputBytes;
+        private long frameInput;     // input since the last flush point
+        private boolean frameOpen;   // whether data has been written since the last flush point
+        private boolean closed;
+
+        private FramedOutputStream(OutputStream out, int frameBytes) throws IOException {
+            this.out = out;
+            this.frameBytes = Math.max(1, frameBytes);
+            byte[] header = {0x1F, (byte) 0x8B, 8, 0, 0, 0, 0, 0, 0, (byte) 0xFF}; // deflate, no flags, unknown OS
+            emit(header, header.length);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            int end = off + len;
+            while (off < end) {
+                // deflate up to and including the next line end; frames are cut only there
+                int newline = off;
+                while (newline < end && b[newline] != '\n') newline++;
+                int stop = newline < end ? newline + 1 : end;
+                deflate(b, off, stop - off);
+                off = stop;
+                if (newline < end && frameInput >= frameBytes) flushFrame();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) return;
+            closed = true;
+            try (out) {
+                deflater.finish();
+                while (!deflater.finished()) emit(chunk, deflater.deflate(chunk));
+                int deflateEnd = Math.toIntExact(position);
+                ByteBuffer trailer = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN)
+                        .putInt((int) crc.getValue())
+                        .putInt((int) inputBytes);
+                emit(trailer.array(), 8);
+
+                List<Integer> starts = new ArrayList<>(frameStarts);
+                while (starts.size() > MAX_FRAMES) {
+                    // coarser frames: keep every other flush point
+                    List<Integer> kept = new ArrayList<>(starts.size() / 2 + 1);
+                    for (int i = 0; i < starts.size(); i += 2) kept.add(starts.get(i));
+                    starts = kept;
+                }
+                int xlen = 4 + 4 * (starts.size() + 3);
+                int memberLength = GZIP_HEADER + 2 + xlen + EMPTY_FINAL_BLOCK.length + 8;
+                ByteBuffer table = ByteBuffer.allocate(memberLength).order(ByteOrder.LITTLE_ENDIAN);
+                table.putShort((short) 0x8B1F).put((byte) 8).put((byte) 0x04) // deflate, FEXTRA
+                        .putInt(0).put((byte) 0).put((byte) 0xFF)
+                        .putShort((short) xlen).put(SI1).put(SI2).putShort((short) (xlen - 4))
+                        .putInt(starts.size());
+                starts.forEach(table::putInt);
+                table.putInt(deflateEnd).putInt(memberLength)
+                        .put(EMPTY_FINAL_BLOCK)
+                        .putLong(0); // CRC and size of no data
+                emit(table.array(), memberLength);
+                out.flush();
+            } finally {
+                deflater.end();
+            }
+        }
+
+        private void deflate(byte[] b, int off, int len) throws IOException {
+            if (len == 0) return;
+            if (!frameOpen) {
+                frameStarts.add(Math.toIntExact(position));
+                frameOpen = true;
+            }
+            crc.update(b, off, len);
+            inputBytes += len;
+            frameInput += len;
+            deflater.setInput(b, off, len);
+            while (!deflater.needsInput()) emit(chunk, deflater.deflate(chunk));
+        }
+
+        private void flushFrame() throws IOException {
+            int n;
+            do {
+                n = deflater.deflate(chunk, 0, chunk.length, Deflater.FULL_FLUSH);
+                emit(chunk, n);
+            } while (n == chunk.length);
+            frameInput = 0;
+            frameOpen = false;
+        }
+
+        private void emit(byte[] bytes, int length) throws IOException {
+            out.write(bytes, 0, length);
+            position += length;
+        }
+    }
+}
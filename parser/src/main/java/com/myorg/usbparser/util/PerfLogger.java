@@ -1,14 +1,22 @@
 package com.myorg.usbparser.util;
 
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.concurrent.TimeUnit;
+
 public final class PerfLogger {
     private static final Logger PERF = LoggerFactory.getLogger("performance");
 
     private PerfLogger() {}
 
     public static void frame(String label, long tookMs, double cpuPct, String mem) {
+        Timer.builder("usbpd.frame")
+                .tag("label", label)
+                .register(Metrics.globalRegistry)
+                .record(tookMs, TimeUnit.MILLISECONDS);
         // Match the Face-Recognition style
         PERF.info("{} - Frame processed in {} ms (FPS: {}), CPU: {}, Memory: {}",
                 label, tookMs, tookMs > 0 ? String.format("%.2f", 1000.0 / tookMs) : "0.00",
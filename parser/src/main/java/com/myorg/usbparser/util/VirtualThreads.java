@@ -0,0 +1,65 @@
+package com.myorg.usbparser.util;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Java 21 virtual threads, reached reflectively so the code still compiles for and runs on Java 17,
+ * where {@link #isSupported()} is false and nothing here may be called.
+ */
+public final class VirtualThreads {
+
+    private static final Method OF_VIRTUAL;
+    private static final Method NAME;
+    private static final Method FACTORY;
+    private static final Method IS_VIRTUAL;
+
+    static {
+        Method ofVirtual = null, name = null, factory = null, isVirtual = null;
+        // Java 19 and 20 have the methods, but only as a preview feature
+        if (Runtime.version().feature() >= 21) {
+            try {
+                Class<?> builder = Class.forName("java.lang.Thread$Builder");
+                ofVirtual = Thread.class.getMethod("ofVirtual");
+                name = builder.getMethod("name", String.class, long.class);
+                factory = builder.getMethod("factory");
+                isVirtual = Thread.class.getMethod("isVirtual");
+            } catch (ReflectiveOperationException e) {
+                ofVirtual = null;
+            }
+        }
+        OF_VIRTUAL = ofVirtual;
+        NAME = name;
+        FACTORY = factory;
+        IS_VIRTUAL = isVirtual;
+    }
+
+    private VirtualThreads() {}
+
+    public static boolean isSupported() {
+        return OF_VIRTUAL != null;
+    }
+
+    /**
+     * Factory of virtual threads named {@code <prefix>1}, {@code <prefix>2}, ...
+     */
+    public static ThreadFactory factory(String prefix) {
+        return (ThreadFactory) invoke(FACTORY, invoke(NAME, invoke(OF_VIRTUAL, null), prefix, 1L));
+    }
+
+    public static boolean isVirtual(Thread thread) {
+        return isSupported() && (Boolean) invoke(IS_VIRTUAL, thread);
+    }
+
+    private static Object invoke(Method method, Object target, Object... args) {
+        if (method == null) throw new UnsupportedOperationException("Virtual threads need Java 21 or later");
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause() instanceof RuntimeException r ? r : new IllegalStateException(e.getCause());
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
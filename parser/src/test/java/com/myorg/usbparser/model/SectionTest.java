@@ -0,0 +1,131 @@
+package com.myorg.usbparser.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * Golden test: the compact {@link Section} must read and write exactly the JSON of the plain
+ * field-per-property class it replaced, including parent ids and full paths it derives instead of storing.
+ */
+class SectionTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    // lines 1, 23, 26, 326, 484 and 665 of output/usb_pd_sections.jsonl: derived and absent parents,
+    // placeholder content, non-ASCII text, a seven-level id
+    private static final List<String> SPEC_LINES = """
+            {"doc_title":"USB Power Delivery Specification Rev 3.2","section_id":"1.0","title":"1.0 Initial release Revision 1.0 5 July,","page":2,"level":2,"parent_id":"1","full_path":"1.0 1.0 Initial release Revision 1.0 5 July,","tags":[],"content":"[No extractable text — section may contain only figures/tables]"}
+            {"doc_title":"USB Power Delivery Specification Rev 3.2","section_id":"3.1","title":"1.9 Editorial Changes July","page":3,"level":2,"parent_id":"3","full_path":"3.1 1.9 Editorial Changes July","tags":[],"content":"Revision Version Comments Issue Date"}
+            {"doc_title":"USB Power Delivery Specification Rev 3.2","section_id":"1","title":"Introduction 34","page":13,"level":1,"full_path":"1 Introduction 34","tags":[],"content":"[No extractable text — section may contain only figures/tables]"}
+            {"doc_title":"USB Power Delivery Specification Rev 3.2","section_id":"2","title":"Overview","page":53,"level":1,"full_path":"2 Overview","tags":[],"content":"This section contains no Normative requirements."}
+            {"doc_title":"USB Power Delivery Specification Rev 3.2","section_id":"8","title":"SOP’/SOP’’ Cable Plug Section 6.2.1.1.7","page":116,"level":1,"full_path":"8 SOP’/SOP’’ Cable Plug Section 6.2.1.1.7","tags":[],"content":"7…6 SOP* Specification Revision Section 6.2.1.1.5 SOP only"}
+            {"doc_title":"USB Power Delivery Specification Rev 3.2","section_id":"6.4.4.3.1.6.1","title":"HW Version Field","page":177,"level":7,"parent_id":"6.4.4.3.1.6","full_path":"6.4.4.3.1.6.1 HW Version Field","tags":[],"content":"The HW Version (B31…28) contains a HW version assigned by the VID owner."}
+            """.lines().toList();
+
+    // explicit parent and full path with tags; null page and level without content; no id at all
+    private static final List<String> OTHER_LINES = """
+            {"doc_title":"USB Power Delivery Specification Rev 3.2","section_id":"6.4.1.2","title":"Fixed Supply PDO","page":140,"level":4,"parent_id":"6.4","full_path":"Message > Source_Capabilities > Fixed Supply PDO","tags":["pdo","source"],"content":"Fixed Supply PDO content"}
+            {"doc_title":"USB Power Delivery Specification Rev 3.2","section_id":"A","title":"Appendix","full_path":"A Appendix","tags":[]}
+            {"title":"Untitled","page":7,"tags":[],"content":"orphan"}
+            """.lines().toList();
+
+    // ===== Oracle: Section as it was before it derived parent_id and full_path =====
+
+    @Getter
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    static class PlainSection {
+        @JsonProperty("doc_title")
+        private String docTitle;
+        @JsonProperty("section_id")
+        private String sectionId;
+        @JsonProperty("title")
+        private String title;
+        @JsonProperty("page")
+        private Integer page;
+        @JsonProperty("level")
+        private Integer level;
+        @JsonProperty("parent_id")
+        private String parentId;
+        @JsonProperty("full_path")
+        private String fullPath;
+        @Builder.Default
+        @JsonProperty("tags")
+        private List<String> tags = List.of();
+        @JsonProperty("content")
+        private String content;
+    }
+
+    @Test
+    void rewritesSpecLinesByteForByte() throws Exception {
+        for (String line : SPEC_LINES) {
+            assertEquals(line, MAPPER.writeValueAsString(MAPPER.readValue(line, Section.class)));
+            assertEquals(line, MAPPER.writeValueAsString(MAPPER.readValue(line, PlainSection.class)));
+        }
+    }
+
+    @Test
+    void writesWhatThePlainClassWrites() throws Exception {
+        for (String line : concat(SPEC_LINES, OTHER_LINES)) {
+            PlainSection plain = MAPPER.readValue(line, PlainSection.class);
+            Section section = Section.builder()
+                    .docTitle(plain.getDocTitle())
+                    .sectionId(plain.getSectionId())
+                    .title(plain.getTitle())
+                    .page(plain.getPage())
+                    .level(plain.getLevel())
+                    .parentId(plain.getParentId())
+                    .fullPath(plain.getFullPath())
+                    .tags(plain.getTags())
+                    .content(plain.getContent())
+                    .build();
+
+            assertEquals(MAPPER.writeValueAsString(plain), MAPPER.writeValueAsString(section), line);
+            assertEquals(section, MAPPER.readValue(line, Section.class), line);
+            assertEquals(plain.getParentId(), section.getParentId(), line);
+            assertEquals(plain.getFullPath(), section.getFullPath(), line);
+        }
+    }
+
+    @Test
+    void keepsNullsAndExplicitValues() throws Exception {
+        Section explicit = MAPPER.readValue(OTHER_LINES.get(0), Section.class);
+        assertEquals("6.4", explicit.getParentId());
+        assertEquals("Message > Source_Capabilities > Fixed Supply PDO", explicit.getFullPath());
+        assertEquals(List.of("pdo", "source"), explicit.getTags());
+
+        Section tocLine = MAPPER.readValue(OTHER_LINES.get(1), Section.class);
+        assertNull(tocLine.getPage());
+        assertNull(tocLine.getLevel());
+        assertNull(tocLine.getParentId());
+        assertNull(tocLine.getContent());
+
+        // nothing is derived for a value that was never given
+        Section topLevel = Section.builder().sectionId("6").title("T").parentId(null).fullPath(null).build();
+        assertNull(topLevel.getParentId());
+        assertNull(topLevel.getFullPath());
+        assertEquals("{\"section_id\":\"6\",\"title\":\"T\",\"tags\":[]}", MAPPER.writeValueAsString(topLevel));
+
+        // an empty tag list is shared, not copied per section
+        assertSame(MAPPER.readValue(SPEC_LINES.get(0), Section.class).getTags(), tocLine.getTags());
+    }
+
+    private static List<String> concat(List<String> a, List<String> b) {
+        return Stream.concat(a.stream(), b.stream()).toList();
+    }
+}
@@ -0,0 +1,97 @@
+package com.myorg.usbparser.service.implementation;
+
+import com.myorg.usbparser.model.Section;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Round trip: what {@link BinarySectionWriter} writes, {@link BinarySectionReader} must read back equal.
+ */
+class BinarySectionReaderTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void readsBackWhatWasWritten() throws IOException {
+        List<Section> sections = List.of(
+                // derived parent and full path
+                section("6.4.1", "Source Capabilities", 120, 3).parentId("6.4")
+                        .fullPath("6.4.1 Source Capabilities").tags(List.of("power", "pdo")).build(),
+                // null page and level, no parent, no full path, no tags, no content
+                Section.builder().docTitle("USB PD").sectionId("1").title("Introduction").build(),
+                // explicit parent and full path that differ from what the id implies
+                section("2.1.0", "Über-long title — “quoted”", 0, 0).parentId("2")
+                        .fullPath("Chapter 2 > Overview").content("x".repeat(300)).build(),
+                // repeated id (a ToC listing read as headings), on another page
+                section("6.4.1", "Source Capabilities", 9, 3).content("listed in the ToC").build(),
+                // no id at all
+                Section.builder().docTitle("USB PD").title("Untitled").page(7).content("orphan").build());
+
+        BinarySectionReader reader = BinarySectionReader.open(write(sections));
+
+        assertEquals(sections.size(), reader.size());
+        assertEquals(sections, reader.readAll());
+        for (int i = 0; i < sections.size(); i++) assertEquals(sections.get(i), reader.get(i));
+
+        Section unnumbered = reader.get(1);
+        assertNull(unnumbered.getPage());
+        assertNull(unnumbered.getLevel());
+        assertNull(unnumbered.getFullPath());
+        assertNull(unnumbered.getContent());
+        assertEquals(List.of(), unnumbered.getTags());
+        assertEquals(0, reader.get(2).getPage());   // stored as 1: zero must not read back as null
+        assertEquals("Chapter 2 > Overview", reader.get(2).getFullPath());
+
+        assertEquals(List.of(sections.get(0), sections.get(3)), reader.find("6.4.1"));
+        assertEquals(List.of(sections.get(2)), reader.find("2.1.0"));
+        assertEquals(List.of(), reader.find("6.4"));
+        assertEquals(List.of(), reader.find(null));
+    }
+
+    @Test
+    void findsEverySectionOfALargeFile() throws IOException {
+        // records longer than a one-byte varint, so the footer offset deltas span several bytes
+        List<Section> sections = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            sections.add(section("9." + (i % 250), "Title " + i, i + 1, 2)
+                    .parentId("9").content("content ".repeat(i % 40)).build());
+        }
+
+        BinarySectionReader reader = BinarySectionReader.open(write(sections));
+
+        assertEquals(sections, reader.readAll());
+        assertEquals(List.of(sections.get(17), sections.get(267)), reader.find("9.17"));
+        assertEquals(sections.get(499), reader.get(499));
+    }
+
+    @Test
+    void rejectsAFileThatIsNotBinarySections() throws IOException {
+        Path file = dir.resolve("usb_pd_sections.jsonl");
+        Files.writeString(file, "{\"section_id\":\"1\",\"title\":\"Introduction\"}\n");
+
+        IOException e = assertThrows(IOException.class, () -> BinarySectionReader.open(file));
+        assertTrue(e.getMessage().startsWith("Not a binary sections file"));
+    }
+
+    private static Section.SectionBuilder section(String id, String title, int page, int level) {
+        return Section.builder().docTitle("USB PD").sectionId(id).title(title).page(page).level(level);
+    }
+
+    private Path write(List<Section> sections) throws IOException {
+        Path file = dir.resolve(BinarySectionWriter.FILE);
+        new BinarySectionWriter().write(file.toFile(), sections);
+        return file;
+    }
+}
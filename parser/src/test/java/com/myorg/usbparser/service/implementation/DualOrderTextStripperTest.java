@@ -0,0 +1,93 @@
+package com.myorg.usbparser.service.implementation;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * One pass must give what a sorted and an unsorted {@link PDFTextStripper} give separately, and the
+ * unsorted pages must add up to the single unsorted pass over the ToC window the ToC heuristics expect.
+ */
+class DualOrderTextStripperTest {
+
+    @Test
+    void writesBothOrdersFromOnePass() throws IOException {
+        try (PDDocument doc = document(3)) {
+            DualOrderTextStripper dual = new DualOrderTextStripper();
+            StringBuilder unsortedPages = new StringBuilder();
+            for (int page = 1; page <= 3; page++) {
+                PageTextCache.PageText text = dual.strip(doc, page, true);
+                assertEquals(text(doc, page, page, true), text.sorted());
+                assertEquals(text(doc, page, page, false), text.unsorted());
+                assertNotEquals(text.sorted(), text.unsorted());   // the page really is out of order
+                unsortedPages.append(text.unsorted());
+            }
+            assertEquals(text(doc, 1, 3, false), unsortedPages.toString());
+
+            PageTextCache.PageText sortedOnly = dual.strip(doc, 2, false);
+            assertEquals(text(doc, 2, 2, true), sortedOnly.sorted());
+            assertNull(sortedOnly.unsorted());
+        }
+    }
+
+    @Test
+    void cachesTheUnsortedTextOfTheTocWindowOnly() throws IOException {
+        try (PDDocument doc = document(3)) {
+            DualOrderTextStripper dual = new DualOrderTextStripper();
+            int[] strips = new int[1];
+            PageTextCache cache = new PageTextCache(3, 2, (page, withUnsorted) -> {
+                strips[0]++;
+                return dual.strip(doc, page, withUnsorted);
+            });
+
+            String[] lines = cache.getLines(1);
+            assertEquals(text(doc, 1, 1, false), cache.getUnsortedText(1));
+            assertEquals(1, strips[0]);   // one extraction served both forms
+            assertEquals(PageTextCache.toLines(text(doc, 1, 1, true)).length, lines.length);
+
+            assertEquals(text(doc, 3, 3, false), cache.getUnsortedText(3));   // outside the window
+            cache.getLines(3);
+            assertEquals(3, strips[0]);
+
+            cache.release(1);
+            cache.getUnsortedText(1);
+            assertEquals(4, strips[0]);
+        }
+    }
+
+    /** Pages whose lines are drawn bottom to top, so content order and position order differ. */
+    private static PDDocument document(int pages) throws IOException {
+        PDDocument doc = new PDDocument();
+        for (int p = 1; p <= pages; p++) {
+            PDPage page = new PDPage();
+            doc.addPage(page);
+            try (PDPageContentStream cs = new PDPageContentStream(doc, page)) {
+                cs.setFont(PDType1Font.HELVETICA, 11);
+                for (int line = 5; line >= 1; line--) {
+                    cs.beginText();
+                    cs.newLineAtOffset(72, 720 - line * 20);
+                    cs.showText(p + "." + line + " Heading " + line + " .......... " + (p * 10 + line));
+                    cs.endText();
+                }
+            }
+        }
+        return doc;
+    }
+
+    private static String text(PDDocument doc, int from, int to, boolean sorted) throws IOException {
+        PDFTextStripper stripper = new PDFTextStripper();
+        stripper.setSortByPosition(sorted);
+        stripper.setStartPage(from);
+        stripper.setEndPage(to);
+        return stripper.getText(doc);
+    }
+}
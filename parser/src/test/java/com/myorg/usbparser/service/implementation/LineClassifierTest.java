@@ -0,0 +1,271 @@
+package com.myorg.usbparser.service.implementation;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Golden test: {@link LineClassifier} must agree with the regular expressions the extractors
+ * used before it, on a hand-picked corpus and on randomly generated spec-like lines.
+ */
+class LineClassifierTest {
+
+    // ===== Oracle: the original patterns and regex chains =====
+
+    private static final Pattern HEADING_PATTERN = Pattern.compile(
+            "^\\s*(\\d+(?:\\.\\d+)*)\\s+(?=.+[A-Za-z])(.+?)\\s*$");
+    private static final Pattern DOTS_PAGE = Pattern.compile("^\\s*(\\d+(?:\\.\\d+)*)\\s+(.+?)\\s*\\.{2,}\\s*(\\d{1,4})\\s*$");
+    private static final Pattern TITLE_PAGE = Pattern.compile("^\\s*(\\d+(?:\\.\\d+)*)\\s+(.+?)\\s+(\\d{1,4})\\s*$");
+    private static final Pattern NUMBER_TITLE = Pattern.compile("^\\s*(\\d+(?:\\.\\d+)*)\\s+(.+?)\\s*$");
+    private static final Pattern TRAILING_PAGE_IN_TITLE = Pattern.compile("(.+?)\\s*\\.*\\s*(\\d{1,4})\\s*$");
+    private static final Pattern ONLY_NUMBER = Pattern.compile("^\\s*(\\d+(?:\\.\\d+)*)\\s*$");
+    private static final Pattern TRAILING_DOTS = Pattern.compile("\\.{2,}\\s*$");
+    private static final Pattern PRINTED_PAGE_AT_LINE_END = Pattern.compile(".*\\b(\\d{1,4})\\s*$");
+    private static final Pattern PAGE_FURNITURE = Pattern.compile(
+            "(?i)^(page\\s+\\d+|universal serial bus power delivery specification|revision history)$");
+    private static final Pattern IGNORE_CONTENT = Pattern.compile(
+            "^(Figure\\s+\\d+|Table\\s+\\d+|List of Figures|List of Tables|Revision History)\\b",
+            Pattern.CASE_INSENSITIVE);
+
+    private static String oracleHeadingTitle(String title) {
+        title = title.trim();
+        title = title.replaceAll("\\.{2,}\\s*\\d+$", "").trim();
+        title = title.replaceAll("\\s+\\d+$", "").trim();
+        return title.replaceAll("[\\.\\s]{2,}", " ").trim();
+    }
+
+    private static String oracleTocTitle(String raw) {
+        String t = raw.trim();
+        t = t.replaceFirst("^\\s*\\d+(?:\\.\\d+)*\\s+", "");
+        t = t.replaceAll("\\.{2,}", " ");
+        t = t.replaceAll("\\s+\\d{1,4}$", "");
+        t = t.replaceAll("[\\p{Punct}\\s]+$", "");
+        return t.replaceAll("\\s{2,}", " ").trim();
+    }
+
+    // ===== Inputs =====
+
+    private static final List<String> CORPUS = List.of(
+            "",
+            " ",
+            "1",
+            "1 ",
+            "1 A",
+            "1  A",
+            "1   34",
+            "1 Overview",
+            "  6.4.1 Source_Capabilities Message  ",
+            "6.4.1.2.3 Fixed Supply Power Data Object",
+            "1.2.3Title",
+            "1.2. Title",
+            "10 2024",
+            "2.1 Introduction ........................ 34",
+            "2.1 Introduction ...................34",
+            "2.1 Introduction.. 34",
+            "2.1 Introduction . . . 34",
+            "2.1 Introduction 34",
+            "2.1 Introduction 12345",
+            "2.1 Introduction\t\t7 ",
+            "1 ..... 5",
+            "1 .. 5",
+            "1 ..5",
+            "12  ",
+            "1 5",
+            "3 Table 12 values 9",
+            "Page 12",
+            "page  7",
+            "PAGE 7x",
+            "page 7.",
+            "page 12 of 300",
+            "Universal Serial Bus Power Delivery Specification",
+            "universal serial bus power delivery specification\n",
+            "Revision History",
+            "Revision History\r\n",
+            "Revision Historyx",
+            "Figure 6-1 Example",
+            "Figure 61 Example",
+            "Figure 61_ Example",
+            "Table 6-12 Fixed Supply PDO",
+            "Table 612",
+            "List of Figures",
+            "List of Tables.",
+            "List of Tablesx",
+            "The Source_Capabilities message ... 12",
+            "see section 4 on page 12",
+            "x12",
+            "x_12",
+            "x 12345",
+            "- 12",
+            "0000",
+            "Title..\u2028",
+            "1 Title\u2028 3",
+            "1 Title \u2028",
+            "2 Ti\ntle 3",
+            "2 Title\n3",
+            "4 Title 7\u2028",
+            "4 Title 7\r\n",
+            "5 Title .. 7\u0085",
+            "6 Title. 8",
+            "6 Title: 8 ",
+            "7 Power\u00A0Rules 9",
+            "8 \u00C9nergie 9",
+            "Title \u0301 12",
+            "9 \u00A0 12");
+
+    private static final char[] NOISE = {
+            ' ', ' ', ' ', '\t', '.', '.', '.', '-', ':', '_', 'a', 'P', 'x', '0', '7', '9',
+            '\n', '\r', '\u000B', '\f', '\u00A0', '\u0085', '\u2028', '\u2029', '(', ')'};
+
+    private static final String[] WORDS = {
+            "Power", "Source_Capabilities", "EPR", "Table", "Figure", "page", "Page", "contin-", "of",
+            "Overview", "PPS", "v3.2", "10", "2024", "...", "..", ".", "-", "Revision History",
+            "List of Tables", "universal serial bus power delivery specification"};
+
+    private static List<String> randomLines(long seed, int count) {
+        Random rnd = new Random(seed);
+        List<String> lines = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            StringBuilder sb = new StringBuilder();
+            if (rnd.nextInt(4) == 0) sb.append(ws(rnd));
+            if (rnd.nextInt(5) > 0) {
+                sb.append(1 + rnd.nextInt(12));
+                for (int d = rnd.nextInt(4); d > 0; d--) sb.append('.').append(rnd.nextInt(20));
+                if (rnd.nextInt(10) == 0) sb.append('.');
+            }
+            if (rnd.nextInt(6) > 0) sb.append(ws(rnd));
+            for (int w = rnd.nextInt(4); w > 0; w--) {
+                sb.append(WORDS[rnd.nextInt(WORDS.length)]);
+                if (rnd.nextInt(3) > 0) sb.append(ws(rnd));
+            }
+            switch (rnd.nextInt(5)) {
+                case 0 -> sb.append(".".repeat(rnd.nextInt(12)));
+                case 1 -> sb.append(ws(rnd)).append(".".repeat(rnd.nextInt(5))).append(ws(rnd));
+                default -> { }
+            }
+            if (rnd.nextInt(4) > 0) sb.append(rnd.nextInt(4) == 0 ? rnd.nextInt(100_000) : rnd.nextInt(400));
+            if (rnd.nextInt(4) == 0) sb.append(ws(rnd));
+            // sprinkle noise anywhere
+            for (int k = rnd.nextInt(3); k > 0; k--) {
+                sb.insert(rnd.nextInt(sb.length() + 1), NOISE[rnd.nextInt(NOISE.length)]);
+            }
+            lines.add(sb.toString());
+        }
+        return lines;
+    }
+
+    private static String ws(Random rnd) {
+        return switch (rnd.nextInt(8)) {
+            case 0 -> "";
+            case 1 -> "  ";
+            case 2 -> "\t";
+            case 3 -> "   ";
+            default -> " ";
+        };
+    }
+
+    // ===== Tests =====
+
+    @Test
+    void corpusMatchesRegexOracle() {
+        CORPUS.forEach(LineClassifierTest::assertSameAsOracle);
+    }
+
+    @Test
+    void randomLinesMatchRegexOracle() {
+        randomLines(20240917L, 50_000).forEach(LineClassifierTest::assertSameAsOracle);
+    }
+
+    private static void assertSameAsOracle(String line) {
+        String at = " for \"" + escape(line) + "\"";
+        LineClassifier.Line out = new LineClassifier.Line();
+
+        Matcher m = HEADING_PATTERN.matcher(line);
+        boolean heading = LineClassifier.heading(line, out);
+        assertEquals(m.matches(), heading, "heading" + at);
+        if (heading) {
+            assertEquals(m.group(1), out.sectionId(), "heading id" + at);
+            assertEquals(m.group(2), out.title(), "heading title" + at);
+            assertEquals(oracleHeadingTitle(m.group(2)), LineClassifier.cleanHeadingTitle(out.title()),
+                    "heading clean title" + at);
+        }
+
+        LineClassifier.Kind kind = LineClassifier.toc(line, out);
+        Matcher dots = DOTS_PAGE.matcher(line);
+        Matcher titlePage = TITLE_PAGE.matcher(line);
+        Matcher numberTitle = NUMBER_TITLE.matcher(line);
+        Matcher expected = dots.matches() ? dots
+                : titlePage.matches() ? titlePage
+                : numberTitle.matches() ? numberTitle : null;
+        LineClassifier.Kind expectedKind = expected == null ? LineClassifier.Kind.NONE
+                : expected == dots ? LineClassifier.Kind.DOT_LEADER
+                : expected == titlePage ? LineClassifier.Kind.TITLE_PAGE : LineClassifier.Kind.NUMBER_TITLE;
+        assertEquals(expectedKind, kind, "toc kind" + at);
+        if (expected != null) {
+            assertEquals(expected.group(1), out.sectionId(), "toc id" + at);
+            assertEquals(expected.group(2), out.title(), "toc title" + at);
+            int page = expected.groupCount() == 3 ? Integer.parseInt(expected.group(3)) : -1;
+            assertEquals(page, out.page(), "toc page" + at);
+            assertEquals(oracleTocTitle(expected.group(2)), LineClassifier.cleanTocTitle(out.title()),
+                    "toc clean title" + at);
+        }
+
+        for (String title : new String[]{line, line.trim()}) {
+            Matcher trailing = TRAILING_PAGE_IN_TITLE.matcher(title);
+            boolean hasTrailing = LineClassifier.trailingPageInTitle(title, out);
+            assertEquals(trailing.matches(), hasTrailing, "trailing page" + at);
+            if (hasTrailing) {
+                assertEquals(trailing.group(1), out.title(), "trailing title" + at);
+                assertEquals(Integer.parseInt(trailing.group(2)), out.page(), "trailing page number" + at);
+            }
+            assertEquals(oracleTocTitle(title), LineClassifier.cleanTocTitle(title), "clean toc title" + at);
+            assertEquals(oracleHeadingTitle(title), LineClassifier.cleanHeadingTitle(title), "clean heading title" + at);
+            assertEquals(title.replaceAll("\\d{1,4}$", ""), LineClassifier.stripTrailingPageDigits(title),
+                    "strip page digits" + at);
+        }
+
+        String trimmed = line.trim();
+        assertEquals(trimmed.matches("^\\d+(?:\\.\\d+)*$"), LineClassifier.isSectionId(trimmed), "section id" + at);
+        assertEquals(ONLY_NUMBER.matcher(line).matches(), LineClassifier.isSectionIdLine(line), "id line" + at);
+        assertEquals(trimmed.matches("^\\d{1,4}$"), LineClassifier.isPageNumber(trimmed), "page number" + at);
+        assertEquals(line.matches(".*\\.{2,}\\s*\\d+\\s*$"), LineClassifier.endsWithDotLeaderPage(line),
+                "dot leader page" + at);
+        assertEquals(TRAILING_DOTS.matcher(line).find(), LineClassifier.endsWithDotLeader(line), "trailing dots" + at);
+
+        Matcher printed = PRINTED_PAGE_AT_LINE_END.matcher(line);
+        assertEquals(printed.matches() ? Integer.parseInt(printed.group(1)) : -1,
+                LineClassifier.printedPageAtLineEnd(line), "printed page" + at);
+
+        assertEquals(PAGE_FURNITURE.matcher(line).find(), LineClassifier.isPageFurniture(line), "furniture" + at);
+        assertEquals(IGNORE_CONTENT.matcher(line).find(), LineClassifier.isIgnoredContent(line), "ignored" + at);
+        String lower = line.toLowerCase().trim();
+        assertEquals(lower.matches("^page\\s+\\d+\\b.*"), LineClassifier.isPageLabel(lower), "page label" + at);
+
+        // ToC fallback: last token is a page, first token a section id
+        String[] tokens = trimmed.split("\\s+");
+        String last = tokens[tokens.length - 1];
+        assertEquals(last, trimmed.substring(LineClassifier.lastTokenStart(trimmed)), "last token" + at);
+        String[] parts = trimmed.split("\\s+", 2);
+        int firstWs = LineClassifier.firstWhitespace(trimmed);
+        assertEquals(parts.length >= 2, firstWs < trimmed.length(), "has second token" + at);
+        assertEquals(parts[0], trimmed.substring(0, firstWs), "first token" + at);
+        if (parts.length >= 2) {
+            assertEquals(parts[1], trimmed.substring(LineClassifier.skipWhitespace(trimmed, firstWs, trimmed.length())),
+                    "rest" + at);
+        }
+    }
+
+    private static String escape(String s) {
+        StringBuilder sb = new StringBuilder();
+        for (char c : s.toCharArray()) {
+            if (c >= 0x20 && c < 0x7F) sb.append(c);
+            else sb.append(String.format("\\u%04X", (int) c));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,101 @@
+package com.myorg.usbparser.service.implementation;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Round trip through {@link PageIndex}: the hash table is read on open, scans are decoded by hash on demand.
+ */
+class PageIndexTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final String FINGERPRINT = "extractor-v1";
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void readsBackScansByHash() throws IOException {
+        List<PageScan> scans = new ArrayList<>();
+        for (int p = 0; p < 300; p++) {
+            scans.add(new PageScan(p, "lead of " + p + " ".repeat(p % 7),
+                    List.of(new PageScan.Head("6." + p, "Title " + p, "content ".repeat(p % 50)),
+                            new PageScan.Head("6." + p + ".1", null, ""))));
+        }
+        scans.add(new PageScan(0, "", List.of()));
+        Path file = dir.resolve(PageIndex.FILE);
+        try (PageIndex.Sink sink = PageIndex.create(file, FINGERPRINT)) {
+            for (int p = 0; p < scans.size(); p++) sink.write("h" + p, scans.get(p));
+            sink.write("h7", new PageScan(99, "a later page with the same hash", List.of()));
+        }
+
+        try (PageIndex.Baseline baseline = PageIndex.open(file, FINGERPRINT).orElseThrow()) {
+            for (int p = scans.size() - 1; p >= 0; p--) {   // any order: every record is sought
+                assertTrue(baseline.contains("h" + p));
+                assertEquals(json(scans.get(p)), json(baseline.scan("h" + p)));
+            }
+            assertEquals(7, baseline.scan("h7").getPrinted());   // first page with a hash wins
+            assertNull(baseline.scan("unknown"));
+            assertFalse(baseline.contains("unknown"));
+        }
+    }
+
+    @Test
+    void ignoresMissingForeignAndOutdatedFiles() throws IOException {
+        Path file = dir.resolve(PageIndex.FILE);
+        assertEquals(Optional.empty(), PageIndex.open(file, FINGERPRINT));
+
+        try (PageIndex.Sink sink = PageIndex.create(file, FINGERPRINT)) {
+            sink.write("h0", new PageScan(1, "lead", List.of()));
+        }
+        assertEquals(Optional.empty(), PageIndex.open(file, "other-extractor"));
+
+        // the version 1 layout: gzipped JSON lines
+        Path legacy = dir.resolve("legacy.idx");
+        Files.writeString(legacy, "{\"version\":1,\"fingerprint\":\"" + FINGERPRINT + "\",\"pages\":1}\n");
+        assertEquals(Optional.empty(), PageIndex.open(legacy, FINGERPRINT));
+
+        Path truncated = dir.resolve("truncated.idx");
+        byte[] whole = Files.readAllBytes(file);
+        Files.write(truncated, Arrays.copyOf(whole, whole.length - 3));
+        assertEquals(Optional.empty(), PageIndex.open(truncated, FINGERPRINT));
+    }
+
+    @Test
+    void givesUpOnAnUnreadableRecordOnly() throws IOException {
+        Path file = dir.resolve(PageIndex.FILE);
+        try (PageIndex.Sink sink = PageIndex.create(file, FINGERPRINT)) {
+            sink.write("h0", new PageScan(1, "first", List.of()));
+            sink.write("h1", new PageScan(2, "second", List.of()));
+        }
+        // corrupt the first record: it starts right after the header
+        byte[] bytes = Files.readAllBytes(file);
+        int firstRecord = 4 + 1 + 2 + FINGERPRINT.length();
+        bytes[firstRecord + 2] ^= 0x5A;
+        bytes[firstRecord + 3] ^= 0x5A;
+        Files.write(file, bytes);
+
+        try (PageIndex.Baseline baseline = PageIndex.open(file, FINGERPRINT).orElseThrow()) {
+            assertNull(baseline.scan("h0"));
+            assertEquals("second", baseline.scan("h1").getLead());
+        }
+    }
+
+    private static String json(PageScan scan) throws IOException {
+        return MAPPER.writeValueAsString(scan);
+    }
+}
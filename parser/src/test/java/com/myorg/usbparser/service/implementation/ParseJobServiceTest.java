@@ -0,0 +1,76 @@
+package com.myorg.usbparser.service.implementation;
+
+import com.myorg.usbparser.config.JobProperties;
+import com.myorg.usbparser.metrics.PipelineMetrics;
+import com.myorg.usbparser.model.ParseJob;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+/**
+ * A job ends FAILED and releases its waiters however the pipeline dies, Errors included.
+ */
+class ParseJobServiceTest {
+
+    private final ParsePipeline pipeline = mock(ParsePipeline.class);
+    private final JobStorage jobStorage = mock(JobStorage.class);
+    private ParseJobService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new ParseJobService(pipeline, jobStorage, new JobProperties(), mock(PipelineMetrics.class),
+                new MockEnvironment());
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    void failsTheJobWhenThePipelineThrowsAnError() throws Exception {
+        doThrow(new StackOverflowError()).when(pipeline).run(any(), any(), any());
+
+        ParseJob job = service.create("spec.pdf");
+        ExecutionException e = run(job);
+
+        assertInstanceOf(StackOverflowError.class, e.getCause());
+        assertEquals(ParseJob.Status.FAILED, job.getStatus());
+        assertEquals("java.lang.StackOverflowError", job.getError());
+        assertEquals(Set.of(), service.activeJobIds());
+        verify(jobStorage).writeManifest(job, Path.of("out"));
+    }
+
+    @Test
+    void failsTheJobWhenThePipelineThrowsAnException() throws Exception {
+        doThrow(new IllegalStateException("broken xref")).when(pipeline).run(any(), any(), any());
+
+        ParseJob job = service.create("spec.pdf");
+        ExecutionException e = run(job);
+
+        assertInstanceOf(IllegalStateException.class, e.getCause());
+        assertEquals(ParseJob.Status.FAILED, job.getStatus());
+        assertEquals("broken xref", job.getError());
+        assertEquals(Set.of(), service.activeJobIds());
+    }
+
+    /** Submit the job and wait for it; the synchronous endpoint sees what this returns. */
+    private ExecutionException run(ParseJob job) {
+        service.submit(job, Path.of("spec.pdf"), Path.of("out"));
+        return assertThrows(ExecutionException.class, () -> job.getCompletion().get(10, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,103 @@
+package com.myorg.usbparser.service.implementation;
+
+import com.myorg.usbparser.model.Section;
+import com.myorg.usbparser.service.ParseSession;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * The ToC-guided parse must find selected sections the ToC does not list.
+ */
+class PdfBoxSectionExtractorTest {
+
+    private static final String[][] PAGES = {
+            {"1 Introduction", "intro text"},
+            {"2 Power", "power text"},
+            {"2.1 Sources", "sources text"},
+            {"2.1.1 Fixed Supply", "fixed text"},
+            {"2.1.1.1 Voltage", "voltage text"},
+            {"2.1.1.2 Current", "current text"},
+            {"2.2 Sinks", "sinks text"},
+            {"3 Cables", "cable text"},
+    };
+
+    private final PdfBoxSectionExtractor extractor = new PdfBoxSectionExtractor("spec");
+
+    @Test
+    void readsASelectorDeeperThanTheTocUnderItsNearestAncestor() throws Exception {
+        List<Section> toc = List.of(entry("1", 1), entry("2", 2), entry("2.1", 3), entry("2.1.1", 4),
+                entry("2.2", 7), entry("3", 8));
+        Pages session = new Pages();
+        List<Section> sections = new ArrayList<>();
+
+        extractor.parse(session, toc, SectionSelector.parse("2.1.1.2.*"), sections::add);
+
+        assertEquals(List.of("2.1.1.2"), ids(sections));
+        assertEquals("current text", sections.get(0).getContent());
+        // 2.1.1 up to 2.2, plus the last page probed for printed page numbers
+        assertEquals(Set.of(4, 5, 6, 7, 8), session.read);
+    }
+
+    @Test
+    void scansTheWholeDocumentWhenTheTocListsNoAncestor() throws Exception {
+        List<Section> sections = new ArrayList<>();
+
+        extractor.parse(new Pages(), List.of(), SectionSelector.parse("2.1.*"), sections::add);
+
+        assertEquals(List.of("2.1", "2.1.1", "2.1.1.1", "2.1.1.2"), ids(sections));
+    }
+
+    private static Section entry(String sectionId, int page) {
+        return Section.builder().sectionId(sectionId).title("Title " + sectionId).page(page).build();
+    }
+
+    private static List<String> ids(List<Section> sections) {
+        return sections.stream().map(Section::getSectionId).toList();
+    }
+
+    /** In-memory document of {@link #PAGES}, remembering which pages were extracted. */
+    private static final class Pages implements ParseSession {
+        private final Set<Integer> read = new TreeSet<>();
+
+        @Override
+        public File getSourceFile() {
+            return new File("spec.pdf");
+        }
+
+        @Override
+        public int getPageCount() {
+            return PAGES.length;
+        }
+
+        @Override
+        public String getDocumentTitle() {
+            return null;
+        }
+
+        @Override
+        public String[] getPageLines(int page) {
+            read.add(page);
+            return PAGES[page - 1];
+        }
+
+        @Override
+        public String getUnsortedPageText(int page) {
+            return String.join("\n", getPageLines(page));
+        }
+
+        @Override
+        public void releasePage(int page) {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.myorg.usbparser.service.implementation;
+
+import com.myorg.usbparser.model.Section;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.common.PDPageLabelRange;
+import org.apache.pdfbox.pdmodel.common.PDPageLabels;
+import org.apache.pdfbox.pdmodel.interactive.documentnavigation.outline.PDDocumentOutline;
+import org.apache.pdfbox.pdmodel.interactive.documentnavigation.outline.PDOutlineItem;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Outline fast path: the page unit of the entries, with and without page labels.
+ */
+class PdfBoxTocExtractorTest {
+
+    // front matter before the first numbered page
+    private static final int FRONT = 4;
+    private static final int ENTRIES = 12;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void reportsPrintedPagesWhenTheLabelsAreDecimal() throws IOException {
+        File pdf = outlined(PDPageLabelRange.STYLE_ROMAN_LOWER, PDPageLabelRange.STYLE_DECIMAL);
+
+        List<Section> toc = new PdfBoxTocExtractor("Doc").parse(pdf);
+
+        assertEquals(ENTRIES, toc.size());
+        for (int i = 0; i < ENTRIES; i++) {
+            assertEquals(String.valueOf(i + 1), toc.get(i).getSectionId());
+            assertEquals(i + 1, toc.get(i).getPage());   // printed page, not FRONT + i + 1
+        }
+    }
+
+    @Test
+    void keepsPhysicalPagesWithoutDecimalLabels() throws IOException {
+        List<Section> unlabelled = new PdfBoxTocExtractor("Doc").parse(outlined(null, null));
+        List<Section> roman = new PdfBoxTocExtractor("Doc").parse(
+                outlined(PDPageLabelRange.STYLE_DECIMAL, PDPageLabelRange.STYLE_ROMAN_UPPER));
+
+        for (List<Section> toc : List.of(unlabelled, roman)) {
+            assertEquals(ENTRIES, toc.size());
+            for (int i = 0; i < ENTRIES; i++) assertEquals(FRONT + i + 1, toc.get(i).getPage());
+        }
+    }
+
+    /** FRONT front-matter pages, then one page per numbered outline entry; label styles null = no labels. */
+    private File outlined(String frontStyle, String bodyStyle) throws IOException {
+        File file = dir.resolve("outlined-" + frontStyle + "-" + bodyStyle + ".pdf").toFile();
+        try (PDDocument doc = new PDDocument()) {
+            for (int p = 0; p < FRONT + ENTRIES; p++) doc.addPage(new PDPage());
+
+            PDDocumentOutline outline = new PDDocumentOutline();
+            for (int i = 0; i < ENTRIES; i++) {
+                PDOutlineItem item = new PDOutlineItem();
+                item.setTitle((i + 1) + " Chapter " + (i + 1));
+                item.setDestination(doc.getPage(FRONT + i));
+                outline.addLast(item);
+            }
+            doc.getDocumentCatalog().setDocumentOutline(outline);
+
+            if (frontStyle != null) {
+                PDPageLabels labels = new PDPageLabels(doc);
+                labels.setLabelItem(0, range(frontStyle));
+                labels.setLabelItem(FRONT, range(bodyStyle));
+                doc.getDocumentCatalog().setPageLabels(labels);
+            }
+            doc.save(file);
+        }
+        return file;
+    }
+
+    private static PDPageLabelRange range(String style) {
+        PDPageLabelRange range = new PDPageLabelRange();
+        range.setStyle(style);
+        return range;
+    }
+}
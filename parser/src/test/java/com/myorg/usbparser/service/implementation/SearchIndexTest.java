@@ -0,0 +1,157 @@
+package com.myorg.usbparser.service.implementation;
+
+import com.myorg.usbparser.model.Section;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Ranking, phrases and snippets of {@link SearchIndex}, and the round trip through its varint file format.
+ */
+class SearchIndexTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void readsBackWhatWasWritten() throws IOException {
+        // ordinals, positions and their deltas past one varint byte
+        SearchIndex.Builder builder = new SearchIndex.Builder();
+        for (int i = 0; i < 300; i++) {
+            builder.add(section("9." + i, "Title " + i, i % 5, "word" + i % 7 + " filler".repeat(i % 150) + " vbus"));
+        }
+        builder.add(Section.builder().content("no id, no title, no page").build());
+        SearchIndex built = builder.build();
+
+        Path file = dir.resolve(SearchIndex.FILE);
+        built.write(file);
+        SearchIndex read = SearchIndex.read(file);
+
+        assertEquals(built.size(), read.size());
+        for (int i = 0; i < built.size(); i++) {
+            assertEquals(built.sectionId(i), read.sectionId(i));
+            assertEquals(built.title(i), read.title(i));
+            assertEquals(built.page(i), read.page(i));
+        }
+        assertNull(read.page(0));   // stored as 0
+        assertNull(read.sectionId(300));
+        assertNull(read.title(300));
+        for (String query : List.of("vbus", "word3 filler", "\"filler vbus\"", "title 299", "page")) {
+            assertSameRanking(built.search(query, 20), read.search(query, 20));
+        }
+    }
+
+    @Test
+    void rejectsAFileThatIsNotASearchIndex() throws IOException {
+        Path file = dir.resolve(SearchIndex.FILE);
+        Files.writeString(file, "{\"section_id\":\"1\"}\n");
+
+        IOException e = assertThrows(IOException.class, () -> SearchIndex.read(file));
+        assertTrue(e.getMessage().startsWith("Unsupported search index"));
+    }
+
+    @Test
+    void ranksByBm25() {
+        SearchIndex index = index(
+                section("1", "Cable", 1, "vbus vbus vbus"),
+                section("2", "Cable", 2, "vbus"),
+                section("3", "Cable", 3, "vbus and a lot of other words here too"),
+                section("4", "Other", 4, "nothing"));
+
+        SearchIndex.Ranking ranking = index.search("VBUS", 10);
+
+        assertEquals(3, ranking.totalHits());
+        // more occurrences first, then the shorter of two sections with one occurrence
+        assertEquals(List.of(0, 1, 2), ordinals(ranking));
+        assertArrayEquals(new int[]{1, 2, 3}, ranking.hits().get(0).positions());
+
+        // n = 4, df = 3, lengths 4, 2, 10 and 2 tokens (title included)
+        double idf = Math.log(1 + (4 - 3 + 0.5) / (3 + 0.5));
+        double norm = 1.2 * (1 - 0.75 + 0.75 * 2 / 4.5);
+        assertEquals(idf * 2.2 / (1 + norm), ranking.hits().get(1).score(), 1e-9);
+
+        assertEquals(List.of(3), ordinals(index.search("nothing", 10)));
+        assertEquals(0, index.search("vconn", 10).totalHits());
+    }
+
+    @Test
+    void matchesPhrasesAtConsecutivePositionsOnly() {
+        SearchIndex index = index(
+                section("1", "Messages", 1, "the Source_Capabilities message and source capabilities"),
+                section("2", "Messages", 2, "capabilities of the source"),
+                section("3", "Messages", 3, "source power capabilities"));
+
+        assertEquals(List.of(0), ordinals(index.search("\"source capabilities\"", 10)));
+        assertEquals(3, index.search("source capabilities", 10).totalHits());
+        assertEquals(List.of(0), ordinals(index.search("\"Source_Capabilities message\"", 10)));
+        assertEquals(0, index.search("\"capabilities source\"", 10).totalHits());
+        // a phrase word that never occurs
+        assertEquals(0, index.search("\"source vconn\"", 10).totalHits());
+    }
+
+    @Test
+    void breaksTiesByOrdinal() {
+        SearchIndex index = index(
+                section("1", "Hard Reset", 1, "reset"),
+                section("2", "Hard Reset", 2, "reset"),
+                section("3", "Hard Reset", 3, "reset"));
+
+        SearchIndex.Ranking ranking = index.search("reset", 2);
+
+        assertEquals(3, ranking.totalHits());
+        assertEquals(List.of(0, 1), ordinals(ranking));
+    }
+
+    @Test
+    void cutsSnippetsAtTheTextBoundaries() {
+        Section section = section("1", "Source", 1, "one two three four five six seven eight nine ten.");
+        SearchIndex index = index(section);
+        String text = SearchIndex.text(section);
+
+        SearchIndex.Hit first = index.search("source", 1).hits().get(0);
+        assertEquals("<em>Source</em> one two three…", SearchIndex.snippet(text, first, "source", 4));
+
+        SearchIndex.Hit last = index.search("ten", 1).hits().get(0);
+        assertEquals("…nine <em>ten</em>.", SearchIndex.snippet(text, last, "ten", 4));
+
+        SearchIndex.Hit both = index.search("source ten", 1).hits().get(0);
+        assertEquals("<em>Source</em> one two three four five six seven eight nine <em>ten</em>.",
+                SearchIndex.snippet(text, both, "source ten", 20));
+    }
+
+    private static void assertSameRanking(SearchIndex.Ranking expected, SearchIndex.Ranking actual) {
+        assertEquals(expected.totalHits(), actual.totalHits());
+        assertEquals(expected.hits().size(), actual.hits().size());
+        for (int i = 0; i < expected.hits().size(); i++) {
+            SearchIndex.Hit e = expected.hits().get(i);
+            SearchIndex.Hit a = actual.hits().get(i);
+            assertEquals(e.ordinal(), a.ordinal());
+            assertEquals(e.score(), a.score());
+            assertArrayEquals(e.positions(), a.positions());
+        }
+    }
+
+    private static List<Integer> ordinals(SearchIndex.Ranking ranking) {
+        return ranking.hits().stream().map(SearchIndex.Hit::ordinal).toList();
+    }
+
+    private static SearchIndex index(Section... sections) {
+        SearchIndex.Builder builder = new SearchIndex.Builder();
+        for (Section section : sections) builder.add(section);
+        return builder.build();
+    }
+
+    private static Section section(String id, String title, int page, String content) {
+        return Section.builder().docTitle("USB PD").sectionId(id).title(title).page(page).content(content).build();
+    }
+}
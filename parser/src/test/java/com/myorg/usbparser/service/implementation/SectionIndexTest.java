@@ -0,0 +1,62 @@
+package com.myorg.usbparser.service.implementation;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.myorg.usbparser.model.Section;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SectionIndexTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void indexesIdsWhoseComponentsOverflowAnInt() throws Exception {
+        Path file = write(
+                section("6.4", 10),
+                section("12345678901", 11),       // "12345678901 bytes max" read as a heading
+                section("6.4.1", 12),
+                section("6.40", 13),
+                section("99999999999.1", 14));
+        SectionIndex index = SectionIndex.build(file);
+
+        assertEquals(5, index.size());
+        assertArrayEquals(new int[]{1}, index.byId("12345678901"));
+        assertArrayEquals(new int[]{4}, index.byId("99999999999.1"));
+        assertArrayEquals(new int[]{4}, index.byPrefix("99999999999"));
+        assertArrayEquals(new int[]{0, 2}, index.byPrefix("6.4"));
+        assertArrayEquals(new int[0], index.byId("12345678902"));
+        assertEquals("12345678901", index.read(index.byId("12345678901")).get(0).getSectionId());
+    }
+
+    @Test
+    void keepsEveryOccurrenceOfARepeatedId() throws Exception {
+        SectionIndex index = SectionIndex.build(write(section("1.1", 3), section("1.1", 9)));
+
+        assertArrayEquals(new int[]{0, 1}, index.byId("1.1"));
+        assertArrayEquals(new int[]{0}, index.byPages(4, 5));   // the first runs until the second
+        assertArrayEquals(new int[]{0, 1}, index.byPages(9, 9));
+    }
+
+    private static Section section(String id, int page) {
+        return Section.builder().docTitle("Doc").sectionId(id).title("Title " + id).page(page).level(1).build();
+    }
+
+    private Path write(Section... sections) throws Exception {
+        List<String> lines = new ArrayList<>();
+        for (Section s : sections) lines.add(MAPPER.writeValueAsString(s));
+        Path file = dir.resolve("usb_pd_sections.jsonl");
+        Files.write(file, lines);
+        return file;
+    }
+}
@@ -0,0 +1,245 @@
+package com.myorg.usbparser.service.processing;
+
+import com.myorg.usbparser.model.Section;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * {@link SectionPostProcessor}: numeric order, the packed and plain id tables, parent inference and the
+ * winner rule, plus a golden comparison with the cleaner it replaced on randomly generated headings.
+ */
+class SectionPostProcessorTest {
+
+    private static final String PLACEHOLDER = "[No extractable text — section may contain only figures/tables]";
+
+    @Test
+    void sortsByPageThenIdInNumericOrder() {
+        List<Section> out = SectionPostProcessor.cleanSections(List.of(
+                section("6.10", 40), section("6.2", 40), section("6.9.1", 40), section("6", 40),
+                section("1", 3), section("10", 41), section("2", 40)));
+
+        assertEquals(List.of("1", "2", "6", "6.2", "6.9.1", "6.10", "10"), ids(out));
+    }
+
+    @Test
+    void sortsIdsThatCannotBePackedAfterTheNumericOnesOfTheirPage() {
+        List<Section> out = SectionPostProcessor.cleanSections(List.of(
+                section("06", 5),                        // leading zero
+                section("1.2.3.4.5.6.7", 5),             // more than MAX_DEPTH components
+                section("1.1023", 5),                    // component above MAX_COMPONENT
+                section("A.1", 5),
+                section("7.1", 5),
+                section("1.1022", 4)));                  // largest packable component
+
+        assertEquals(List.of("1.1022", "7.1", "06", "1.1023", "1.2.3.4.5.6.7", "A.1"), ids(out));
+    }
+
+    @Test
+    void packsOnlyIdsThatFitTheLayout() {
+        assertTrue(SectionPostProcessor.pack("1.2.3.4.5.6") > 0);
+        assertTrue(SectionPostProcessor.pack("1022") > 0);
+        assertTrue(SectionPostProcessor.pack("0") > 0);
+        assertEquals(-1, SectionPostProcessor.pack("1.2.3.4.5.6.7"));
+        assertEquals(-1, SectionPostProcessor.pack("1023"));
+        assertEquals(-1, SectionPostProcessor.pack("06"));
+        assertEquals(-1, SectionPostProcessor.pack("6."));
+        assertEquals(-1, SectionPostProcessor.pack(".6"));
+        assertEquals(-1, SectionPostProcessor.pack("6..1"));
+        assertEquals(-1, SectionPostProcessor.pack(""));
+        assertEquals(-1, SectionPostProcessor.pack(null));
+        // packed keys sort like the ids
+        assertTrue(SectionPostProcessor.pack("6.2") < SectionPostProcessor.pack("6.10"));
+        assertTrue(SectionPostProcessor.pack("6") < SectionPostProcessor.pack("6.0"));
+        assertTrue(SectionPostProcessor.pack("6.1022.1") < SectionPostProcessor.pack("7"));
+    }
+
+    @Test
+    void deduplicatesIdsAcrossBothTables() {
+        List<Section> out = SectionPostProcessor.cleanSections(List.of(
+                section("6.4", 30, "short"),
+                section("1.1023", 31, "a"),
+                section("6.4", 32, "the longer content"),
+                section("1.1023", 33, "longer")));
+
+        assertEquals(2, out.size());
+        assertEquals("the longer content", out.get(0).getContent());
+        assertEquals(32, out.get(0).getPage());
+        assertEquals("longer", out.get(1).getContent());
+    }
+
+    @Test
+    void keysSectionsWithoutAnIdByFullPathAndPage() {
+        Section a = Section.builder().title("Notes").fullPath("Notes").page(3).content("one").build();
+        Section sameKey = Section.builder().title("Notes").fullPath("Notes").page(3).content("one more").build();
+        Section otherPage = Section.builder().title("Notes").fullPath("Notes").page(4).content("two").build();
+
+        List<Section> out = SectionPostProcessor.cleanSections(List.of(a, sameKey, otherPage, section("2", 3)));
+
+        assertEquals(3, out.size());
+        assertEquals("2", out.get(0).getSectionId());
+        assertEquals("one more", out.get(1).getContent());
+        assertEquals("two", out.get(2).getContent());
+    }
+
+    @Test
+    void prefersRealContentOverThePlaceholderThenTheLowerPage() {
+        List<Section> out = SectionPostProcessor.cleanSections(List.of(
+                section("3.1", 20, PLACEHOLDER),
+                section("3.1", 21, "x"),
+                section("4.1", 30, "same"),
+                section("4.1", 25, "same"),
+                section("4.1", 27, "same"),
+                section("5.1", 40, PLACEHOLDER),
+                section("5.1", 35, "  "),
+                section("5.1", null, "")));
+
+        assertEquals(List.of("3.1", "4.1", "5.1"), ids(out));
+        assertEquals("x", out.get(0).getContent());
+        assertEquals(25, out.get(1).getPage());
+        assertEquals(35, out.get(2).getPage());   // placeholder and blank tie, the lower page wins
+    }
+
+    @Test
+    void infersMissingParentsFromPresentIds() {
+        List<Section> out = SectionPostProcessor.cleanSections(List.of(
+                section("6", 1), section("6.4", 2), section("6.4.1", 3),
+                section("7.2", 4),                                  // 7 is absent
+                section("1.0", 5), section("1.0.1", 6),             // 1.0 is present
+                section("2", 7), section("2.0.0.3", 8),             // 2.0.0 absent, 2 present
+                section("9.1023", 9), section("9.1023.1", 10)));    // unpackable ids
+
+        assertEquals("6", parentOf(out, "6.4"));
+        assertEquals("6.4", parentOf(out, "6.4.1"));
+        assertNull(parentOf(out, "6"));
+        assertNull(parentOf(out, "7.2"));
+        assertEquals("1.0", parentOf(out, "1.0.1"));
+        assertEquals("2", parentOf(out, "2.0.0.3"));
+        assertEquals("9.1023", parentOf(out, "9.1023.1"));
+    }
+
+    @Test
+    void infersParentsThroughTrailingZerosForUnpackableIds() {
+        List<Section> out = SectionPostProcessor.cleanSections(List.of(
+                section("A", 1), section("A.0.5", 2)));
+
+        assertEquals("A", parentOf(out, "A.0.5"));
+    }
+
+    @Test
+    void keepsAnExplicitParent() {
+        Section explicit = Section.builder().sectionId("6.4.1").title("T").page(3).parentId("6").build();
+
+        List<Section> out = SectionPostProcessor.cleanSections(List.of(section("6.4", 2), explicit));
+
+        assertSame(explicit, out.get(1));
+        assertEquals("6", out.get(1).getParentId());
+    }
+
+    @Test
+    void agreesWithTheOriginalCleanerOnRandomHeadings() {
+        Random random = new Random(21);
+        for (int round = 0; round < 20; round++) {
+            List<Section> input = new ArrayList<>();
+            for (int i = 0; i < 2000; i++) {
+                String content = switch (random.nextInt(4)) {
+                    case 0 -> PLACEHOLDER;
+                    case 1 -> "";
+                    default -> "c".repeat(random.nextInt(6));
+                };
+                Integer page = random.nextInt(20) == 0 ? null : 1 + random.nextInt(30);
+                input.add(section(randomId(random), page, content));
+            }
+
+            SectionPostProcessor processor = new SectionPostProcessor();
+            input.forEach(processor);
+            List<Section> streamed = processor.result();
+
+            // same winners and parents; the order is the new one (page, then id in numeric order)
+            List<Section> expected = new ArrayList<>(oracleClean(input));
+            expected.sort(Comparator
+                    .comparing((Section s) -> s.getPage() == null ? Integer.MAX_VALUE : s.getPage())
+                    .thenComparing(s -> SectionPostProcessor.pack(s.getSectionId()) < 0)
+                    .thenComparingLong(s -> SectionPostProcessor.pack(s.getSectionId()))
+                    .thenComparing(Section::getSectionId));
+            assertEquals(expected, streamed);
+            assertEquals(streamed, SectionPostProcessor.cleanSections(input));
+        }
+    }
+
+    // dotted ids with an occasional leading zero, component above 1022, extra depth or letter
+    private static String randomId(Random random) {
+        StringBuilder id = new StringBuilder();
+        int depth = 1 + random.nextInt(random.nextInt(10) == 0 ? 7 : 4);
+        for (int d = 0; d < depth; d++) {
+            if (d > 0) id.append('.');
+            switch (random.nextInt(40)) {
+                case 0 -> id.append('0').append(1 + random.nextInt(9));
+                case 1 -> id.append(1000 + random.nextInt(50));
+                case 2 -> id.append((char) ('A' + random.nextInt(3)));
+                default -> id.append(random.nextInt(5) == 0 ? 0 : random.nextInt(12));
+            }
+        }
+        return id.toString();
+    }
+
+    // ===== Oracle: the cleaner before it became a single-pass stage (sections with an id only) =====
+    // One deliberate difference: on a content tie the original preferred a section without a page
+    // (Integer.MAX_VALUE under the negated page); a section with a page now wins, as its comment intended.
+
+    private static List<Section> oracleClean(List<Section> sections) {
+        Map<String, List<Section>> byId = sections.stream().collect(Collectors.groupingBy(Section::getSectionId));
+        Map<String, Section> best = new HashMap<>();
+        byId.forEach((id, list) -> best.put(id, list.stream().max(Comparator.comparingInt((Section s) -> {
+            String c = s.getContent() == null ? "" : s.getContent().trim();
+            return c.startsWith("[No extractable text") ? 0 : c.length();
+        }).thenComparingInt(s -> s.getPage() == null ? Integer.MIN_VALUE : -s.getPage())).orElseThrow()));
+
+        List<Section> output = new ArrayList<>();
+        for (Section s : best.values()) {
+            String sid = s.getSectionId();
+            String parentId = s.getParentId();
+            if ((parentId == null || parentId.trim().isEmpty()) && sid.contains(".")) {
+                String inferred = sid.substring(0, sid.lastIndexOf('.'));
+                if (best.containsKey(inferred)) {
+                    parentId = inferred;
+                } else {
+                    String trimmed = inferred;
+                    while (trimmed.contains(".") && trimmed.endsWith(".0")) trimmed = trimmed.substring(0, trimmed.length() - 2);
+                    if (!trimmed.isEmpty() && best.containsKey(trimmed)) parentId = trimmed;
+                }
+            }
+            output.add(Section.builder().docTitle(s.getDocTitle()).sectionId(sid).title(s.getTitle())
+                    .page(s.getPage()).level(s.getLevel()).parentId(parentId).fullPath(s.getFullPath())
+                    .tags(s.getTags()).content(s.getContent()).build());
+        }
+        return output;
+    }
+
+    private static Section section(String id, Integer page) {
+        return section(id, page, "content of " + id);
+    }
+
+    private static Section section(String id, Integer page, String content) {
+        return Section.builder().docTitle("Doc").sectionId(id).title("Title " + id).page(page).content(content).build();
+    }
+
+    private static List<String> ids(List<Section> sections) {
+        return sections.stream().map(Section::getSectionId).toList();
+    }
+
+    private static String parentOf(List<Section> sections, String id) {
+        return sections.stream().filter(s -> id.equals(s.getSectionId())).findFirst().orElseThrow().getParentId();
+    }
+}
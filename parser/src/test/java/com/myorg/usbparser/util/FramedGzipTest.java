@@ -0,0 +1,126 @@
+package com.myorg.usbparser.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * A framed gzip file must decode as plain gzip, and its frames, inflated one by one, must add up to the input.
+ */
+class FramedGzipTest {
+
+    // (0xFFFF - 4 - 12) / 4: the frame table has to fit a gzip extra field
+    private static final int MAX_FRAMES = 16379;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void splitsAtLineEndsAndStaysPlainGzip() throws IOException {
+        byte[] text = jsonl(5000, new Random(20));
+        Path file = write(text, 16 * 1024);
+
+        assertArrayEquals(text, gunzip(file));
+        List<FramedGzip.Frame> frames = FramedGzip.frames(file);
+        assertTrue(frames.size() >= text.length / (16 * 1024) - 1, "frames: " + frames.size());
+        assertTrue(frames.size() <= text.length / (16 * 1024) + 1, "frames: " + frames.size());
+        assertArrayEquals(text, concatenate(file, frames, true));
+    }
+
+    @Test
+    void halvesTheFrameTableWhenThereAreTooManyFlushPoints() throws IOException {
+        // a flush point after every line: more than the table can hold
+        byte[] text = jsonl(40_000, new Random(21));
+        Path file = write(text, 1);
+
+        List<FramedGzip.Frame> frames = FramedGzip.frames(file);
+        assertTrue(frames.size() <= MAX_FRAMES, "frames: " + frames.size());
+        assertEquals(10_000, frames.size());   // 40,000 -> 20,000 -> 10,000
+        assertArrayEquals(text, concatenate(file, frames, true));
+        assertArrayEquals(text, gunzip(file));
+    }
+
+    @Test
+    void handlesLongLinesAMissingLastNewlineAndEmptyInput() throws IOException {
+        byte[] text = ("x".repeat(100_000) + "\nshort\n" + "y".repeat(70_000)).getBytes(StandardCharsets.UTF_8);
+        Path file = write(text, 1024);
+
+        List<FramedGzip.Frame> frames = FramedGzip.frames(file);
+        assertEquals(2, frames.size());   // cut after the long line; "short" is below a frame
+        assertArrayEquals(text, concatenate(file, frames, false));
+        assertArrayEquals(text, gunzip(file));
+
+        Path empty = write(new byte[0], 1024);
+        assertEquals(List.of(), FramedGzip.frames(empty));
+        assertArrayEquals(new byte[0], gunzip(empty));
+    }
+
+    @Test
+    void rejectsPlainGzip() throws IOException {
+        Path file = dir.resolve("plain.jsonl.gz");
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(file))) {
+            out.write(jsonl(100, new Random(22)));
+        }
+
+        assertThrows(IOException.class, () -> FramedGzip.frames(file));
+    }
+
+    private Path write(byte[] text, int frameBytes) throws IOException {
+        Path file = Files.createTempFile(dir, "framed", ".jsonl.gz");
+        try (OutputStream out = FramedGzip.output(Files.newOutputStream(file), frameBytes)) {
+            // uneven writes, so frames are not cut at write boundaries
+            Random random = new Random(text.length);
+            for (int off = 0; off < text.length; ) {
+                int len = Math.min(text.length - off, 1 + random.nextInt(9000));
+                out.write(text, off, len);
+                off += len;
+            }
+        }
+        return file;
+    }
+
+    private static byte[] concatenate(Path file, List<FramedGzip.Frame> frames, boolean wholeLines) throws IOException {
+        ByteArrayOutputStream all = new ByteArrayOutputStream();
+        for (FramedGzip.Frame frame : frames) {
+            byte[] part;
+            try (InputStream in = FramedGzip.open(file, frame)) {
+                part = in.readAllBytes();
+            }
+            assertTrue(part.length > 0);
+            if (wholeLines) assertEquals('\n', part[part.length - 1]);
+            all.write(part);
+        }
+        return all.toByteArray();
+    }
+
+    private static byte[] gunzip(Path file) throws IOException {
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(file))) {
+            return in.readAllBytes();
+        }
+    }
+
+    private static byte[] jsonl(int lines, Random random) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < lines; i++) {
+            sb.append("{\"section_id\":\"").append(random.nextInt(20)).append('.').append(i)
+                    .append("\",\"content\":\"").append("Übertragung ".repeat(random.nextInt(30))).append("\"}\n");
+        }
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}